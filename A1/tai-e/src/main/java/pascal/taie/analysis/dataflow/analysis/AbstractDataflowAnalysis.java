@@ -24,6 +24,7 @@ package pascal.taie.analysis.dataflow.analysis;
 
 import pascal.taie.analysis.MethodAnalysis;
 import pascal.taie.analysis.dataflow.fact.DataflowResult;
+import pascal.taie.analysis.dataflow.fact.NodeResult;
 import pascal.taie.analysis.dataflow.solver.Solver;
 import pascal.taie.analysis.graph.cfg.CFG;
 import pascal.taie.analysis.graph.cfg.CFGBuilder;
@@ -31,21 +32,44 @@ import pascal.taie.analysis.graph.cfg.Edge;
 import pascal.taie.config.AnalysisConfig;
 import pascal.taie.ir.IR;
 
+import java.util.Collection;
+
 public abstract class AbstractDataflowAnalysis<Node, Fact>
         extends MethodAnalysis
         implements DataflowAnalysis<Node, Fact> {
 
     private final Solver<Node, Fact> solver;
 
+    /**
+     * Whether to keep only the facts at basic block boundaries in results.
+     */
+    private final boolean compactResult;
+
     protected AbstractDataflowAnalysis(AnalysisConfig config) {
         super(config);
-        solver = Solver.makeSolver(this);
+        solver = Solver.makeSolver(this, getOptions().getString("solver"));
+        compactResult = getOptions().getBooleanOrDefault("compact-result", false);
     }
 
     @Override
     public DataflowResult<Node, Fact> analyze(IR ir) {
         CFG<Node> cfg = ir.getResult(CFGBuilder.ID);
-        return solver.solve(cfg);
+        DataflowResult<Node, Fact> result = solver.solve(cfg);
+        return compactResult ? solver.compact(cfg, result) : result;
+    }
+
+    /**
+     * Re-analyzes given IR incrementally after the statements in
+     * {@code changed} were edited, by reusing previous result of this
+     * analysis on the IR.
+     *
+     * @see Solver#resolve(CFG, NodeResult, Collection)
+     */
+    public DataflowResult<Node, Fact> reanalyze(
+            IR ir, NodeResult<Node, Fact> previous, Collection<Node> changed) {
+        CFG<Node> cfg = ir.getResult(CFGBuilder.ID);
+        DataflowResult<Node, Fact> result = solver.resolve(cfg, previous, changed);
+        return compactResult ? solver.compact(cfg, result) : result;
     }
 
     /**
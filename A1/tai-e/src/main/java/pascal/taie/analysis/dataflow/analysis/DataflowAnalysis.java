@@ -49,6 +49,16 @@ public interface DataflowAnalysis<Node, Fact> {
      */
     Fact newInitialFact();
 
+    /**
+     * @return new initial fact for non-boundary nodes of given CFG.
+     * Analyses whose facts depend on the method being analyzed,
+     * e.g., facts indexed by variables of the method, can override
+     * this method; by default, it returns {@link #newInitialFact()}.
+     */
+    default Fact newInitialFact(CFG<Node> cfg) {
+        return newInitialFact();
+    }
+
     /**
      * Meets a fact into another (target) fact.
      * This function will be used to handle control-flow confluences.
@@ -64,6 +74,36 @@ public interface DataflowAnalysis<Node, Fact> {
      */
     boolean transferNode(Node node, Fact in, Fact out);
 
+    /**
+     * @return true if this analysis provides
+     * {@link #transferNodeInPlace(Object, Object, Object, Object)},
+     * otherwise false.
+     */
+    default boolean supportsInPlaceTransfer() {
+        return false;
+    }
+
+    /**
+     * Allocation-free variant of {@link #transferNode(Object, Object, Object)}.
+     * The function computes the transferred fact into {@code scratch}, which
+     * is owned by the solver and reused across node visits, and then applies
+     * only the difference to the out (in) fact for forward (backward) analysis.
+     * The content of {@code scratch} is unspecified before and after the call.
+     * <p>
+     * Applying only the difference relies on the target fact only growing
+     * towards the fixed point, i.e., the transferred fact always contains
+     * the current target fact. The solvers guarantee this by starting every
+     * fact from {@link #newInitialFact()} (or the boundary fact) and never
+     * shrinking a fact between transfers. Analyses whose transfer functions
+     * are not monotone, or which change the target fact outside of the
+     * transfers, must not support in-place transfer.
+     *
+     * @return true if the transfer changed the out (in) fact, otherwise false.
+     */
+    default boolean transferNodeInPlace(Node node, Fact in, Fact out, Fact scratch) {
+        throw new UnsupportedOperationException();
+    }
+
     /**
      * @return true if this analysis needs to perform transfer for given edge, otherwise false.
      */
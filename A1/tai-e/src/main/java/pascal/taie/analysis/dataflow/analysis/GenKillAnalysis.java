@@ -0,0 +1,57 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.dataflow.analysis;
+
+import pascal.taie.analysis.dataflow.fact.SetFact;
+
+import java.util.Collection;
+
+/**
+ * Data-flow analysis whose node transfer functions are in the gen/kill
+ * form, i.e., for forward (backward) analysis,
+ * OUT[n] = gen[n] U (IN[n] - kill[n])
+ * (IN[n] = gen[n] U (OUT[n] - kill[n])).
+ * <p>
+ * The transfer functions of such analyses are closed under composition,
+ * so that a solver can precompute a single gen/kill pair for a sequence
+ * of nodes, e.g., a basic block, and apply it in one step.
+ * {@link #transferNode(Object, Object, Object)} must agree with
+ * {@link #getGen(Object)} and {@link #getKill(Object)}, and the analysis
+ * must not need edge transfer for any edges inside basic blocks.
+ *
+ * @param <Node> type of CFG nodes
+ * @param <E>    type of elements in the set facts
+ */
+public interface GenKillAnalysis<Node, E>
+        extends DataflowAnalysis<Node, SetFact<E>> {
+
+    /**
+     * @return the elements generated by given node.
+     */
+    Collection<E> getGen(Node node);
+
+    /**
+     * @return the elements killed by given node.
+     */
+    Collection<E> getKill(Node node);
+}
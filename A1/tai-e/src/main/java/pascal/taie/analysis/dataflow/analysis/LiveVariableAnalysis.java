@@ -22,6 +22,7 @@
 
 package pascal.taie.analysis.dataflow.analysis;
 
+import pascal.taie.analysis.dataflow.fact.IndexedSetFact;
 import pascal.taie.analysis.dataflow.fact.SetFact;
 import pascal.taie.analysis.graph.cfg.CFG;
 import pascal.taie.config.AnalysisConfig;
@@ -30,11 +31,17 @@ import pascal.taie.ir.exp.RValue;
 import pascal.taie.ir.exp.Var;
 import pascal.taie.ir.stmt.Stmt;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
 /**
  * Implementation of classic live variable analysis.
+ * The facts are bit sets indexed by {@link Var#getIndex()}.
  */
 public class LiveVariableAnalysis extends
-        AbstractDataflowAnalysis<Stmt, SetFact<Var>> {
+        AbstractDataflowAnalysis<Stmt, SetFact<Var>>
+        implements GenKillAnalysis<Stmt, Var> {
 
     public static final String ID = "livevar";
 
@@ -51,13 +58,20 @@ public class LiveVariableAnalysis extends
     public SetFact<Var> newBoundaryFact(CFG<Stmt> cfg) {
         // TODO - finish me
         //return {}
-        return new SetFact<>();
+        return IndexedSetFact.newVarSetFact(cfg.getIR());
     }
 
     @Override
     public SetFact<Var> newInitialFact() {
         // TODO - finish me
-        return new SetFact<>();
+        // the IR is unknown here, so the fact adopts the index space
+        // of the method of its first variable
+        return IndexedSetFact.newVarSetFact();
+    }
+
+    @Override
+    public SetFact<Var> newInitialFact(CFG<Stmt> cfg) {
+        return IndexedSetFact.newVarSetFact(cfg.getIR());
     }
 
     @Override
@@ -70,8 +84,7 @@ public class LiveVariableAnalysis extends
     public boolean transferNode(Stmt stmt, SetFact<Var> in, SetFact<Var> out) {
         // TODO - finish me
         // 复制outFact，求出新的inFact
-         SetFact<Var> newInFact = new SetFact<>();
-        newInFact.union(out);
+        SetFact<Var> newInFact = out.copy();
         // 求出新的inFact
         // outFact - def
         if (stmt.getDef().isPresent()) { // 先用isPresent再用get是optional的典型用法
@@ -89,10 +102,58 @@ public class LiveVariableAnalysis extends
             }
                 });
         // 判断inFact是否改变，并返回Boolean表示
-        if (newInFact.size()!=in.size()) {
+        if (!newInFact.equals(in)) {
             in.set(newInFact);
             return true;
         }
         return false;
     }
+
+    @Override
+    public boolean supportsInPlaceTransfer() {
+        return true;
+    }
+
+    /**
+     * Computes OUT[stmt] - def[stmt] + use[stmt] in {@code scratch}, and then
+     * unions it into {@code in}. During the iteration, IN facts only grow,
+     * thus the union adds exactly the newly live variables, if any.
+     */
+    @Override
+    public boolean transferNodeInPlace(Stmt stmt, SetFact<Var> in,
+                                       SetFact<Var> out, SetFact<Var> scratch) {
+        scratch.set(out);
+        if (stmt.getDef().orElse(null) instanceof Var def) {
+            scratch.remove(def);
+        }
+        for (RValue use : stmt.getUses()) {
+            if (use instanceof Var var) {
+                scratch.add(var);
+            }
+        }
+        return in.union(scratch);
+    }
+
+    /**
+     * @return the variables used by given statement.
+     */
+    @Override
+    public Collection<Var> getGen(Stmt stmt) {
+        List<Var> gen = new ArrayList<>();
+        for (RValue use : stmt.getUses()) {
+            if (use instanceof Var var) {
+                gen.add(var);
+            }
+        }
+        return gen;
+    }
+
+    /**
+     * @return the variable defined by given statement, if any.
+     */
+    @Override
+    public Collection<Var> getKill(Stmt stmt) {
+        return stmt.getDef().orElse(null) instanceof Var def ?
+                List.of(def) : List.of();
+    }
 }
@@ -0,0 +1,81 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.dataflow.fact;
+
+import pascal.taie.ir.IR;
+import pascal.taie.ir.exp.Var;
+import pascal.taie.util.Indexable;
+import pascal.taie.util.collection.IndexerBitSet;
+
+import java.util.function.Function;
+import java.util.function.IntFunction;
+
+/**
+ * Set-like data-flow facts whose elements are {@link Indexable},
+ * represented by bit sets over the indexes of the elements.
+ *
+ * @param <E> type of elements
+ */
+public class IndexedSetFact<E extends Indexable> extends SetFact<E> {
+
+    /**
+     * @param indexer  function that maps indexes to elements
+     * @param capacity expected maximum index (exclusive) of the elements
+     */
+    public IndexedSetFact(IntFunction<E> indexer, int capacity) {
+        super(() -> new IndexerBitSet<>(indexer, capacity));
+    }
+
+    /**
+     * @param indexerOf function that gives the indexer of the index space
+     *                  that given element belongs to, which is applied to
+     *                  the first element added to this fact
+     */
+    public IndexedSetFact(Function<? super E, IntFunction<E>> indexerOf) {
+        super(() -> new IndexerBitSet<>(indexerOf));
+    }
+
+    private IndexedSetFact(IndexedSetFact<E> fact) {
+        super(() -> new IndexerBitSet<>((IndexerBitSet<E>) fact.set));
+    }
+
+    /**
+     * @return a new empty fact for the variables of given IR.
+     */
+    public static IndexedSetFact<Var> newVarSetFact(IR ir) {
+        return new IndexedSetFact<>(ir::getVar, ir.getVars().size());
+    }
+
+    /**
+     * @return a new empty fact for the variables of the method of
+     * the first variable added to the fact.
+     */
+    public static IndexedSetFact<Var> newVarSetFact() {
+        return new IndexedSetFact<>(var -> var.getMethod().getIR()::getVar);
+    }
+
+    @Override
+    public IndexedSetFact<E> copy() {
+        return new IndexedSetFact<>(this);
+    }
+}
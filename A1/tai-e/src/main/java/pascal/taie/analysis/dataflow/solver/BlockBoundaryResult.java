@@ -0,0 +1,199 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.dataflow.solver;
+
+import pascal.taie.analysis.dataflow.analysis.DataflowAnalysis;
+import pascal.taie.analysis.dataflow.fact.DataflowResult;
+import pascal.taie.analysis.graph.cfg.BasicBlock;
+import pascal.taie.analysis.graph.cfg.BlockCFG;
+import pascal.taie.analysis.graph.cfg.CFG;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A compact {@link DataflowResult} which only keeps the facts at the
+ * boundaries of basic blocks, i.e., the in fact of the first node and
+ * the out fact of the last node of each block. The other facts of a
+ * block are recomputed on demand by replaying the transfer functions
+ * from the stored boundary fact (the in fact of the first node for
+ * forward analyses, and the out fact of the last node for backward
+ * analyses). The replayed facts of a few recently queried blocks are
+ * cached, so that querying the nodes of a block one by one replays
+ * the block only once.
+ * <p>
+ * The blocks are given by a {@link BlockCFG} which does not put
+ * the edges that need edge transfer inside blocks.
+ * <p>
+ * This result is read-only, and it is valid as long as the facts stored
+ * at the fixed point satisfy the data-flow equations, which holds for
+ * the results computed by the solvers.
+ */
+class BlockBoundaryResult<Node, Fact> extends DataflowResult<Node, Fact> {
+
+    /**
+     * Number of blocks whose replayed facts are cached.
+     */
+    private static final int CACHE_SIZE = 8;
+
+    private final DataflowAnalysis<Node, Fact> analysis;
+
+    private final CFG<Node> cfg;
+
+    private final BlockCFG<Node> blockCFG;
+
+    /**
+     * In facts of the first nodes of the blocks, indexed by block index.
+     */
+    private final Object[] blockIns;
+
+    /**
+     * Out facts of the last nodes of the blocks, indexed by block index.
+     */
+    private final Object[] blockOuts;
+
+    private final Map<BasicBlock<Node>, Replay> cache =
+            new LinkedHashMap<>(CACHE_SIZE, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(
+                        Map.Entry<BasicBlock<Node>, Replay> eldest) {
+                    return size() > CACHE_SIZE;
+                }
+            };
+
+    BlockBoundaryResult(DataflowAnalysis<Node, Fact> analysis,
+                        CFG<Node> cfg, DataflowResult<Node, Fact> result) {
+        super(Map.of(), Map.of());
+        this.analysis = analysis;
+        this.cfg = cfg;
+        this.blockCFG = new BlockCFG<>(cfg, analysis::needTransferEdge);
+        int size = blockCFG.getNumberOfNodes();
+        blockIns = new Object[size];
+        blockOuts = new Object[size];
+        for (BasicBlock<Node> block : blockCFG) {
+            blockIns[block.getIndex()] = result.getInFact(block.getFirst());
+            blockOuts[block.getIndex()] = result.getOutFact(block.getLast());
+        }
+    }
+
+    @Override
+    public Fact getInFact(Node node) {
+        BasicBlock<Node> block = blockCFG.getBlockOf(node);
+        if (block == null) {
+            return null;
+        }
+        int i = blockCFG.getIndexInBlock(node);
+        return i == 0 ? getBlockIn(block) : getReplay(block).in.get(i);
+    }
+
+    @Override
+    public void setInFact(Node node, Fact fact) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public Fact getOutFact(Node node) {
+        BasicBlock<Node> block = blockCFG.getBlockOf(node);
+        if (block == null) {
+            return null;
+        }
+        int i = blockCFG.getIndexInBlock(node);
+        return i == block.size() - 1 ?
+                getBlockOut(block) : getReplay(block).out.get(i);
+    }
+
+    @Override
+    public void setOutFact(Node node, Fact fact) {
+        throw new UnsupportedOperationException();
+    }
+
+    @SuppressWarnings("unchecked")
+    private Fact getBlockIn(BasicBlock<Node> block) {
+        return (Fact) blockIns[block.getIndex()];
+    }
+
+    @SuppressWarnings("unchecked")
+    private Fact getBlockOut(BasicBlock<Node> block) {
+        return (Fact) blockOuts[block.getIndex()];
+    }
+
+    private Replay getReplay(BasicBlock<Node> block) {
+        synchronized (cache) {
+            return cache.computeIfAbsent(block, this::replay);
+        }
+    }
+
+    /**
+     * Recomputes the facts of the nodes in given block.
+     */
+    private Replay replay(BasicBlock<Node> block) {
+        List<Node> nodes = block.getNodes();
+        int size = nodes.size();
+        List<Fact> in = new ArrayList<>(size);
+        List<Fact> out = new ArrayList<>(size);
+        for (int i = 0; i < size; ++i) {
+            in.add(null);
+            out.add(null);
+        }
+        if (analysis.isForward()) {
+            in.set(0, getBlockIn(block));
+            for (int i = 0; i < size; ++i) {
+                Fact nodeOut = analysis.newInitialFact(cfg);
+                analysis.transferNode(nodes.get(i), in.get(i), nodeOut);
+                out.set(i, nodeOut);
+                if (i + 1 < size) {
+                    Fact succIn = analysis.newInitialFact(cfg);
+                    analysis.meetInto(nodeOut, succIn);
+                    in.set(i + 1, succIn);
+                }
+            }
+        } else {
+            out.set(size - 1, getBlockOut(block));
+            for (int i = size - 1; i >= 0; --i) {
+                Fact nodeIn = analysis.newInitialFact(cfg);
+                analysis.transferNode(nodes.get(i), nodeIn, out.get(i));
+                in.set(i, nodeIn);
+                if (i > 0) {
+                    Fact predOut = analysis.newInitialFact(cfg);
+                    analysis.meetInto(nodeIn, predOut);
+                    out.set(i - 1, predOut);
+                }
+            }
+        }
+        return new Replay(in, out);
+    }
+
+    private class Replay {
+
+        private final List<Fact> in;
+
+        private final List<Fact> out;
+
+        private Replay(List<Fact> in, List<Fact> out) {
+            this.in = in;
+            this.out = out;
+        }
+    }
+}
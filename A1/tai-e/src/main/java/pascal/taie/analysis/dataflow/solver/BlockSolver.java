@@ -0,0 +1,266 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.dataflow.solver;
+
+import pascal.taie.analysis.dataflow.analysis.DataflowAnalysis;
+import pascal.taie.analysis.dataflow.analysis.GenKillAnalysis;
+import pascal.taie.analysis.dataflow.fact.DataflowResult;
+import pascal.taie.analysis.dataflow.fact.SetFact;
+import pascal.taie.analysis.graph.cfg.BasicBlock;
+import pascal.taie.analysis.graph.cfg.BlockCFG;
+import pascal.taie.analysis.graph.cfg.BlockEdge;
+import pascal.taie.analysis.graph.cfg.CFG;
+import pascal.taie.analysis.graph.cfg.Edge;
+import pascal.taie.util.graph.ReverseGraph;
+import pascal.taie.util.graph.ReversePostorder;
+
+import javax.annotation.Nullable;
+import java.util.List;
+
+/**
+ * Work-list solver which iterates over the basic blocks of the CFG
+ * instead of single nodes. The blocks are prioritized in the same way as
+ * {@link PriorityWorkListSolver}, and each visit of a block applies
+ * the composed transfer function of the whole block.
+ * <p>
+ * For {@link GenKillAnalysis}, the composed transfer function of each block
+ * is precomputed as a single gen/kill pair, so a block visit costs one set
+ * operation regardless of the block length, and the facts of the nodes
+ * inside blocks are computed only once after the fixed point is reached.
+ * For other analyses, a block visit applies the node transfer functions
+ * of the block in sequence, which still saves the edge iteration and
+ * work-list operations for the nodes inside blocks.
+ */
+class BlockSolver<Node, Fact> extends Solver<Node, Fact> {
+
+    BlockSolver(DataflowAnalysis<Node, Fact> analysis) {
+        super(analysis);
+    }
+
+    @Override
+    protected int doSolveForward(CFG<Node> cfg, DataflowResult<Node, Fact> result) {
+        BlockCFG<Node> blockCFG = new BlockCFG<>(cfg, analysis::needTransferEdge);
+        GenKill genKill = makeGenKill(blockCFG);
+        PriorityWorkList<BasicBlock<Node>> workList = new PriorityWorkList<>(
+                new ReversePostorder<>(blockCFG, blockCFG.getEntry()).get());
+        workList.addAllExcept(blockCFG.getEntry());
+        Fact scratch = genKill != null ? null : newScratchFact(cfg);
+        int visits = 0;
+        while (!workList.isEmpty()) {
+            BasicBlock<Node> block = workList.poll();
+            Fact in = result.getInFact(block.getFirst());
+            for (Edge<BasicBlock<Node>> inEdge : blockCFG.getInEdgesOf(block)) {
+                Edge<Node> edge = ((BlockEdge<Node>) inEdge).getNodeEdge();
+                Fact predOut = result.getOutFact(edge.getSource());
+                if (analysis.needTransferEdge(edge)) {
+                    predOut = analysis.transferEdge(edge, predOut);
+                }
+                analysis.meetInto(predOut, in);
+            }
+            ++visits;
+            boolean changed = genKill != null ?
+                    genKill.apply(block, in, result.getOutFact(block.getLast())) :
+                    transferBlock(block, result, scratch);
+            if (changed) {
+                blockCFG.getSuccsOf(block).forEach(workList::add);
+            }
+        }
+        if (genKill != null) {
+            computeInnerFacts(blockCFG, result);
+        }
+        return visits;
+    }
+
+    @Override
+    protected int doSolveBackward(CFG<Node> cfg, DataflowResult<Node, Fact> result) {
+        BlockCFG<Node> blockCFG = new BlockCFG<>(cfg, analysis::needTransferEdge);
+        GenKill genKill = makeGenKill(blockCFG);
+        PriorityWorkList<BasicBlock<Node>> workList = new PriorityWorkList<>(
+                new ReversePostorder<>(new ReverseGraph<>(blockCFG), blockCFG.getExit()).get());
+        workList.addAllExcept(blockCFG.getExit());
+        Fact scratch = genKill != null ? null : newScratchFact(cfg);
+        int visits = 0;
+        while (!workList.isEmpty()) {
+            BasicBlock<Node> block = workList.poll();
+            Fact out = result.getOutFact(block.getLast());
+            for (Edge<BasicBlock<Node>> outEdge : blockCFG.getOutEdgesOf(block)) {
+                Edge<Node> edge = ((BlockEdge<Node>) outEdge).getNodeEdge();
+                Fact succIn = result.getInFact(edge.getTarget());
+                if (analysis.needTransferEdge(edge)) {
+                    succIn = analysis.transferEdge(edge, succIn);
+                }
+                analysis.meetInto(succIn, out);
+            }
+            ++visits;
+            boolean changed = genKill != null ?
+                    genKill.apply(block, out, result.getInFact(block.getFirst())) :
+                    transferBlock(block, result, scratch);
+            if (changed) {
+                blockCFG.getPredsOf(block).forEach(workList::add);
+            }
+        }
+        if (genKill != null) {
+            computeInnerFacts(blockCFG, result);
+        }
+        return visits;
+    }
+
+    /**
+     * Applies the node transfer functions of the nodes in given block
+     * in sequence, and meets the facts along the edges inside the block.
+     *
+     * @return true if the out (in) fact of the block, i.e., of its last
+     * (first) node in forward (backward) analysis, changed.
+     */
+    private boolean transferBlock(BasicBlock<Node> block,
+                                  DataflowResult<Node, Fact> result,
+                                  @Nullable Fact scratch) {
+        List<Node> nodes = block.getNodes();
+        boolean changed = false;
+        if (analysis.isForward()) {
+            for (int i = 0; i < nodes.size(); ++i) {
+                Node node = nodes.get(i);
+                if (i > 0) {
+                    analysis.meetInto(result.getOutFact(nodes.get(i - 1)),
+                            result.getInFact(node));
+                }
+                changed = transferNode(node, result.getInFact(node),
+                        result.getOutFact(node), scratch);
+            }
+        } else {
+            for (int i = nodes.size() - 1; i >= 0; --i) {
+                Node node = nodes.get(i);
+                if (i < nodes.size() - 1) {
+                    analysis.meetInto(result.getInFact(nodes.get(i + 1)),
+                            result.getOutFact(node));
+                }
+                changed = transferNode(node, result.getInFact(node),
+                        result.getOutFact(node), scratch);
+            }
+        }
+        return changed;
+    }
+
+    /**
+     * Computes the facts of the nodes inside blocks from the facts at
+     * block boundaries, which are at the fixed point.
+     */
+    private void computeInnerFacts(BlockCFG<Node> blockCFG,
+                                   DataflowResult<Node, Fact> result) {
+        Fact scratch = newScratchFact(blockCFG.getNodeCFG());
+        for (BasicBlock<Node> block : blockCFG) {
+            if (block.size() > 1) {
+                transferBlock(block, result, scratch);
+            }
+        }
+    }
+
+    /**
+     * @return precomputed gen/kill pairs of the blocks if the analysis is
+     * a {@link GenKillAnalysis}, otherwise null.
+     */
+    @Nullable
+    @SuppressWarnings("unchecked")
+    private GenKill makeGenKill(BlockCFG<Node> blockCFG) {
+        return analysis instanceof GenKillAnalysis ?
+                new GenKill((GenKillAnalysis<Node, Object>) analysis, blockCFG) :
+                null;
+    }
+
+    /**
+     * Composed gen/kill pairs of the blocks.
+     */
+    private class GenKill {
+
+        /**
+         * Gen sets of the blocks, indexed by block index.
+         */
+        private final Object[] gens;
+
+        /**
+         * Kill sets of the blocks, indexed by block index.
+         */
+        private final Object[] kills;
+
+        private final SetFact<Object> scratch;
+
+        private GenKill(GenKillAnalysis<Node, Object> genKillAnalysis,
+                        BlockCFG<Node> blockCFG) {
+            CFG<Node> cfg = blockCFG.getNodeCFG();
+            int size = blockCFG.getNumberOfNodes();
+            gens = new Object[size];
+            kills = new Object[size];
+            scratch = newSet(cfg);
+            for (BasicBlock<Node> block : blockCFG) {
+                SetFact<Object> gen = newSet(cfg);
+                SetFact<Object> kill = newSet(cfg);
+                // compose the node transfer functions in the order they are
+                // applied: applying g U (x - k) after (gen, kill) gives
+                // (g U (gen - k), kill U k)
+                List<Node> nodes = block.getNodes();
+                for (int i = 0; i < nodes.size(); ++i) {
+                    Node node = nodes.get(
+                            analysis.isForward() ? i : nodes.size() - 1 - i);
+                    for (Object e : genKillAnalysis.getKill(node)) {
+                        gen.remove(e);
+                        kill.add(e);
+                    }
+                    for (Object e : genKillAnalysis.getGen(node)) {
+                        gen.add(e);
+                    }
+                }
+                gens[block.getIndex()] = gen;
+                kills[block.getIndex()] = kill;
+            }
+        }
+
+        /**
+         * @return an empty set fact for given CFG.
+         */
+        @SuppressWarnings("unchecked")
+        private SetFact<Object> newSet(CFG<Node> cfg) {
+            SetFact<Object> set = (SetFact<Object>) analysis.newInitialFact(cfg);
+            set.clear();
+            return set;
+        }
+
+        /**
+         * Applies the composed transfer function of given block,
+         * i.e., target = gen U (source - kill).
+         *
+         * @return true if target changed, otherwise false.
+         */
+        @SuppressWarnings("unchecked")
+        private boolean apply(BasicBlock<Node> block, Fact source, Fact target) {
+            scratch.set((SetFact<Object>) source);
+            scratch.removeAll((SetFact<Object>) kills[block.getIndex()]);
+            scratch.union((SetFact<Object>) gens[block.getIndex()]);
+            SetFact<Object> t = (SetFact<Object>) target;
+            if (!scratch.equals(t)) {
+                t.set(scratch);
+                return true;
+            }
+            return false;
+        }
+    }
+}
@@ -33,13 +33,15 @@ class IterativeSolver<Node, Fact> extends Solver<Node, Fact> {
     }
 
     @Override
-    protected void doSolveForward(CFG<Node> cfg, DataflowResult<Node, Fact> result) {
+    protected int doSolveForward(CFG<Node> cfg, DataflowResult<Node, Fact> result) {
         throw new UnsupportedOperationException();
     }
 
     @Override
-    protected void doSolveBackward(CFG<Node> cfg, DataflowResult<Node, Fact> result) {
+    protected int doSolveBackward(CFG<Node> cfg, DataflowResult<Node, Fact> result) {
         // TODO - finish me
+        Fact scratch = newScratchFact(cfg);
+        int visits = 0;
         boolean flag=true;
         while (flag){
             flag=false;
@@ -50,11 +52,13 @@ class IterativeSolver<Node, Fact> extends Solver<Node, Fact> {
                          ) {
                         analysis.meetInto(result.getInFact(succ), result.getOutFact(node) );
                     }
-                   if (analysis.transferNode(node, result.getInFact(node), result.getOutFact(node) )){
+                   ++visits;
+                   if (transferNode(node, result.getInFact(node), result.getOutFact(node), scratch)){
                        flag=true;
                    };
                 }
             }
         }
+        return visits;
     }
 }
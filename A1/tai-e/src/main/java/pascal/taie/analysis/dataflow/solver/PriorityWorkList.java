@@ -0,0 +1,72 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.dataflow.solver;
+
+import pascal.taie.util.collection.Maps;
+
+import java.util.BitSet;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Work list which always polls the node with the smallest priority,
+ * i.e., position in the given order, and contains each node at most once.
+ *
+ * @param <N> type of nodes
+ */
+class PriorityWorkList<N> {
+
+    private final List<N> order;
+
+    private final Map<N, Integer> priorities;
+
+    private final BitSet entries;
+
+    PriorityWorkList(List<N> order) {
+        this.order = order;
+        this.priorities = Maps.newMap(order.size());
+        for (int i = 0; i < order.size(); ++i) {
+            priorities.put(order.get(i), i);
+        }
+        this.entries = new BitSet(order.size());
+    }
+
+    void add(N node) {
+        entries.set(priorities.get(node));
+    }
+
+    void addAllExcept(N boundary) {
+        entries.set(0, order.size());
+        entries.clear(priorities.get(boundary));
+    }
+
+    boolean isEmpty() {
+        return entries.isEmpty();
+    }
+
+    N poll() {
+        int i = entries.nextSetBit(0);
+        entries.clear(i);
+        return order.get(i);
+    }
+}
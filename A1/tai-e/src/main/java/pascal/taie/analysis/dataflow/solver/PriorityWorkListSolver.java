@@ -0,0 +1,56 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.dataflow.solver;
+
+import pascal.taie.analysis.dataflow.analysis.DataflowAnalysis;
+import pascal.taie.analysis.dataflow.fact.DataflowResult;
+import pascal.taie.analysis.graph.cfg.CFG;
+
+/**
+ * Work-list solver which prioritizes the nodes by reverse postorder
+ * (for forward analyses) or by reverse postorder of the reverse CFG
+ * (for backward analyses). In this way, a node is usually processed after
+ * all its predecessors (successors) in forward (backward) analysis,
+ * and loops are stabilized from inside out, which reduces the number
+ * of node visits compared to FIFO work-list or round-robin iteration.
+ */
+class PriorityWorkListSolver<Node, Fact> extends Solver<Node, Fact> {
+
+    PriorityWorkListSolver(DataflowAnalysis<Node, Fact> analysis) {
+        super(analysis);
+    }
+
+    @Override
+    protected int doSolveForward(CFG<Node> cfg, DataflowResult<Node, Fact> result) {
+        PriorityWorkList<Node> workList = newWorkList(cfg);
+        workList.addAllExcept(cfg.getEntry());
+        return propagateForward(cfg, result, workList);
+    }
+
+    @Override
+    protected int doSolveBackward(CFG<Node> cfg, DataflowResult<Node, Fact> result) {
+        PriorityWorkList<Node> workList = newWorkList(cfg);
+        workList.addAllExcept(cfg.getExit());
+        return propagateBackward(cfg, result, workList);
+    }
+}
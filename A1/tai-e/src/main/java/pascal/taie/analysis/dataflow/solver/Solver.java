@@ -22,9 +22,25 @@
 
 package pascal.taie.analysis.dataflow.solver;
 
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
 import pascal.taie.analysis.dataflow.analysis.DataflowAnalysis;
 import pascal.taie.analysis.dataflow.fact.DataflowResult;
+import pascal.taie.analysis.dataflow.fact.NodeResult;
+import pascal.taie.analysis.dataflow.fact.StmtDataflowResult;
 import pascal.taie.analysis.graph.cfg.CFG;
+import pascal.taie.analysis.graph.cfg.Edge;
+import pascal.taie.config.ConfigException;
+import pascal.taie.ir.stmt.Stmt;
+import pascal.taie.util.collection.Sets;
+import pascal.taie.util.graph.ReverseGraph;
+import pascal.taie.util.graph.ReversePostorder;
+
+import javax.annotation.Nullable;
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.Set;
 
 /**
  * Base class for data-flow analysis solver, which provides common
@@ -35,6 +51,8 @@ import pascal.taie.analysis.graph.cfg.CFG;
  */
 public abstract class Solver<Node, Fact> {
 
+    private static final Logger logger = LogManager.getLogger(Solver.class);
+
     protected final DataflowAnalysis<Node, Fact> analysis;
 
     protected Solver(DataflowAnalysis<Node, Fact> analysis) {
@@ -49,6 +67,35 @@ public abstract class Solver<Node, Fact> {
         return new IterativeSolver<>(analysis);
     }
 
+    /**
+     * Static factory method to create a new solver of given kind
+     * for given analysis. Available kinds are:
+     * <ul>
+     *     <li>iterative: round-robin iteration over the nodes until
+     *     no fact changes (the default)</li>
+     *     <li>priority: work-list iteration which always picks the node
+     *     that comes first in reverse postorder (for forward analyses) or
+     *     in reverse postorder of the reverse CFG (for backward analyses)</li>
+     *     <li>block: like priority, but iterates over basic blocks and
+     *     applies composed block transfer functions, see {@link BlockSolver}</li>
+     * </ul>
+     *
+     * @param kind kind of the solver, or null for the default solver
+     * @throws ConfigException if the given kind is unknown
+     */
+    public static <Node, Fact> Solver<Node, Fact> makeSolver(
+            DataflowAnalysis<Node, Fact> analysis, @Nullable String kind) {
+        if (kind == null) {
+            return makeSolver(analysis);
+        }
+        return switch (kind) {
+            case "iterative" -> new IterativeSolver<>(analysis);
+            case "priority" -> new PriorityWorkListSolver<>(analysis);
+            case "block" -> new BlockSolver<>(analysis);
+            default -> throw new ConfigException("Unknown solver: " + kind);
+        };
+    }
+
     /**
      * Starts this solver on the given CFG.
      *
@@ -57,17 +104,136 @@ public abstract class Solver<Node, Fact> {
      */
     public DataflowResult<Node, Fact> solve(CFG<Node> cfg) {
         DataflowResult<Node, Fact> result = initialize(cfg);
-        doSolve(cfg, result);
+        int visits = doSolve(cfg, result);
+        logger.debug("{} visited {} times for {} nodes of {}",
+                getClass().getSimpleName(), visits,
+                cfg.getNumberOfNodes(), cfg.getMethod());
         return result;
     }
 
+    /**
+     * Incrementally re-solves the data-flow problem for given CFG after
+     * the transfer functions of some nodes changed, e.g., after the
+     * statements were edited, by reusing the facts of a previous result.
+     * <p>
+     * A change may require facts to be retracted, which cannot be done by
+     * further meets, thus this method follows the delete-and-rederive
+     * strategy: it resets the facts of all nodes which may depend on
+     * the changed nodes, i.e., the nodes reachable from them along
+     * the direction of the analysis, to the initial facts, and then
+     * re-derives these facts from the facts of the unaffected nodes.
+     * This works for any monotone analysis, distributive or not, and
+     * gives the same result as {@link #solve(CFG)}. The facts of
+     * unaffected nodes are shared with the previous result.
+     *
+     * <p>
+     * The previous result may be computed on the CFG of an IR which has
+     * been edited into the IR of given CFG. Its facts are looked up by
+     * node identity, so new nodes have no facts even if they take the
+     * indexes of old statements. If the boundary node (the entry for
+     * forward analyses, and the exit for backward analyses) is new,
+     * its boundary fact is created anew, as the boundary fact depends on
+     * the method rather than on its statements.
+     *
+     * @param cfg      control-flow graph where the analysis is performed on
+     * @param previous a result of this analysis on the same CFG, or on
+     *                 the CFG of the IR before the edit, which must not be
+     *                 modified afterwards
+     * @param changed  the nodes whose transfer functions or incident edges
+     *                 changed. Nodes that have no fact in previous result
+     *                 are treated as changed as well.
+     * @return the analysis result after the change
+     */
+    public DataflowResult<Node, Fact> resolve(
+            CFG<Node> cfg, NodeResult<Node, Fact> previous,
+            Collection<Node> changed) {
+        boolean forward = analysis.isForward();
+        Node boundary = forward ? cfg.getEntry() : cfg.getExit();
+        // delete: collect the nodes affected by the change
+        Set<Node> affected = Sets.newSet();
+        Deque<Node> stack = new ArrayDeque<>();
+        for (Node node : changed) {
+            if (cfg.hasNode(node) && affected.add(node)) {
+                stack.push(node);
+            }
+        }
+        for (Node node : cfg) {
+            if (!node.equals(boundary) &&
+                    (forward ? previous.getOutFact(node) :
+                            previous.getInFact(node)) == null &&
+                    affected.add(node)) {
+                stack.push(node);
+            }
+        }
+        while (!stack.isEmpty()) {
+            Node node = stack.pop();
+            for (Node next : forward ?
+                    cfg.getSuccsOf(node) : cfg.getPredsOf(node)) {
+                if (affected.add(next)) {
+                    stack.push(next);
+                }
+            }
+        }
+        DataflowResult<Node, Fact> result = newResult(cfg);
+        for (Node node : cfg) {
+            if (node.equals(boundary)) {
+                Fact fact = affected.contains(node) ? null :
+                        (forward ? previous.getOutFact(node) :
+                                previous.getInFact(node));
+                if (fact == null) {
+                    fact = analysis.newBoundaryFact(cfg);
+                }
+                if (forward) {
+                    result.setOutFact(node, fact);
+                } else {
+                    result.setInFact(node, fact);
+                }
+            } else if (affected.contains(node)) {
+                result.setInFact(node, analysis.newInitialFact(cfg));
+                result.setOutFact(node, analysis.newInitialFact(cfg));
+            } else {
+                result.setInFact(node, previous.getInFact(node));
+                result.setOutFact(node, previous.getOutFact(node));
+            }
+        }
+        // rederive: propagate from the affected nodes
+        PriorityWorkList<Node> workList = newWorkList(cfg);
+        affected.forEach(node -> {
+            if (!node.equals(boundary)) {
+                workList.add(node);
+            }
+        });
+        int visits = forward ?
+                propagateForward(cfg, result, workList) :
+                propagateBackward(cfg, result, workList);
+        logger.debug("{} re-solved {} affected nodes of {} with {} visits",
+                getClass().getSimpleName(), affected.size(),
+                cfg.getMethod(), visits);
+        return result;
+    }
+
+    /**
+     * Converts a result computed by this solver to a compact result which
+     * only keeps the facts at the boundaries of basic blocks, and recomputes
+     * the other facts on demand. This reduces the memory retained by
+     * the result, at the cost of replaying transfer functions on queries.
+     *
+     * @param cfg    the CFG on which the result was computed
+     * @param result the result computed by {@link #solve(CFG)}
+     * @return a read-only result that answers the same facts as given result
+     */
+    public DataflowResult<Node, Fact> compact(
+            CFG<Node> cfg, DataflowResult<Node, Fact> result) {
+        return new BlockBoundaryResult<>(analysis, cfg, result);
+    }
+
     /**
      * Creates and initializes a new data-flow result for given CFG.
      *
      * @return the initialized data-flow result
      */
     private DataflowResult<Node, Fact> initialize(CFG<Node> cfg) {
-        DataflowResult<Node, Fact> result = new DataflowResult<>();
+        DataflowResult<Node, Fact> result = newResult(cfg);
         if (analysis.isForward()) {
             initializeForward(cfg, result);
         } else {
@@ -76,8 +242,26 @@ public abstract class Solver<Node, Fact> {
         return result;
     }
 
+    /**
+     * Creates an empty data-flow result for given CFG. For CFGs of
+     * {@link Stmt}s, the result is an array-backed {@link StmtDataflowResult}.
+     */
+    @SuppressWarnings("unchecked")
+    private static <Node, Fact> DataflowResult<Node, Fact> newResult(CFG<Node> cfg) {
+        if (cfg.getEntry() instanceof Stmt) {
+            return (DataflowResult<Node, Fact>)
+                    new StmtDataflowResult<Fact>(cfg.getIR());
+        }
+        return new DataflowResult<>();
+    }
+
     protected void initializeForward(CFG<Node> cfg, DataflowResult<Node, Fact> result) {
-        throw new UnsupportedOperationException();
+        result.setOutFact(cfg.getEntry(), analysis.newBoundaryFact(cfg));
+        for (Node node : cfg.getNodes()) {
+            if (cfg.isEntry(node)) continue;
+            result.setInFact(node, analysis.newInitialFact(cfg));
+            result.setOutFact(node, analysis.newInitialFact(cfg));
+        }
     }
 
     protected void initializeBackward(CFG<Node> cfg, DataflowResult<Node, Fact> result) {
@@ -85,23 +269,117 @@ public abstract class Solver<Node, Fact> {
         result.setInFact(cfg.getExit(), analysis.newBoundaryFact(cfg));
         for (Node node : cfg.getNodes()) {
             if (cfg.isExit(node)) continue;
-            result.setInFact(node, analysis.newInitialFact());
-            result.setOutFact(node, analysis.newInitialFact());
+            result.setInFact(node, analysis.newInitialFact(cfg));
+            result.setOutFact(node, analysis.newInitialFact(cfg));
         }
     }
 
+    /**
+     * @return a scratch fact for in-place transfer on given CFG,
+     * or null if the analysis does not support in-place transfer.
+     */
+    @Nullable
+    protected Fact newScratchFact(CFG<Node> cfg) {
+        return analysis.supportsInPlaceTransfer() ?
+                analysis.newInitialFact(cfg) : null;
+    }
+
+    /**
+     * Applies the node transfer function of the analysis. If a scratch fact
+     * is given, i.e., the analysis supports in-place transfer, the in-place
+     * variant is used so that no fact is allocated for the node visit.
+     *
+     * @return true if the transfer changed the out (in) fact, otherwise false.
+     */
+    protected boolean transferNode(Node node, Fact in, Fact out,
+                                   @Nullable Fact scratch) {
+        return scratch != null ?
+                analysis.transferNodeInPlace(node, in, out, scratch) :
+                analysis.transferNode(node, in, out);
+    }
+
     /**
      * Solves the data-flow problem for given CFG.
+     *
+     * @return the number of node visits, i.e., node transfers,
+     * performed to reach the fixed point.
      */
-    private void doSolve(CFG<Node> cfg, DataflowResult<Node, Fact> result) {
+    private int doSolve(CFG<Node> cfg, DataflowResult<Node, Fact> result) {
         if (analysis.isForward()) {
-            doSolveForward(cfg, result);
+            return doSolveForward(cfg, result);
         } else {
-            doSolveBackward(cfg, result);
+            return doSolveBackward(cfg, result);
+        }
+    }
+
+    /**
+     * @return an empty priority work list for the nodes of given CFG, which
+     * orders the nodes in reverse postorder (for forward analyses) or in
+     * reverse postorder of the reverse CFG (for backward analyses).
+     */
+    PriorityWorkList<Node> newWorkList(CFG<Node> cfg) {
+        return new PriorityWorkList<>(analysis.isForward() ?
+                new ReversePostorder<>(cfg, cfg.getEntry()).get() :
+                new ReversePostorder<>(new ReverseGraph<>(cfg), cfg.getExit()).get());
+    }
+
+    /**
+     * Propagates facts forward from the nodes in the work list
+     * until the fixed point is reached.
+     *
+     * @return the number of node visits.
+     */
+    int propagateForward(CFG<Node> cfg, DataflowResult<Node, Fact> result,
+                         PriorityWorkList<Node> workList) {
+        Fact scratch = newScratchFact(cfg);
+        int visits = 0;
+        while (!workList.isEmpty()) {
+            Node node = workList.poll();
+            Fact in = result.getInFact(node);
+            for (Edge<Node> inEdge : cfg.getInEdgesOf(node)) {
+                Fact predOut = result.getOutFact(inEdge.getSource());
+                if (analysis.needTransferEdge(inEdge)) {
+                    predOut = analysis.transferEdge(inEdge, predOut);
+                }
+                analysis.meetInto(predOut, in);
+            }
+            ++visits;
+            if (transferNode(node, in, result.getOutFact(node), scratch)) {
+                cfg.getSuccsOf(node).forEach(workList::add);
+            }
+        }
+        return visits;
+    }
+
+    /**
+     * Propagates facts backward from the nodes in the work list
+     * until the fixed point is reached.
+     *
+     * @return the number of node visits.
+     */
+    int propagateBackward(CFG<Node> cfg, DataflowResult<Node, Fact> result,
+                          PriorityWorkList<Node> workList) {
+        Fact scratch = newScratchFact(cfg);
+        int visits = 0;
+        while (!workList.isEmpty()) {
+            Node node = workList.poll();
+            Fact out = result.getOutFact(node);
+            for (Edge<Node> outEdge : cfg.getOutEdgesOf(node)) {
+                Fact succIn = result.getInFact(outEdge.getTarget());
+                if (analysis.needTransferEdge(outEdge)) {
+                    succIn = analysis.transferEdge(outEdge, succIn);
+                }
+                analysis.meetInto(succIn, out);
+            }
+            ++visits;
+            if (transferNode(node, result.getInFact(node), out, scratch)) {
+                cfg.getPredsOf(node).forEach(workList::add);
+            }
         }
+        return visits;
     }
 
-    protected abstract void doSolveForward(CFG<Node> cfg, DataflowResult<Node, Fact> result);
+    protected abstract int doSolveForward(CFG<Node> cfg, DataflowResult<Node, Fact> result);
 
-    protected abstract void doSolveBackward(CFG<Node> cfg, DataflowResult<Node, Fact> result);
+    protected abstract int doSolveBackward(CFG<Node> cfg, DataflowResult<Node, Fact> result);
 }
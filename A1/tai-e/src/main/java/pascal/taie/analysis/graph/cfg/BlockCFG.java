@@ -0,0 +1,262 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.graph.cfg;
+
+import pascal.taie.ir.IR;
+import pascal.taie.language.classes.JMethod;
+import pascal.taie.util.collection.Maps;
+import pascal.taie.util.collection.MultiMap;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Predicate;
+
+/**
+ * A CFG of basic blocks derived from a node-level CFG.
+ * <p>
+ * A block is a maximal chain of nodes where each node (but the last) has
+ * a single out edge, and each node (but the first) has a single in edge.
+ * The entry and exit nodes of the underlying CFG always form blocks by
+ * themselves, which are the entry and exit of this CFG.
+ *
+ * @param <N> type of nodes of the underlying CFG
+ */
+public class BlockCFG<N> implements CFG<BasicBlock<N>> {
+
+    private final CFG<N> cfg;
+
+    private final List<BasicBlock<N>> blocks = new ArrayList<>();
+
+    private final Set<BasicBlock<N>> blockSet;
+
+    private final Map<N, BasicBlock<N>> blockOf;
+
+    private final Map<N, Integer> indexInBlock;
+
+    private final MultiMap<BasicBlock<N>, Edge<BasicBlock<N>>> inEdges = Maps.newMultiMap();
+
+    private final MultiMap<BasicBlock<N>, Edge<BasicBlock<N>>> outEdges = Maps.newMultiMap();
+
+    /**
+     * Predecessors of the blocks, indexed by block index.
+     */
+    private final List<Set<BasicBlock<N>>> preds = new ArrayList<>();
+
+    /**
+     * Successors of the blocks, indexed by block index.
+     */
+    private final List<Set<BasicBlock<N>>> succs = new ArrayList<>();
+
+    public BlockCFG(CFG<N> cfg) {
+        this(cfg, edge -> false);
+    }
+
+    /**
+     * @param cfg     the underlying CFG
+     * @param isSplit predicate which tells the edges that must not be
+     *                inside any block, e.g., the edges that need edge
+     *                transfer in a data-flow analysis
+     */
+    public BlockCFG(CFG<N> cfg, Predicate<? super Edge<N>> isSplit) {
+        this.cfg = cfg;
+        blockOf = Maps.newMap(cfg.getNumberOfNodes());
+        indexInBlock = Maps.newMap(cfg.getNumberOfNodes());
+        // first, build the blocks starting at the nodes that cannot be
+        // merged into their predecessors; then, handle remaining nodes,
+        // which are on cycles of mergeable edges
+        for (N node : cfg) {
+            if (!isMergeable(node, isSplit)) {
+                buildBlock(node, isSplit);
+            }
+        }
+        for (N node : cfg) {
+            if (!blockOf.containsKey(node)) {
+                buildBlock(node, isSplit);
+            }
+        }
+        // the out edges of the last nodes are exactly the edges between
+        // blocks, as all other edges are inside blocks
+        for (BasicBlock<N> block : blocks) {
+            for (Edge<N> edge : cfg.getOutEdgesOf(block.getLast())) {
+                BasicBlock<N> target = blockOf.get(edge.getTarget());
+                BlockEdge<N> blockEdge = new BlockEdge<>(edge, block, target);
+                outEdges.put(block, blockEdge);
+                inEdges.put(target, blockEdge);
+            }
+        }
+        // the solvers query predecessors and successors in their hot loops,
+        // so they are computed once here
+        for (BasicBlock<N> block : blocks) {
+            Set<BasicBlock<N>> blockPreds = new LinkedHashSet<>();
+            inEdges.get(block).forEach(edge -> blockPreds.add(edge.getSource()));
+            preds.add(Collections.unmodifiableSet(blockPreds));
+            Set<BasicBlock<N>> blockSuccs = new LinkedHashSet<>();
+            outEdges.get(block).forEach(edge -> blockSuccs.add(edge.getTarget()));
+            succs.add(Collections.unmodifiableSet(blockSuccs));
+        }
+        blockSet = Collections.unmodifiableSet(new LinkedHashSet<>(blocks));
+    }
+
+    /**
+     * @return true if given node can be merged into the block of
+     * its predecessor.
+     */
+    private boolean isMergeable(N node, Predicate<? super Edge<N>> isSplit) {
+        if (cfg.isEntry(node) || cfg.isExit(node) ||
+                cfg.getInEdgesOf(node).size() != 1) {
+            return false;
+        }
+        Edge<N> edge = cfg.getInEdgesOf(node).iterator().next();
+        N pred = edge.getSource();
+        return !cfg.isEntry(pred) &&
+                cfg.getOutEdgesOf(pred).size() == 1 &&
+                !isSplit.test(edge);
+    }
+
+    private void buildBlock(N head, Predicate<? super Edge<N>> isSplit) {
+        List<N> nodes = new ArrayList<>();
+        N node = head;
+        while (true) {
+            nodes.add(node);
+            if (cfg.isExit(node) || cfg.getOutEdgesOf(node).size() != 1) {
+                break;
+            }
+            N succ = cfg.getOutEdgesOf(node).iterator().next().getTarget();
+            // succ == head only when the chain is a cycle
+            if (succ == head || blockOf.containsKey(succ) ||
+                    !isMergeable(succ, isSplit)) {
+                break;
+            }
+            node = succ;
+        }
+        BasicBlock<N> block = new BasicBlock<>(blocks.size(), nodes);
+        blocks.add(block);
+        for (int i = 0; i < nodes.size(); ++i) {
+            blockOf.put(nodes.get(i), block);
+            indexInBlock.put(nodes.get(i), i);
+        }
+    }
+
+    /**
+     * @return the underlying CFG.
+     */
+    public CFG<N> getNodeCFG() {
+        return cfg;
+    }
+
+    /**
+     * @return the block that contains given node of the underlying CFG.
+     */
+    public BasicBlock<N> getBlockOf(N node) {
+        return blockOf.get(node);
+    }
+
+    /**
+     * @return the position of given node in its block.
+     */
+    public int getIndexInBlock(N node) {
+        return indexInBlock.get(node);
+    }
+
+    /**
+     * @return the blocks of this CFG, ordered by their indexes.
+     */
+    public List<BasicBlock<N>> getBlocks() {
+        return Collections.unmodifiableList(blocks);
+    }
+
+    @Override
+    public IR getIR() {
+        return cfg.getIR();
+    }
+
+    @Override
+    public JMethod getMethod() {
+        return cfg.getMethod();
+    }
+
+    @Override
+    public BasicBlock<N> getEntry() {
+        return blockOf.get(cfg.getEntry());
+    }
+
+    @Override
+    public BasicBlock<N> getExit() {
+        return blockOf.get(cfg.getExit());
+    }
+
+    @Override
+    public boolean isEntry(BasicBlock<N> block) {
+        return block == getEntry();
+    }
+
+    @Override
+    public boolean isExit(BasicBlock<N> block) {
+        return block == getExit();
+    }
+
+    @Override
+    public Set<Edge<BasicBlock<N>>> getInEdgesOf(BasicBlock<N> block) {
+        return inEdges.get(block);
+    }
+
+    @Override
+    public Set<Edge<BasicBlock<N>>> getOutEdgesOf(BasicBlock<N> block) {
+        return outEdges.get(block);
+    }
+
+    @Override
+    public boolean hasNode(BasicBlock<N> block) {
+        return block.getIndex() < blocks.size() &&
+                blocks.get(block.getIndex()) == block;
+    }
+
+    @Override
+    public boolean hasEdge(BasicBlock<N> source, BasicBlock<N> target) {
+        return getSuccsOf(source).contains(target);
+    }
+
+    @Override
+    public Set<BasicBlock<N>> getPredsOf(BasicBlock<N> block) {
+        return preds.get(block.getIndex());
+    }
+
+    @Override
+    public Set<BasicBlock<N>> getSuccsOf(BasicBlock<N> block) {
+        return succs.get(block.getIndex());
+    }
+
+    @Override
+    public Set<BasicBlock<N>> getNodes() {
+        return blockSet;
+    }
+
+    @Override
+    public int getNumberOfNodes() {
+        return blocks.size();
+    }
+}
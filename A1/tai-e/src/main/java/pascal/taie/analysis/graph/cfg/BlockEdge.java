@@ -0,0 +1,71 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.graph.cfg;
+
+/**
+ * An edge of a {@link BlockCFG}, which corresponds to an edge of
+ * the underlying CFG from the last node of the source block to
+ * the first node of the target block.
+ * <p>
+ * Different edges of the underlying CFG (e.g., multiple switch cases
+ * that jump to the same target) always yield different block edges,
+ * thus block edges are compared by identity.
+ *
+ * @param <N> type of nodes of the underlying CFG
+ */
+public class BlockEdge<N> extends Edge<BasicBlock<N>> {
+
+    private final Edge<N> nodeEdge;
+
+    BlockEdge(Edge<N> nodeEdge, BasicBlock<N> source, BasicBlock<N> target) {
+        super(nodeEdge.getKind(), source, target);
+        this.nodeEdge = nodeEdge;
+    }
+
+    /**
+     * @return the corresponding edge of the underlying CFG.
+     */
+    public Edge<N> getNodeEdge() {
+        return nodeEdge;
+    }
+
+    @Override
+    public boolean isSwitchCase() {
+        return nodeEdge.isSwitchCase();
+    }
+
+    @Override
+    public int getCaseValue() {
+        return nodeEdge.getCaseValue();
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return this == o;
+    }
+
+    @Override
+    public int hashCode() {
+        return System.identityHashCode(this);
+    }
+}
@@ -0,0 +1,311 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.util.collection;
+
+import pascal.taie.util.Indexable;
+
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.function.Function;
+import java.util.function.IntFunction;
+
+/**
+ * Bit set of {@link Indexable} objects. Each element is represented by
+ * the bit at its index, so the index space of the elements should be dense,
+ * e.g., the variables of a method.
+ * <p>
+ * Bulk operations between two bit sets, i.e., {@link #addAll(Collection)},
+ * {@link #retainAll(Collection)}, {@link #removeAll(Collection)} and
+ * {@link #equals(Object)}, are performed word by word.
+ *
+ * @param <E> type of elements
+ */
+public class IndexerBitSet<E extends Indexable> extends AbstractSet<E> {
+
+    private static final int ADDRESS_BITS_PER_WORD = 6;
+
+    private static final int BITS_PER_WORD = 1 << ADDRESS_BITS_PER_WORD;
+
+    /**
+     * Maps indexes back to the elements, which is used to iterate this set.
+     * It is null until the first element is added if this set obtains
+     * its indexer from its elements.
+     */
+    private IntFunction<E> indexer;
+
+    /**
+     * Obtains the indexer from an element, or null if the indexer
+     * is given on construction.
+     */
+    private final Function<? super E, IntFunction<E>> indexerOf;
+
+    private long[] words;
+
+    /**
+     * @param indexer  function that maps indexes to elements
+     * @param capacity expected maximum index (exclusive) of the elements
+     */
+    public IndexerBitSet(IntFunction<E> indexer, int capacity) {
+        this.indexer = indexer;
+        this.indexerOf = null;
+        this.words = new long[wordIndex(capacity - 1) + 1];
+    }
+
+    /**
+     * Constructs an empty bit set whose indexer is obtained from the first
+     * element added to it, for the cases where the index space is unknown
+     * when the set is created, e.g., the variables of an unknown method.
+     *
+     * @param indexerOf function that gives the indexer of the index space
+     *                  that given element belongs to
+     */
+    public IndexerBitSet(Function<? super E, IntFunction<E>> indexerOf) {
+        this.indexer = null;
+        this.indexerOf = indexerOf;
+        this.words = new long[1];
+    }
+
+    /**
+     * Constructs a new bit set with the same elements as given bit set.
+     */
+    public IndexerBitSet(IndexerBitSet<E> set) {
+        this.indexer = set.indexer;
+        this.indexerOf = set.indexerOf;
+        this.words = set.words.clone();
+    }
+
+    private static int wordIndex(int bitIndex) {
+        return bitIndex >> ADDRESS_BITS_PER_WORD;
+    }
+
+    private void ensureCapacity(int wordsRequired) {
+        if (words.length < wordsRequired) {
+            words = Arrays.copyOf(words,
+                    Math.max(2 * words.length, wordsRequired));
+        }
+    }
+
+    @Override
+    public boolean contains(Object o) {
+        if (!(o instanceof Indexable e)) {
+            return false;
+        }
+        int index = e.getIndex();
+        int wordIndex = wordIndex(index);
+        return wordIndex < words.length
+                && (words[wordIndex] & (1L << index)) != 0;
+    }
+
+    @Override
+    public boolean add(E e) {
+        if (indexer == null) {
+            indexer = indexerOf.apply(e);
+        }
+        int index = e.getIndex();
+        int wordIndex = wordIndex(index);
+        ensureCapacity(wordIndex + 1);
+        long oldWord = words[wordIndex];
+        words[wordIndex] = oldWord | (1L << index);
+        return words[wordIndex] != oldWord;
+    }
+
+    @Override
+    public boolean remove(Object o) {
+        if (!(o instanceof Indexable e)) {
+            return false;
+        }
+        int index = e.getIndex();
+        int wordIndex = wordIndex(index);
+        if (wordIndex >= words.length) {
+            return false;
+        }
+        long oldWord = words[wordIndex];
+        words[wordIndex] = oldWord & ~(1L << index);
+        return words[wordIndex] != oldWord;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public boolean addAll(Collection<? extends E> c) {
+        if (!(c instanceof IndexerBitSet<?> other)) {
+            return super.addAll(c);
+        }
+        if (indexer == null) {
+            indexer = (IntFunction<E>) other.indexer;
+        }
+        long[] otherWords = other.words;
+        ensureCapacity(otherWords.length);
+        boolean changed = false;
+        for (int i = 0; i < otherWords.length; ++i) {
+            long oldWord = words[i];
+            words[i] = oldWord | otherWords[i];
+            changed |= words[i] != oldWord;
+        }
+        return changed;
+    }
+
+    @Override
+    public boolean retainAll(Collection<?> c) {
+        if (!(c instanceof IndexerBitSet<?> other)) {
+            return super.retainAll(c);
+        }
+        long[] otherWords = other.words;
+        boolean changed = false;
+        for (int i = 0; i < words.length; ++i) {
+            long oldWord = words[i];
+            words[i] = i < otherWords.length ? oldWord & otherWords[i] : 0;
+            changed |= words[i] != oldWord;
+        }
+        return changed;
+    }
+
+    @Override
+    public boolean removeAll(Collection<?> c) {
+        if (!(c instanceof IndexerBitSet<?> other)) {
+            return super.removeAll(c);
+        }
+        long[] otherWords = other.words;
+        int n = Math.min(words.length, otherWords.length);
+        boolean changed = false;
+        for (int i = 0; i < n; ++i) {
+            long oldWord = words[i];
+            words[i] = oldWord & ~otherWords[i];
+            changed |= words[i] != oldWord;
+        }
+        return changed;
+    }
+
+    @Override
+    public void clear() {
+        Arrays.fill(words, 0);
+    }
+
+    @Override
+    public boolean isEmpty() {
+        for (long word : words) {
+            if (word != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public int size() {
+        int size = 0;
+        for (long word : words) {
+            size += Long.bitCount(word);
+        }
+        return size;
+    }
+
+    /**
+     * @return index of the first set bit that occurs on or after
+     * the given index, or -1 if there is no such bit.
+     */
+    private int nextSetBit(int fromIndex) {
+        int wordIndex = wordIndex(fromIndex);
+        if (wordIndex >= words.length) {
+            return -1;
+        }
+        long word = words[wordIndex] & (-1L << fromIndex);
+        while (true) {
+            if (word != 0) {
+                return wordIndex * BITS_PER_WORD + Long.numberOfTrailingZeros(word);
+            }
+            if (++wordIndex == words.length) {
+                return -1;
+            }
+            word = words[wordIndex];
+        }
+    }
+
+    @Override
+    public Iterator<E> iterator() {
+        return new Iterator<>() {
+
+            private int next = nextSetBit(0);
+
+            private int last = -1;
+
+            @Override
+            public boolean hasNext() {
+                return next >= 0;
+            }
+
+            @Override
+            public E next() {
+                if (next < 0) {
+                    throw new NoSuchElementException();
+                }
+                last = next;
+                next = nextSetBit(next + 1);
+                return indexer.apply(last);
+            }
+
+            @Override
+            public void remove() {
+                if (last < 0) {
+                    throw new IllegalStateException();
+                }
+                words[wordIndex(last)] &= ~(1L << last);
+                last = -1;
+            }
+        };
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof IndexerBitSet<?> other)) {
+            return super.equals(o);
+        }
+        long[] longer = words, shorter = other.words;
+        if (longer.length < shorter.length) {
+            longer = other.words;
+            shorter = words;
+        }
+        for (int i = 0; i < shorter.length; ++i) {
+            if (longer[i] != shorter[i]) {
+                return false;
+            }
+        }
+        for (int i = shorter.length; i < longer.length; ++i) {
+            if (longer[i] != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public int hashCode() {
+        // keep consistent with the hash code of other sets
+        return super.hashCode();
+    }
+}
@@ -0,0 +1,98 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.util.graph;
+
+import pascal.taie.util.collection.Sets;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Computes reverse postorder of the nodes of a graph by depth-first search
+ * from a root node. In the resulting order, every node comes before its
+ * successors, except for the successors along back edges.
+ * <p>
+ * The nodes which are unreachable from the root are placed after all
+ * reachable nodes.
+ *
+ * @param <N> type of nodes
+ */
+public class ReversePostorder<N> {
+
+    private final List<N> order;
+
+    public ReversePostorder(Graph<N> graph, N root) {
+        List<N> postorder = new ArrayList<>(graph.getNumberOfNodes());
+        Set<N> visited = Sets.newSet(graph.getNumberOfNodes());
+        visit(graph, root, visited, postorder);
+        int reachable = postorder.size();
+        for (N node : graph) {
+            if (!visited.contains(node)) {
+                visit(graph, node, visited, postorder);
+            }
+        }
+        // reverse the reachable part and the unreachable part separately,
+        // so that unreachable nodes do not precede the root
+        Collections.reverse(postorder.subList(0, reachable));
+        Collections.reverse(postorder.subList(reachable, postorder.size()));
+        this.order = Collections.unmodifiableList(postorder);
+    }
+
+    /**
+     * Iterative depth-first search, which avoids stack overflow on
+     * large graphs such as CFGs of huge methods.
+     */
+    private static <N> void visit(Graph<N> graph, N root,
+                                  Set<N> visited, List<N> postorder) {
+        Deque<N> nodes = new ArrayDeque<>();
+        Deque<Iterator<N>> succs = new ArrayDeque<>();
+        visited.add(root);
+        nodes.push(root);
+        succs.push(graph.getSuccsOf(root).iterator());
+        while (!nodes.isEmpty()) {
+            Iterator<N> it = succs.peek();
+            if (it.hasNext()) {
+                N succ = it.next();
+                if (visited.add(succ)) {
+                    nodes.push(succ);
+                    succs.push(graph.getSuccsOf(succ).iterator());
+                }
+            } else {
+                postorder.add(nodes.pop());
+                succs.pop();
+            }
+        }
+    }
+
+    /**
+     * @return the nodes of the graph in reverse postorder.
+     */
+    public List<N> get() {
+        return order;
+    }
+}
@@ -0,0 +1,172 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.dataflow.analysis;
+
+import org.junit.Test;
+import pascal.taie.analysis.dataflow.fact.DataflowResult;
+import pascal.taie.analysis.dataflow.fact.SetFact;
+import pascal.taie.analysis.dataflow.solver.Solver;
+import pascal.taie.analysis.graph.cfg.BasicBlock;
+import pascal.taie.analysis.graph.cfg.BlockCFG;
+import pascal.taie.analysis.graph.cfg.CFG;
+import pascal.taie.analysis.graph.cfg.Edge;
+import pascal.taie.analysis.graph.cfg.TestCFG;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Checks the block CFG, and that the block solver computes the same
+ * results as the node-level priority solver on random CFGs.
+ */
+public class BlockSolverTest {
+
+    private static final int ROUNDS = 300;
+
+    @Test
+    public void testBlockCFG() {
+        Random random = new Random(10);
+        for (int round = 0; round < ROUNDS; ++round) {
+            TestCFG<Integer> cfg = TestCFG.random(
+                    3 + random.nextInt(80), random.nextInt(6), random);
+            BlockCFG<Integer> blockCFG = new BlockCFG<>(cfg);
+            Set<Integer> covered = new HashSet<>();
+            for (BasicBlock<Integer> block : blockCFG) {
+                List<Integer> nodes = block.getNodes();
+                for (int i = 0; i < nodes.size(); ++i) {
+                    Integer node = nodes.get(i);
+                    assertTrue("node " + node + " is in two blocks",
+                            covered.add(node));
+                    assertEquals(block, blockCFG.getBlockOf(node));
+                    assertEquals(i, blockCFG.getIndexInBlock(node));
+                    if (i + 1 < nodes.size()) {
+                        assertEquals(Set.of(nodes.get(i + 1)),
+                                cfg.getSuccsOf(node));
+                    }
+                }
+                Set<BasicBlock<Integer>> preds = new HashSet<>();
+                cfg.getPredsOf(block.getFirst()).forEach(pred ->
+                        preds.add(blockCFG.getBlockOf(pred)));
+                assertEquals(preds, blockCFG.getPredsOf(block));
+                Set<BasicBlock<Integer>> succs = new HashSet<>();
+                cfg.getSuccsOf(block.getLast()).forEach(succ ->
+                        succs.add(blockCFG.getBlockOf(succ)));
+                assertEquals(succs, blockCFG.getSuccsOf(block));
+            }
+            assertEquals(cfg.getNumberOfNodes(), covered.size());
+        }
+    }
+
+    @Test
+    public void testGenKillForward() {
+        testBlockSolver(true, true);
+    }
+
+    @Test
+    public void testGenKillBackward() {
+        testBlockSolver(false, true);
+    }
+
+    @Test
+    public void testForward() {
+        testBlockSolver(true, false);
+    }
+
+    @Test
+    public void testBackward() {
+        testBlockSolver(false, false);
+    }
+
+    /**
+     * @param genKill whether the block solver sees the gen/kill form of
+     *                the analysis, or only its node transfer functions.
+     */
+    private static void testBlockSolver(boolean forward, boolean genKill) {
+        Random random = new Random((forward ? 1 : 2) + (genKill ? 10 : 20));
+        for (int round = 0; round < ROUNDS; ++round) {
+            TestCFG<Integer> cfg = TestCFG.random(
+                    3 + random.nextInt(80), random.nextInt(6), random);
+            RandomGenKillAnalysis analysis = new RandomGenKillAnalysis(
+                    cfg.getNumberOfNodes(), forward, random.nextBoolean(), random);
+            DataflowResult<Integer, SetFact<Integer>> expected =
+                    Solver.makeSolver(analysis, "priority").solve(cfg);
+            DataflowResult<Integer, SetFact<Integer>> result = Solver.makeSolver(
+                    genKill ? analysis : new NodeTransferAnalysis(analysis),
+                    "block").solve(cfg);
+            for (Integer node : cfg) {
+                String message = "round " + round + ", node " + node;
+                assertEquals(message, expected.getInFact(node),
+                        result.getInFact(node));
+                assertEquals(message, expected.getOutFact(node),
+                        result.getOutFact(node));
+            }
+        }
+    }
+
+    /**
+     * Hides the gen/kill form of an analysis.
+     */
+    private record NodeTransferAnalysis(RandomGenKillAnalysis analysis)
+            implements DataflowAnalysis<Integer, SetFact<Integer>> {
+
+        @Override
+        public boolean isForward() {
+            return analysis.isForward();
+        }
+
+        @Override
+        public SetFact<Integer> newBoundaryFact(CFG<Integer> cfg) {
+            return analysis.newBoundaryFact(cfg);
+        }
+
+        @Override
+        public SetFact<Integer> newInitialFact() {
+            return analysis.newInitialFact();
+        }
+
+        @Override
+        public void meetInto(SetFact<Integer> fact, SetFact<Integer> target) {
+            analysis.meetInto(fact, target);
+        }
+
+        @Override
+        public boolean transferNode(Integer node, SetFact<Integer> in, SetFact<Integer> out) {
+            return analysis.transferNode(node, in, out);
+        }
+
+        @Override
+        public boolean needTransferEdge(Edge<Integer> edge) {
+            return false;
+        }
+
+        @Override
+        public SetFact<Integer> transferEdge(Edge<Integer> edge, SetFact<Integer> nodeFact) {
+            throw new UnsupportedOperationException();
+        }
+    }
+}
@@ -0,0 +1,78 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.dataflow.analysis;
+
+import org.junit.Test;
+import pascal.taie.analysis.dataflow.fact.DataflowResult;
+import pascal.taie.analysis.dataflow.fact.SetFact;
+import pascal.taie.analysis.dataflow.solver.Solver;
+import pascal.taie.analysis.graph.cfg.TestCFG;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Checks that compact results, which only keep the facts at block
+ * boundaries, answer the same facts as the results they were made from.
+ */
+public class CompactResultTest {
+
+    private static final int ROUNDS = 300;
+
+    @Test
+    public void testForward() {
+        testCompact(true);
+    }
+
+    @Test
+    public void testBackward() {
+        testCompact(false);
+    }
+
+    private static void testCompact(boolean forward) {
+        Random random = new Random(forward ? 9 : 90);
+        for (int round = 0; round < ROUNDS; ++round) {
+            TestCFG<Integer> cfg = TestCFG.random(
+                    3 + random.nextInt(60), random.nextInt(8), random);
+            RandomGenKillAnalysis analysis = new RandomGenKillAnalysis(
+                    cfg.getNumberOfNodes(), forward, random.nextBoolean(), random);
+            Solver<Integer, SetFact<Integer>> solver =
+                    Solver.makeSolver(analysis, "priority");
+            DataflowResult<Integer, SetFact<Integer>> result = solver.solve(cfg);
+            DataflowResult<Integer, SetFact<Integer>> compact =
+                    solver.compact(cfg, result);
+            // query twice, in the reverse order of the nodes, so that
+            // both replayed and cached facts are checked
+            for (int i = 0; i < 2; ++i) {
+                for (int node = cfg.getNumberOfNodes() - 1; node >= 0; --node) {
+                    String message = "round " + round + ", node " + node;
+                    assertEquals(message, result.getInFact(node),
+                            compact.getInFact(node));
+                    assertEquals(message, result.getOutFact(node),
+                            compact.getOutFact(node));
+                }
+            }
+        }
+    }
+}
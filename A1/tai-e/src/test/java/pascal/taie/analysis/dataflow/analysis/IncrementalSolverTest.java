@@ -0,0 +1,213 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.dataflow.analysis;
+
+import org.junit.Test;
+import pascal.taie.analysis.dataflow.fact.DataflowResult;
+import pascal.taie.analysis.dataflow.fact.SetFact;
+import pascal.taie.analysis.dataflow.solver.Solver;
+import pascal.taie.analysis.graph.cfg.CFGBuilder;
+import pascal.taie.analysis.graph.cfg.TestCFG;
+import pascal.taie.config.AnalysisConfig;
+import pascal.taie.ir.DefaultIR;
+import pascal.taie.ir.IR;
+import pascal.taie.ir.exp.Var;
+import pascal.taie.ir.stmt.Copy;
+import pascal.taie.ir.stmt.Nop;
+import pascal.taie.ir.stmt.Stmt;
+import pascal.taie.language.type.PrimitiveType;
+import pascal.taie.util.collection.Sets;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Checks that incremental re-solving gives the same results as solving
+ * from scratch.
+ */
+public class IncrementalSolverTest {
+
+    private static final int ROUNDS = 300;
+
+    private static final int VARS = 5;
+
+    @Test
+    public void testForward() {
+        testResolve(true);
+    }
+
+    @Test
+    public void testBackward() {
+        testResolve(false);
+    }
+
+    /**
+     * Changes the transfer functions of random nodes of random CFGs.
+     */
+    private static void testResolve(boolean forward) {
+        Random random = new Random(forward ? 11 : 110);
+        for (int round = 0; round < ROUNDS; ++round) {
+            TestCFG<Integer> cfg = TestCFG.random(
+                    3 + random.nextInt(80), random.nextInt(10), random);
+            RandomGenKillAnalysis analysis = new RandomGenKillAnalysis(
+                    cfg.getNumberOfNodes(), forward, random.nextBoolean(), random);
+            Solver<Integer, SetFact<Integer>> solver =
+                    Solver.makeSolver(analysis, "priority");
+            DataflowResult<Integer, SetFact<Integer>> previous = solver.solve(cfg);
+            Set<Integer> changed = Sets.newSet();
+            for (int i = 1 + random.nextInt(3); i > 0; --i) {
+                int node = 1 + random.nextInt(cfg.getNumberOfNodes() - 2);
+                analysis.mutate(node, random);
+                changed.add(node);
+            }
+            DataflowResult<Integer, SetFact<Integer>> result =
+                    solver.resolve(cfg, previous, changed);
+            DataflowResult<Integer, SetFact<Integer>> expected = solver.solve(cfg);
+            for (Integer node : cfg) {
+                String message = "round " + round + ", node " + node;
+                if (!node.equals(forward ? cfg.getEntry() : cfg.getExit())) {
+                    assertEquals(message, expected.getInFact(node),
+                            result.getInFact(node));
+                }
+                assertEquals(message, expected.getOutFact(node),
+                        result.getOutFact(node));
+            }
+        }
+    }
+
+    /**
+     * Edits random IRs by replacing and inserting statements, and
+     * re-analyzes the new IRs with the results of the old ones. The new
+     * statements are not given as changed, and they may take the indexes
+     * of old statements.
+     */
+    @Test
+    public void testReanalyzeEditedIR() {
+        LiveVariableAnalysis analysis = new LiveVariableAnalysis(
+                new AnalysisConfig(LiveVariableAnalysis.ID, "solver", "priority"));
+        List<Var> vars = new ArrayList<>();
+        for (int i = 0; i < VARS; ++i) {
+            vars.add(new Var(null, "v" + i, PrimitiveType.INT, i));
+        }
+        Random random = new Random(12);
+        for (int round = 0; round < ROUNDS; ++round) {
+            List<Stmt> stmts = new ArrayList<>();
+            for (int i = 1 + random.nextInt(40); i > 0; --i) {
+                stmts.add(newCopy(vars, random));
+            }
+            List<int[]> jumps = new ArrayList<>();
+            for (int i = random.nextInt(6); i > 0; --i) {
+                jumps.add(new int[]{
+                        random.nextInt(stmts.size()), random.nextInt(stmts.size())});
+            }
+            TestCFG<Stmt> cfg = buildCFG(vars, stmts, jumps);
+            DataflowResult<Stmt, SetFact<Var>> previous = analysis.analyze(cfg.getIR());
+            // edit the statements
+            List<Stmt> newStmts = new ArrayList<>();
+            List<Integer> positions = new ArrayList<>();
+            for (int i = 0; i < stmts.size(); ++i) {
+                int action = random.nextInt(5);
+                positions.add(newStmts.size());
+                newStmts.add(action == 0 ? newCopy(vars, random) : stmts.get(i));
+                if (action == 1) {
+                    newStmts.add(newCopy(vars, random));
+                }
+            }
+            List<int[]> newJumps = new ArrayList<>();
+            jumps.forEach(jump -> newJumps.add(new int[]{
+                    positions.get(jump[0]), positions.get(jump[1])}));
+            TestCFG<Stmt> newCFG = buildCFG(vars, newStmts, newJumps);
+            // the kept statements whose edges changed are changed;
+            // the new statements are left for the solver to find
+            Map<Stmt, Stmt> boundaries = Map.of(
+                    cfg.getEntry(), newCFG.getEntry(),
+                    cfg.getExit(), newCFG.getExit());
+            Set<Stmt> changed = Sets.newSet();
+            for (Stmt stmt : stmts) {
+                if (newCFG.hasNode(stmt) && (!newCFG.getPredsOf(stmt).equals(
+                        map(cfg.getPredsOf(stmt), boundaries)) ||
+                        !newCFG.getSuccsOf(stmt).equals(
+                                map(cfg.getSuccsOf(stmt), boundaries)))) {
+                    changed.add(stmt);
+                }
+            }
+            DataflowResult<Stmt, SetFact<Var>> result =
+                    analysis.reanalyze(newCFG.getIR(), previous, changed);
+            DataflowResult<Stmt, SetFact<Var>> expected =
+                    analysis.analyze(newCFG.getIR());
+            for (Stmt stmt : newCFG) {
+                String message = "round " + round + ", " + stmt;
+                assertEquals(message, expected.getInFact(stmt),
+                        result.getInFact(stmt));
+                assertEquals(message, expected.getOutFact(stmt),
+                        result.getOutFact(stmt));
+            }
+        }
+    }
+
+    private static Copy newCopy(List<Var> vars, Random random) {
+        return new Copy(vars.get(random.nextInt(VARS)),
+                vars.get(random.nextInt(VARS)));
+    }
+
+    /**
+     * Builds an IR and its CFG, where the statements are executed in
+     * order, and jumps gives extra edges between the statements.
+     * Like a real IR, the statements are indexed from 0, and the entry
+     * and exit nodes take the next two indexes.
+     */
+    private static TestCFG<Stmt> buildCFG(
+            List<Var> vars, List<Stmt> stmts, List<int[]> jumps) {
+        for (int i = 0; i < stmts.size(); ++i) {
+            stmts.get(i).setIndex(i);
+        }
+        IR ir = new DefaultIR(null, null, List.of(), Set.of(),
+                vars, stmts, List.of());
+        Nop entry = new Nop();
+        entry.setIndex(stmts.size());
+        Nop exit = new Nop();
+        exit.setIndex(stmts.size() + 1);
+        List<Stmt> nodes = new ArrayList<>();
+        nodes.add(entry);
+        nodes.addAll(stmts);
+        nodes.add(exit);
+        TestCFG<Stmt> cfg = new TestCFG<>(ir, nodes);
+        for (int i = 0; i + 1 < nodes.size(); ++i) {
+            cfg.addEdge(nodes.get(i), nodes.get(i + 1));
+        }
+        jumps.forEach(jump -> cfg.addEdge(stmts.get(jump[0]), stmts.get(jump[1])));
+        ir.storeResult(CFGBuilder.ID, cfg);
+        return cfg;
+    }
+
+    private static Set<Stmt> map(Set<Stmt> stmts, Map<Stmt, Stmt> boundaries) {
+        Set<Stmt> result = Sets.newSet();
+        stmts.forEach(stmt -> result.add(boundaries.getOrDefault(stmt, stmt)));
+        return result;
+    }
+}
@@ -0,0 +1,144 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.dataflow.analysis;
+
+import pascal.taie.analysis.dataflow.fact.SetFact;
+import pascal.taie.analysis.graph.cfg.CFG;
+import pascal.taie.analysis.graph.cfg.Edge;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * A gen/kill analysis over integer CFG nodes, whose gen and kill sets
+ * are chosen randomly, for testing the solvers. The elements of the facts
+ * are integers in [0, number of nodes).
+ */
+class RandomGenKillAnalysis implements GenKillAnalysis<Integer, Integer> {
+
+    private final int size;
+
+    private final boolean forward;
+
+    /**
+     * Whether this is a must analysis, which meets facts by intersection.
+     */
+    private final boolean must;
+
+    private final List<List<Integer>> gens = new ArrayList<>();
+
+    private final List<List<Integer>> kills = new ArrayList<>();
+
+    RandomGenKillAnalysis(int size, boolean forward, boolean must, Random random) {
+        this.size = size;
+        this.forward = forward;
+        this.must = must;
+        for (int node = 0; node < size; ++node) {
+            gens.add(List.of());
+            kills.add(List.of());
+            mutate(node, random);
+        }
+    }
+
+    /**
+     * Randomly changes the gen and kill sets of given node.
+     */
+    void mutate(int node, Random random) {
+        gens.set(node, randomElements(random));
+        kills.set(node, randomElements(random));
+    }
+
+    private List<Integer> randomElements(Random random) {
+        List<Integer> elements = new ArrayList<>();
+        for (int i = random.nextInt(3); i > 0; --i) {
+            elements.add(random.nextInt(size));
+        }
+        return elements;
+    }
+
+    @Override
+    public boolean isForward() {
+        return forward;
+    }
+
+    @Override
+    public SetFact<Integer> newBoundaryFact(CFG<Integer> cfg) {
+        return new SetFact<>();
+    }
+
+    @Override
+    public SetFact<Integer> newInitialFact() {
+        SetFact<Integer> fact = new SetFact<>();
+        if (must) {
+            for (int i = 0; i < size; ++i) {
+                fact.add(i);
+            }
+        }
+        return fact;
+    }
+
+    @Override
+    public void meetInto(SetFact<Integer> fact, SetFact<Integer> target) {
+        if (must) {
+            target.intersect(fact);
+        } else {
+            target.union(fact);
+        }
+    }
+
+    @Override
+    public boolean transferNode(Integer node, SetFact<Integer> in, SetFact<Integer> out) {
+        SetFact<Integer> source = forward ? in : out;
+        SetFact<Integer> target = forward ? out : in;
+        SetFact<Integer> result = source.copy();
+        getKill(node).forEach(result::remove);
+        getGen(node).forEach(result::add);
+        if (!result.equals(target)) {
+            target.set(result);
+            return true;
+        }
+        return false;
+    }
+
+    @Override
+    public boolean needTransferEdge(Edge<Integer> edge) {
+        return false;
+    }
+
+    @Override
+    public SetFact<Integer> transferEdge(Edge<Integer> edge, SetFact<Integer> nodeFact) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public Collection<Integer> getGen(Integer node) {
+        return gens.get(node);
+    }
+
+    @Override
+    public Collection<Integer> getKill(Integer node) {
+        return kills.get(node);
+    }
+}
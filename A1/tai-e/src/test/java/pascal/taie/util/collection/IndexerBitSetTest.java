@@ -0,0 +1,143 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.util.collection;
+
+import org.junit.Test;
+import pascal.taie.util.Indexable;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Checks {@link IndexerBitSet} against {@link HashSet} with random operations.
+ */
+public class IndexerBitSetTest {
+
+    private static final int ROUNDS = 300;
+
+    private static final int OPERATIONS = 200;
+
+    private record Item(int index) implements Indexable {
+
+        @Override
+        public int getIndex() {
+            return index;
+        }
+    }
+
+    @Test
+    public void testRandomOperations() {
+        Random random = new Random(1);
+        for (int round = 0; round < ROUNDS; ++round) {
+            // capacities smaller than the index space exercise growing
+            int size = 1 + random.nextInt(300);
+            List<Item> items = new ArrayList<>();
+            for (int i = 0; i < size; ++i) {
+                items.add(new Item(i));
+            }
+            int capacity = 1 + random.nextInt(size);
+            IndexerBitSet<Item> bits = newBitSet(items, capacity, random);
+            IndexerBitSet<Item> other = newBitSet(items, capacity, random);
+            Set<Item> expected = new HashSet<>();
+            Set<Item> expectedOther = new HashSet<>();
+            for (int op = 0; op < OPERATIONS; ++op) {
+                String message = "round " + round + ", operation " + op;
+                Item item = items.get(random.nextInt(size));
+                switch (random.nextInt(9)) {
+                    case 0, 1 -> assertEquals(message,
+                            expected.add(item), bits.add(item));
+                    case 2 -> assertEquals(message,
+                            expected.remove(item), bits.remove(item));
+                    case 3 -> assertEquals(message,
+                            expectedOther.add(item), other.add(item));
+                    case 4 -> assertEquals(message,
+                            expected.addAll(expectedOther), bits.addAll(other));
+                    case 5 -> assertEquals(message,
+                            expected.retainAll(expectedOther), bits.retainAll(other));
+                    case 6 -> assertEquals(message,
+                            expected.removeAll(expectedOther), bits.removeAll(other));
+                    case 7 -> {
+                        // bulk operations with sets of other kinds
+                        Set<Item> hashSet = new HashSet<>(expectedOther);
+                        assertEquals(message,
+                                expected.addAll(hashSet), bits.addAll(hashSet));
+                    }
+                    case 8 -> {
+                        IndexerBitSet<Item> copy = new IndexerBitSet<>(bits);
+                        copy.add(item);
+                        assertEquals(message, expected.contains(item),
+                                bits.contains(item));
+                        assertEquals(message, expected.equals(expectedOther),
+                                bits.equals(other));
+                    }
+                    default -> throw new AssertionError();
+                }
+                assertEquals(message, expected.contains(item), bits.contains(item));
+                assertEquals(message, expected.size(), bits.size());
+                assertEquals(message, expected.isEmpty(), bits.isEmpty());
+                assertEquals(message, expected, bits);
+                assertEquals(message, expected.hashCode(), bits.hashCode());
+            }
+            assertEquals(expectedOther, other);
+            // removal via iterator
+            Iterator<Item> iterator = bits.iterator();
+            while (iterator.hasNext()) {
+                Item item = iterator.next();
+                if (random.nextBoolean()) {
+                    iterator.remove();
+                    expected.remove(item);
+                }
+            }
+            assertEquals(expected, bits);
+            bits.clear();
+            assertTrue(bits.isEmpty());
+        }
+    }
+
+    @Test
+    public void testAdoptedIndexer() {
+        List<Item> items = List.of(new Item(0), new Item(1), new Item(100));
+        IndexerBitSet<Item> bits = new IndexerBitSet<>(item -> Item::new);
+        assertTrue(bits.isEmpty());
+        assertTrue(bits.add(items.get(0)));
+        assertTrue(bits.add(items.get(2)));
+        assertEquals(Set.of(items.get(0), items.get(2)), bits);
+        IndexerBitSet<Item> other = new IndexerBitSet<>(item -> Item::new);
+        assertTrue(other.addAll(bits));
+        assertEquals(Set.of(items.get(0), items.get(2)), other);
+    }
+
+    private static IndexerBitSet<Item> newBitSet(
+            List<Item> items, int capacity, Random random) {
+        return random.nextBoolean()
+                ? new IndexerBitSet<>(items::get, capacity)
+                : new IndexerBitSet<>(item -> items::get);
+    }
+}
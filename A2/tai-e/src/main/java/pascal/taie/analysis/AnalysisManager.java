@@ -0,0 +1,192 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import pascal.taie.World;
+import pascal.taie.config.AnalysisConfig;
+import pascal.taie.config.ConfigException;
+import pascal.taie.ir.IR;
+import pascal.taie.language.classes.JClass;
+import pascal.taie.language.classes.JMethod;
+import pascal.taie.util.AnalysisException;
+import pascal.taie.util.Timer;
+
+import java.lang.reflect.InvocationTargetException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * Creates and executes analyses based on given analysis configurations.
+ * <p>
+ * Method analyses accept an optional {@code threads} option (set in
+ * the analysis plan) that controls how many worker threads are used to
+ * analyze the methods in scope: {@code 1} (the default) runs them
+ * sequentially in the calling thread, a positive number {@code n} runs
+ * them on a fork-join pool of {@code n} threads, and {@code 0} uses one
+ * thread per available processor. In every mode, the results
+ * are stored to the IRs in the order of the method scope, so the
+ * stored results do not depend on thread scheduling.
+ */
+public class AnalysisManager {
+
+    private static final Logger logger = LogManager.getLogger(AnalysisManager.class);
+
+    private List<JClass> classScope;
+
+    private List<JMethod> methodScope;
+
+    public void execute(List<AnalysisConfig> analysisConfigs) {
+        analysisConfigs.forEach(config ->
+                Timer.runAndCount(() -> runAnalysis(config), config.getId()));
+    }
+
+    private void runAnalysis(AnalysisConfig config) {
+        Analysis analysis;
+        // Create analysis instance
+        try {
+            Class<?> clazz = Class.forName(config.getAnalysisClass());
+            Object obj = clazz.getConstructor(AnalysisConfig.class)
+                    .newInstance(config);
+            if (!(obj instanceof Analysis)) {
+                logger.warn(clazz + " is not an analysis");
+                return;
+            }
+            analysis = (Analysis) obj;
+        } catch (ClassNotFoundException | NoSuchMethodException |
+                 InstantiationException | IllegalAccessException |
+                 InvocationTargetException e) {
+            throw new AnalysisException("Failed to initialize " +
+                    config.getAnalysisClass(), e);
+        }
+        // Run the analysis
+        if (analysis instanceof ProgramAnalysis) {
+            runProgramAnalysis((ProgramAnalysis) analysis);
+        } else if (analysis instanceof ClassAnalysis) {
+            runClassAnalysis((ClassAnalysis) analysis);
+        } else if (analysis instanceof MethodAnalysis) {
+            runMethodAnalysis((MethodAnalysis) analysis);
+        } else {
+            logger.warn(analysis.getClass() + " is not an analysis");
+        }
+    }
+
+    private void runProgramAnalysis(ProgramAnalysis analysis) {
+        Object result = analysis.analyze();
+        if (result != null) {
+            World.get().storeResult(analysis.getId(), result);
+        }
+    }
+
+    private void runClassAnalysis(ClassAnalysis analysis) {
+        getClassScope().parallelStream().forEach(c -> {
+            Object result = analysis.analyze(c);
+            if (result != null) {
+                c.storeResult(analysis.getId(), result);
+            }
+        });
+    }
+
+    private List<JClass> getClassScope() {
+        if (classScope == null) {
+            String scope = World.get().getOptions().getScope();
+            classScope = switch (scope) {
+                case "app" -> World.get()
+                        .getClassHierarchy()
+                        .applicationClasses()
+                        .toList();
+                case "all" -> World.get()
+                        .getClassHierarchy()
+                        .allClasses()
+                        .toList();
+                // call graph is not available in this assignment
+                case "reachable" -> throw new ConfigException(
+                        "Scope 'reachable' requires call graph analysis");
+                default -> throw new ConfigException(
+                        "Unexpected scope option: " + scope);
+            };
+            logger.info("{} classes in scope ({}) of class analyses",
+                    classScope.size(), scope);
+        }
+        return classScope;
+    }
+
+    private void runMethodAnalysis(MethodAnalysis analysis) {
+        List<JMethod> methods = getMethodScope();
+        int threads = Analyses.getThreads(analysis);
+        if (threads == 1 || methods.size() <= 1) {
+            methods.forEach(m -> storeResult(analysis, m.getIR(),
+                    analysis.analyze(m.getIR())));
+            return;
+        }
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        try {
+            List<ForkJoinTask<?>> tasks = new ArrayList<>(methods.size());
+            for (JMethod method : methods) {
+                IR ir = method.getIR();
+                tasks.add(pool.submit(() -> analysis.analyze(ir)));
+            }
+            // join and store results in scope order, so that the results
+            // are stored deterministically regardless of scheduling
+            for (int i = 0; i < methods.size(); ++i) {
+                storeResult(analysis, methods.get(i).getIR(),
+                        tasks.get(i).join());
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    private static void storeResult(
+            MethodAnalysis analysis, IR ir, Object result) {
+        if (result != null) {
+            ir.storeResult(analysis.getId(), result);
+        }
+    }
+
+    private List<JMethod> getMethodScope() {
+        if (methodScope == null) {
+            String scope = World.get().getOptions().getScope();
+            methodScope = switch (scope) {
+                case "app", "all" -> getClassScope()
+                        .stream()
+                        .map(JClass::getDeclaredMethods)
+                        .flatMap(Collection::stream)
+                        .filter(m -> !m.isAbstract() && !m.isNative())
+                        .toList();
+                // call graph is not available in this assignment
+                case "reachable" -> throw new ConfigException(
+                        "Scope 'reachable' requires call graph analysis");
+                default -> throw new ConfigException(
+                        "Unexpected scope option: " + scope);
+            };
+            logger.info("{} methods in scope ({}) of method analyses",
+                    methodScope.size(), scope);
+        }
+        return methodScope;
+    }
+}
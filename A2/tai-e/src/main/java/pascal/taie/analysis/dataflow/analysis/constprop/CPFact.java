@@ -24,9 +24,19 @@ package pascal.taie.analysis.dataflow.analysis.constprop;
 
 import pascal.taie.analysis.dataflow.fact.MapFact;
 import pascal.taie.ir.exp.Var;
+import pascal.taie.language.classes.JMethod;
+import pascal.taie.util.AnalysisException;
+import pascal.taie.util.collection.Sets;
 
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.Comparator;
 import java.util.Map;
+import java.util.Set;
+import java.util.function.BiConsumer;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
 
 /**
  * Represents data facts of constant propagation, which maps variables
@@ -37,15 +47,163 @@ import java.util.Map;
  * it represents that the lattice value of the variable is UNDEF;
  * moreover, if we set the lattice value of a variable to UNDEF,
  * it effectively removes the variable from the CPFact.
+ * <p>
+ * The mappings are stored in a primitive array indexed by
+ * {@link Var#getIndex()}, and each lattice value is packed into a long:
+ * the upper 32 bits hold the kind (0 for UNDEF, so that absent variables
+ * are UNDEF) and the lower 32 bits hold the constant. Hence, all variables
+ * in a fact must belong to the same method, which holds for both intra-
+ * and inter-procedural constant propagation as each fact describes the
+ * variables of the method containing the node.
  */
 public class CPFact extends MapFact<Var, Value> {
 
+    private static final long UNDEF = 0L;
+
+    private static final long CONSTANT = 1L << 32;
+
+    private static final long NAC = 2L << 32;
+
+    private static final long KIND_MASK = 0xffffffffL << 32;
+
+    private static final long[] EMPTY = new long[0];
+
+    private static final Var[] EMPTY_VARS = new Var[0];
+
+    /**
+     * The method containing the variables in this fact, which is used to
+     * reject variables of other methods and to bound the growth of
+     * {@link #values}. It is null until a variable of some method
+     * is added to this fact.
+     */
+    private JMethod method;
+
+    private long[] values;
+
+    /**
+     * The variables whose values have been set in this fact, indexed
+     * like {@link #values}, which is used to map indexes back to variables.
+     * We keep them here instead of looking them up in the IR of
+     * {@link #method}, as variables may not belong to any method.
+     */
+    private Var[] vars;
+
     public CPFact() {
-        this(Collections.emptyMap());
+        super(Collections::emptyMap);
+        this.values = EMPTY;
+        this.vars = EMPTY_VARS;
+    }
+
+    private CPFact(CPFact fact) {
+        super(Collections::emptyMap);
+        this.method = fact.method;
+        this.values = fact.values.clone();
+        this.vars = fact.vars.clone();
+    }
+
+    private static long encode(Value value) {
+        if (value.isConstant()) {
+            return CONSTANT | (value.getConstant() & 0xffffffffL);
+        } else if (value.isNAC()) {
+            return NAC;
+        } else {
+            return UNDEF;
+        }
+    }
+
+    private static Value decode(long value) {
+        long kind = value & KIND_MASK;
+        if (kind == CONSTANT) {
+            return Value.makeConstant((int) value);
+        } else if (kind == NAC) {
+            return Value.getNAC();
+        } else {
+            return Value.getUndef();
+        }
+    }
+
+    /**
+     * Meets two packed values.
+     */
+    private static long meet(long v1, long v2) {
+        if (v1 == UNDEF || v1 == v2) {
+            return v2;
+        } else if (v2 == UNDEF) {
+            return v1;
+        } else {
+            // (c1, c2) with c1 != c2, or any value with NAC
+            return NAC;
+        }
+    }
+
+    private long getPacked(int index) {
+        return index < values.length ? values[index] : UNDEF;
+    }
+
+    private boolean setPacked(Var var, long value) {
+        int index = var.getIndex();
+        if (index >= values.length) {
+            if (value == UNDEF) {
+                return false;
+            }
+            adoptMethod(var.getMethod());
+            values = Arrays.copyOf(values, newLength(index));
+        } else if (value != UNDEF) {
+            adoptMethod(var.getMethod());
+        }
+        if (value != UNDEF) {
+            setVar(index, var);
+        }
+        long old = values[index];
+        values[index] = value;
+        return old != value;
+    }
+
+    /**
+     * @return new length of {@link #values} to hold given index, which
+     * grows geometrically but does not exceed the number of variables.
+     */
+    private int newLength(int index) {
+        int length = 2 * values.length;
+        if (method != null) {
+            length = Math.min(length, method.getIR().getVars().size());
+        }
+        return Math.max(index + 1, length);
+    }
+
+    private void adoptMethod(JMethod m) {
+        if (method == null) {
+            method = m;
+        } else if (method != m && m != null) {
+            throw new AnalysisException("CPFact of " + method +
+                    " cannot hold variables of " + m);
+        }
+    }
+
+    private void setVar(int index, Var var) {
+        if (index >= vars.length) {
+            vars = Arrays.copyOf(vars, values.length);
+        }
+        vars[index] = var;
+    }
+
+    /**
+     * Copies the variables of given fact whose values are defined,
+     * so that this fact can map their indexes back to them.
+     */
+    private void copyVars(CPFact other) {
+        if (other.vars.length > vars.length) {
+            vars = Arrays.copyOf(vars, Math.max(values.length, other.vars.length));
+        }
+        for (int i = 0; i < other.vars.length; ++i) {
+            if (other.vars[i] != null) {
+                vars[i] = other.vars[i];
+            }
+        }
     }
 
-    private CPFact(Map<Var, Value> map) {
-        super(map);
+    private Var getVar(int index) {
+        return vars[index];
     }
 
     /**
@@ -54,23 +212,157 @@ public class CPFact extends MapFact<Var, Value> {
      */
     @Override
     public Value get(Var key) {
-        return map.getOrDefault(key, Value.getUndef());
+        return decode(getPacked(key.getIndex()));
     }
 
     @Override
     public boolean update(Var key, Value value) {
-        if (value.isUndef()) {
-            // if the client code sets variable key to UNDEF,
-            // then we remove the variable from the CPFact
-            // as we use absence to represent UNDEF.
-            return remove(key) != null;
-        } else {
-            return super.update(key, value);
+        // if the client code sets variable key to UNDEF,
+        // then the variable is removed from the CPFact
+        // as we use absence to represent UNDEF.
+        return setPacked(key, encode(value));
+    }
+
+    @Override
+    public Value remove(Var key) {
+        long old = getPacked(key.getIndex());
+        setPacked(key, UNDEF);
+        return old == UNDEF ? null : decode(old);
+    }
+
+    /**
+     * Meets other fact into this fact, variable by variable.
+     *
+     * @return true if this fact changed as a result of the call, otherwise false.
+     */
+    public boolean meet(CPFact other) {
+        long[] otherValues = other.values;
+        if (otherValues.length > values.length) {
+            values = Arrays.copyOf(values, otherValues.length);
+        }
+        if (other.method != null) {
+            adoptMethod(other.method);
+        }
+        copyVars(other);
+        boolean changed = false;
+        for (int i = 0; i < otherValues.length; ++i) {
+            long old = values[i];
+            values[i] = meet(old, otherValues[i]);
+            changed |= values[i] != old;
+        }
+        return changed;
+    }
+
+    @Override
+    public boolean copyFrom(MapFact<Var, Value> fact) {
+        if (!(fact instanceof CPFact other)) {
+            boolean changed = false;
+            for (Var var : fact.keySet()) {
+                changed |= update(var, fact.get(var));
+            }
+            return changed;
+        }
+        long[] otherValues = other.values;
+        if (otherValues.length > values.length) {
+            values = Arrays.copyOf(values, otherValues.length);
+        }
+        if (other.method != null) {
+            adoptMethod(other.method);
         }
+        copyVars(other);
+        boolean changed = false;
+        for (int i = 0; i < otherValues.length; ++i) {
+            if (otherValues[i] != UNDEF && otherValues[i] != values[i]) {
+                values[i] = otherValues[i];
+                changed = true;
+            }
+        }
+        return changed;
     }
 
     @Override
     public CPFact copy() {
-        return new CPFact(this.map);
+        return new CPFact(this);
+    }
+
+    @Override
+    public void clear() {
+        Arrays.fill(values, UNDEF);
+    }
+
+    private IntStream indexes() {
+        return IntStream.range(0, values.length)
+                .filter(i -> values[i] != UNDEF);
+    }
+
+    /**
+     * @return a {@link Set} of the variables contained in this fact.
+     * Unlike {@link MapFact#keySet()}, the returned set is a snapshot
+     * which is not backed by this fact.
+     */
+    @Override
+    public Set<Var> keySet() {
+        Set<Var> keys = Sets.newHybridSet();
+        indexes().forEach(i -> keys.add(getVar(i)));
+        return keys;
+    }
+
+    @Override
+    public Stream<Map.Entry<Var, Value>> entries() {
+        return indexes().mapToObj(i -> Map.entry(getVar(i), decode(values[i])));
+    }
+
+    @Override
+    public void forEach(BiConsumer<Var, Value> action) {
+        for (int i = 0; i < values.length; ++i) {
+            if (values[i] != UNDEF) {
+                action.accept(getVar(i), decode(values[i]));
+            }
+        }
+    }
+
+    /**
+     * @return the length of {@link #values} without trailing UNDEFs.
+     */
+    private int effectiveLength() {
+        int length = values.length;
+        while (length > 0 && values[length - 1] == UNDEF) {
+            --length;
+        }
+        return length;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        CPFact that = (CPFact) o;
+        int length = effectiveLength();
+        return length == that.effectiveLength() &&
+                Arrays.equals(values, 0, length, that.values, 0, length);
+    }
+
+    @Override
+    public int hashCode() {
+        int result = 1;
+        for (int i = 0, length = effectiveLength(); i < length; ++i) {
+            result = 31 * result + Long.hashCode(values[i]);
+        }
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        // Sort key-value pairs by key's string representation, so that the
+        // fact representation is stable across executions. This is useful
+        // for comparing expected results and the ones given by the analysis.
+        return "{" + entries()
+                .sorted(Comparator.comparing(e -> e.getKey().toString()))
+                .map(e -> e.getKey() + "=" + e.getValue())
+                .collect(Collectors.joining(", ")) + "}";
     }
 }
@@ -0,0 +1,121 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.dataflow.analysis.constprop;
+
+import pascal.taie.analysis.dataflow.fact.DataflowResult;
+import pascal.taie.analysis.graph.cfg.CFG;
+import pascal.taie.analysis.graph.cfg.Edge;
+import pascal.taie.ir.exp.Var;
+import pascal.taie.ir.stmt.Stmt;
+import pascal.taie.util.collection.SetQueue;
+
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+
+/**
+ * Result of {@link SparseConstantPropagation}. The solver only computes
+ * the values of definitions, and this result materializes the in/out facts
+ * of all statements when any fact is queried for the first time, by
+ * propagating the definition values along executable CFG edges
+ * (no expression is evaluated again).
+ * <p>
+ * Statements which are unreachable along executable edges have empty facts.
+ */
+class SparseCPResult extends DataflowResult<Stmt, CPFact> {
+
+    private final SparseConstantPropagation cp;
+
+    private final CFG<Stmt> cfg;
+
+    private final Map<Stmt, Value> defValues;
+
+    private final Set<Stmt> executableNodes;
+
+    private final Set<Edge<Stmt>> executableEdges;
+
+    private boolean materialized = false;
+
+    SparseCPResult(SparseConstantPropagation cp, CFG<Stmt> cfg,
+                   Map<Stmt, Value> defValues,
+                   Set<Stmt> executableNodes,
+                   Set<Edge<Stmt>> executableEdges) {
+        this.cp = cp;
+        this.cfg = cfg;
+        this.defValues = defValues;
+        this.executableNodes = executableNodes;
+        this.executableEdges = executableEdges;
+    }
+
+    @Override
+    public CPFact getInFact(Stmt stmt) {
+        materialize();
+        return super.getInFact(stmt);
+    }
+
+    @Override
+    public CPFact getOutFact(Stmt stmt) {
+        materialize();
+        return super.getOutFact(stmt);
+    }
+
+    private synchronized void materialize() {
+        if (materialized) {
+            return;
+        }
+        materialized = true;
+        for (Stmt stmt : cfg) {
+            setInFact(stmt, new CPFact());
+            setOutFact(stmt, new CPFact());
+        }
+        setOutFact(cfg.getEntry(), cp.newBoundaryFact(cfg));
+        Queue<Stmt> workList = new SetQueue<>();
+        for (Stmt stmt : cfg) {
+            if (!cfg.isEntry(stmt) && executableNodes.contains(stmt)) {
+                workList.add(stmt);
+            }
+        }
+        while (!workList.isEmpty()) {
+            Stmt stmt = workList.poll();
+            CPFact in = super.getInFact(stmt);
+            for (Edge<Stmt> edge : cfg.getInEdgesOf(stmt)) {
+                if (executableEdges.contains(edge)) {
+                    cp.meetInto(super.getOutFact(edge.getSource()), in);
+                }
+            }
+            CPFact out = in.copy();
+            Value value = defValues.get(stmt);
+            if (value != null) {
+                out.update((Var) stmt.getDef().get(), value);
+            }
+            if (!out.equals(super.getOutFact(stmt))) {
+                setOutFact(stmt, out);
+                for (Edge<Stmt> edge : cfg.getOutEdgesOf(stmt)) {
+                    if (executableEdges.contains(edge)) {
+                        workList.add(edge.getTarget());
+                    }
+                }
+            }
+        }
+    }
+}
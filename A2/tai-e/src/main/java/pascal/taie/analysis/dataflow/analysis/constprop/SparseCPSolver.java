@@ -0,0 +1,361 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.dataflow.analysis.constprop;
+
+import pascal.taie.analysis.graph.cfg.CFG;
+import pascal.taie.analysis.graph.cfg.Edge;
+import pascal.taie.ir.exp.RValue;
+import pascal.taie.ir.exp.Var;
+import pascal.taie.ir.stmt.DefinitionStmt;
+import pascal.taie.ir.stmt.If;
+import pascal.taie.ir.stmt.Stmt;
+import pascal.taie.ir.stmt.SwitchStmt;
+import pascal.taie.util.collection.Maps;
+import pascal.taie.util.collection.MultiMap;
+import pascal.taie.util.collection.Sets;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+
+/**
+ * Solver of {@link SparseConstantPropagation} for a single method.
+ * <p>
+ * Def-use chains are built from {@link Stmt#getDef()} and
+ * {@link Stmt#getUses()}. A variable with a single definition which is not
+ * a parameter reaches all its uses directly (the bytecode verifier ensures
+ * that the definition dominates the uses); the reaching definitions of
+ * other variables are computed once for the whole CFG by a bit-vector
+ * pass, and then looked up at each use. The entry node acts as
+ * a definition of these variables, which defines the parameters.
+ * <p>
+ * Reaching definitions are computed over the whole CFG, and a definition
+ * contributes to the value at a use once the definition is executable,
+ * even if it reaches the use only along non-executable edges. This is
+ * conservative, and avoids recomputing def-use chains during solving.
+ */
+class SparseCPSolver {
+
+    private final SparseConstantPropagation cp;
+
+    private final CFG<Stmt> cfg;
+
+    private final Set<Var> params;
+
+    /**
+     * Definitions of each variable which can hold integer value.
+     */
+    private final MultiMap<Var, Stmt> defs = Maps.newMultiMap();
+
+    /**
+     * Reaching definitions of each variable used in each statement.
+     */
+    private final Map<Stmt, MultiMap<Var, Stmt>> reachingDefs = Maps.newMap();
+
+    /**
+     * Def-use chains, i.e., the statements using the variable
+     * defined by each definition.
+     */
+    private final MultiMap<Stmt, Stmt> defUses = Maps.newMultiMap();
+
+    /**
+     * Value of the variable defined by each (executable) definition.
+     */
+    private final Map<Stmt, Value> defValues = Maps.newMap();
+
+    private final Set<Stmt> executableNodes = Sets.newSet();
+
+    private final Set<Edge<Stmt>> executableEdges = Sets.newSet();
+
+    private final Queue<Edge<Stmt>> edgeWorkList = new ArrayDeque<>();
+
+    private final Queue<Stmt> useWorkList = new ArrayDeque<>();
+
+    SparseCPSolver(SparseConstantPropagation cp, CFG<Stmt> cfg) {
+        this.cp = cp;
+        this.cfg = cfg;
+        this.params = Set.copyOf(cfg.getIR().getParams());
+    }
+
+    SparseCPResult solve() {
+        buildDefUseChains();
+        executableNodes.add(cfg.getEntry());
+        visit(cfg.getEntry());
+        while (!edgeWorkList.isEmpty() || !useWorkList.isEmpty()) {
+            while (!edgeWorkList.isEmpty()) {
+                Edge<Stmt> edge = edgeWorkList.poll();
+                Stmt target = edge.getTarget();
+                if (executableNodes.add(target)) {
+                    visit(target);
+                }
+            }
+            while (!useWorkList.isEmpty()) {
+                Stmt stmt = useWorkList.poll();
+                if (executableNodes.contains(stmt)) {
+                    visit(stmt);
+                }
+            }
+        }
+        return new SparseCPResult(cp, cfg, defValues,
+                executableNodes, executableEdges);
+    }
+
+    private void buildDefUseChains() {
+        for (Stmt stmt : cfg) {
+            Var def = getIntDef(stmt);
+            if (def != null) {
+                defs.put(def, stmt);
+            }
+        }
+        // index the definitions of the variables which need reaching
+        // definitions; each of them also has the entry node as a definition
+        List<Stmt> sites = new ArrayList<>();
+        Map<Var, BitSet> varSites = Maps.newMap();
+        Map<Stmt, Integer> stmtSites = Maps.newMap();
+        for (Stmt stmt : cfg) {
+            for (RValue use : stmt.getUses()) {
+                if (use instanceof Var var &&
+                        ConstantPropagation.canHoldInt(var) &&
+                        !hasUniqueDef(var) && !varSites.containsKey(var)) {
+                    BitSet bits = new BitSet();
+                    bits.set(sites.size());
+                    sites.add(cfg.getEntry());
+                    for (Stmt def : defs.get(var)) {
+                        bits.set(sites.size());
+                        stmtSites.put(def, sites.size());
+                        sites.add(def);
+                    }
+                    varSites.put(var, bits);
+                }
+            }
+        }
+        Map<Stmt, BitSet> inSites = computeReachingSites(varSites, stmtSites);
+        for (Stmt stmt : cfg) {
+            for (RValue use : stmt.getUses()) {
+                if (use instanceof Var var &&
+                        ConstantPropagation.canHoldInt(var)) {
+                    MultiMap<Var, Stmt> varDefs = reachingDefs.computeIfAbsent(
+                            stmt, __ -> Maps.newMultiMap());
+                    if (!varDefs.containsKey(var)) {
+                        Set<Stmt> rds;
+                        if (hasUniqueDef(var)) {
+                            rds = defs.get(var);
+                        } else {
+                            BitSet bits = (BitSet) inSites.get(stmt).clone();
+                            bits.and(varSites.get(var));
+                            rds = Sets.newHybridSet();
+                            for (int i = bits.nextSetBit(0); i >= 0;
+                                 i = bits.nextSetBit(i + 1)) {
+                                rds.add(sites.get(i));
+                            }
+                        }
+                        varDefs.putAll(var, rds);
+                        rds.forEach(rd -> defUses.put(rd, stmt));
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * @return true if the only definition of given variable reaches
+     * all its uses, so that reaching definitions are not needed.
+     */
+    private boolean hasUniqueDef(Var var) {
+        return defs.get(var).size() == 1 && !params.contains(var);
+    }
+
+    /**
+     * Computes reaching definitions of all statements in one forward
+     * bit-vector pass, where the definitions are indexed as sites.
+     *
+     * @param varSites  sites of each variable, including the entry node.
+     * @param stmtSites site of each statement which defines
+     *                  a variable in varSites.
+     * @return the sites reaching (the entry of) each statement.
+     */
+    private Map<Stmt, BitSet> computeReachingSites(
+            Map<Var, BitSet> varSites, Map<Stmt, Integer> stmtSites) {
+        BitSet entrySites = new BitSet();
+        varSites.values().forEach(bits -> entrySites.set(bits.nextSetBit(0)));
+        Map<Stmt, BitSet> inSites = Maps.newMap();
+        Map<Stmt, BitSet> outSites = Maps.newMap();
+        Queue<Stmt> workList = new ArrayDeque<>();
+        Set<Stmt> inWorkList = Sets.newSet();
+        for (Stmt stmt : cfg) {
+            inSites.put(stmt, new BitSet());
+            outSites.put(stmt, new BitSet());
+            workList.add(stmt);
+            inWorkList.add(stmt);
+        }
+        while (!workList.isEmpty()) {
+            Stmt stmt = workList.poll();
+            inWorkList.remove(stmt);
+            BitSet in = inSites.get(stmt);
+            cfg.getPredsOf(stmt).forEach(pred -> in.or(outSites.get(pred)));
+            BitSet out = (BitSet) in.clone();
+            if (cfg.isEntry(stmt)) {
+                out.or(entrySites);
+            }
+            Integer site = stmtSites.get(stmt);
+            if (site != null) {
+                out.andNot(varSites.get(getIntDef(stmt)));
+                out.set(site);
+            }
+            if (!out.equals(outSites.get(stmt))) {
+                outSites.put(stmt, out);
+                for (Stmt succ : cfg.getSuccsOf(stmt)) {
+                    if (inWorkList.add(succ)) {
+                        workList.add(succ);
+                    }
+                }
+            }
+        }
+        return inSites;
+    }
+
+    /**
+     * Evaluates the given executable statement, i.e., updates the value of
+     * the variable it defines, and marks its executable out edges.
+     */
+    private void visit(Stmt stmt) {
+        if (stmt instanceof If ifStmt) {
+            Value cond = evaluateCondition(stmt, ifStmt.getCondition());
+            for (Edge<Stmt> edge : cfg.getOutEdgesOf(stmt)) {
+                switch (edge.getKind()) {
+                    case IF_TRUE -> {
+                        if (cond.isNAC() || isConstant(cond, 1)) {
+                            markExecutable(edge);
+                        }
+                    }
+                    case IF_FALSE -> {
+                        if (cond.isNAC() || isConstant(cond, 0)) {
+                            markExecutable(edge);
+                        }
+                    }
+                    default -> markExecutable(edge);
+                }
+            }
+        } else if (stmt instanceof SwitchStmt switchStmt) {
+            Value value = evaluateCondition(stmt, switchStmt.getVar());
+            boolean matched = value.isConstant() &&
+                    switchStmt.getCaseValues().contains(value.getConstant());
+            for (Edge<Stmt> edge : cfg.getOutEdgesOf(stmt)) {
+                if (edge.isSwitchCase()) {
+                    if (value.isNAC() || matched &&
+                            edge.getCaseValue() == value.getConstant()) {
+                        markExecutable(edge);
+                    }
+                } else if (edge.getKind() == Edge.Kind.SWITCH_DEFAULT) {
+                    if (value.isNAC() || value.isConstant() && !matched) {
+                        markExecutable(edge);
+                    }
+                } else {
+                    markExecutable(edge);
+                }
+            }
+        } else {
+            cfg.getOutEdgesOf(stmt).forEach(this::markExecutable);
+        }
+        Var def = getIntDef(stmt);
+        if (def != null) {
+            Value value = stmt instanceof DefinitionStmt<?, ?> defStmt ?
+                    cp.evaluateExp(defStmt.getRValue(),
+                            getUseFact(stmt)) :
+                    Value.getNAC();
+            if (!value.equals(defValues.put(stmt, value))) {
+                useWorkList.addAll(defUses.get(stmt));
+            }
+        }
+    }
+
+    /**
+     * Evaluates the condition of a branch. If any variable in the condition
+     * cannot hold integer value, the condition is treated as NAC so that
+     * all branches are reachable.
+     */
+    private Value evaluateCondition(Stmt stmt, RValue cond) {
+        for (RValue use : stmt.getUses()) {
+            if (use instanceof Var var && !ConstantPropagation.canHoldInt(var)) {
+                return Value.getNAC();
+            }
+        }
+        return cp.evaluateExp(cond, getUseFact(stmt));
+    }
+
+    private static boolean isConstant(Value value, int i) {
+        return value.isConstant() && value.getConstant() == i;
+    }
+
+    private void markExecutable(Edge<Stmt> edge) {
+        if (executableEdges.add(edge)) {
+            edgeWorkList.add(edge);
+        }
+    }
+
+    /**
+     * @return a fact which contains the values of the variables used by
+     * the given statement, which are the meet of the values of their
+     * executable reaching definitions.
+     */
+    private CPFact getUseFact(Stmt stmt) {
+        CPFact fact = new CPFact();
+        MultiMap<Var, Stmt> varDefs = reachingDefs.get(stmt);
+        if (varDefs != null) {
+            varDefs.forEachSet((var, rds) -> {
+                Value value = Value.getUndef();
+                for (Stmt rd : rds) {
+                    if (executableNodes.contains(rd)) {
+                        value = cp.meetValue(value, getDefValue(rd, var));
+                    }
+                }
+                fact.update(var, value);
+            });
+        }
+        return fact;
+    }
+
+    private Value getDefValue(Stmt def, Var var) {
+        if (cfg.isEntry(def)) {
+            // the entry node defines the parameters
+            return params.contains(var) ? Value.getNAC() : Value.getUndef();
+        }
+        return defValues.getOrDefault(def, Value.getUndef());
+    }
+
+    /**
+     * @return the variable defined by given statement if it can hold
+     * integer value, otherwise null.
+     */
+    private static Var getIntDef(Stmt stmt) {
+        if (stmt.getDef().orElse(null) instanceof Var var &&
+                ConstantPropagation.canHoldInt(var)) {
+            return var;
+        }
+        return null;
+    }
+}
@@ -0,0 +1,85 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.dataflow.analysis.constprop;
+
+import pascal.taie.analysis.dataflow.fact.DataflowResult;
+import pascal.taie.analysis.graph.cfg.CFG;
+import pascal.taie.analysis.graph.cfg.CFGBuilder;
+import pascal.taie.config.AnalysisConfig;
+import pascal.taie.ir.IR;
+import pascal.taie.ir.exp.Exp;
+import pascal.taie.ir.stmt.Stmt;
+
+/**
+ * Sparse constant propagation in the style of sparse conditional constant
+ * propagation (SCCP). Instead of pushing a whole {@link CPFact} through
+ * every statement, it propagates the {@link Value} of each definition along
+ * def-use chains, and uses the CFG only to track which branches are
+ * reachable.
+ * <p>
+ * This analysis does not have its own lattice operations and expression
+ * evaluation: it uses {@link #newBoundaryFact(CFG)}, {@link #meetInto},
+ * {@link #meetValue} and {@link #evaluateExp} of this class, which fall
+ * back to {@link ConstantPropagation}. Hence, it can only run after
+ * {@link ConstantPropagation} is completed, and it is not registered in
+ * tai-e-analyses.yml until then; to enable it, add an entry with
+ * id {@value #ID} which requires cfg.
+ * <p>
+ * The results may differ from the ones of {@link ConstantPropagation}, as
+ * (1) the values defined in the branches which are never taken are ignored,
+ * so that the variables assigned in such branches may still be constants;
+ * and (2) the statements which are unreachable along executable edges
+ * have empty facts.
+ * <p>
+ * The result is still a {@link DataflowResult}, whose per-statement facts
+ * are materialized on demand when they are first queried.
+ */
+public class SparseConstantPropagation extends ConstantPropagation {
+
+    public static final String ID = "sparse-constprop";
+
+    public SparseConstantPropagation(AnalysisConfig config) {
+        super(config);
+    }
+
+    @Override
+    public DataflowResult<Stmt, CPFact> analyze(IR ir) {
+        CFG<Stmt> cfg = ir.getResult(CFGBuilder.ID);
+        return new SparseCPSolver(this, cfg).solve();
+    }
+
+    /**
+     * Evaluates the {@link Value} of given expression, which is used by
+     * the solver for the right-hand sides of definitions and the conditions
+     * of branches. By default, it delegates to
+     * {@link ConstantPropagation#evaluate(Exp, CPFact)}.
+     *
+     * @param exp the expression to be evaluated
+     * @param in  fact which contains the values of the variables used by
+     *            the statement containing exp
+     * @return the resulting {@link Value}
+     */
+    protected Value evaluateExp(Exp exp, CPFact in) {
+        return evaluate(exp, in);
+    }
+}
@@ -24,11 +24,24 @@ package pascal.taie.analysis.dataflow.solver;
 
 import pascal.taie.analysis.dataflow.analysis.DataflowAnalysis;
 import pascal.taie.analysis.dataflow.fact.DataflowResult;
+import pascal.taie.analysis.dataflow.fact.StmtDataflowResult;
 import pascal.taie.analysis.graph.cfg.CFG;
+import pascal.taie.ir.stmt.Stmt;
 
 /**
  * Base class for data-flow analysis solver, which provides common
  * functionalities for different solver implementations.
+ * <p>
+ * In this assignment the solver is left to be completed, so only the
+ * work-list solver is available. The following modes of the solver of
+ * assignment 1 are not provided here:
+ * <ul>
+ *     <li>the priority work list ordered by (reverse) postorder;</li>
+ *     <li>compact results which only keep the facts at block boundaries
+ *     ({@code compact});</li>
+ *     <li>the basic-block solver ({@code block});</li>
+ *     <li>incremental re-solving after IR edits ({@code resolve}).</li>
+ * </ul>
  *
  * @param <Node> type of CFG nodes
  * @param <Fact> type of data-flow facts
@@ -67,7 +80,7 @@ public abstract class Solver<Node, Fact> {
      * @return the initialized data-flow result
      */
     private DataflowResult<Node, Fact> initialize(CFG<Node> cfg) {
-        DataflowResult<Node, Fact> result = new DataflowResult<>();
+        DataflowResult<Node, Fact> result = newResult(cfg);
         if (analysis.isForward()) {
             initializeForward(cfg, result);
         } else {
@@ -76,6 +89,19 @@ public abstract class Solver<Node, Fact> {
         return result;
     }
 
+    /**
+     * Creates an empty data-flow result for given CFG. For CFGs of
+     * {@link Stmt}s, the result is an array-backed {@link StmtDataflowResult}.
+     */
+    @SuppressWarnings("unchecked")
+    private static <Node, Fact> DataflowResult<Node, Fact> newResult(CFG<Node> cfg) {
+        if (cfg.getEntry() instanceof Stmt) {
+            return (DataflowResult<Node, Fact>)
+                    new StmtDataflowResult<Fact>(cfg.getIR());
+        }
+        return new DataflowResult<>();
+    }
+
     protected void initializeForward(CFG<Node> cfg, DataflowResult<Node, Fact> result) {
         // TODO - finish me
     }
@@ -0,0 +1,249 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.dataflow.analysis.constprop;
+
+import org.junit.Test;
+import pascal.taie.analysis.dataflow.fact.MapFact;
+import pascal.taie.ir.exp.Var;
+import pascal.taie.language.annotation.AnnotationHolder;
+import pascal.taie.language.classes.JClass;
+import pascal.taie.language.classes.JMethod;
+import pascal.taie.language.type.PrimitiveType;
+import pascal.taie.util.AnalysisException;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Checks the packed representation of {@link CPFact} against
+ * {@link Map}s of variables to values, and checks that a fact
+ * only holds variables of a single method.
+ */
+public class CPFactTest {
+
+    private static final int ROUNDS = 300;
+
+    private static final int VARS = 40;
+
+    private static final List<Var> vars = newVars(null, VARS);
+
+    private static List<Var> newVars(JMethod method, int n) {
+        List<Var> vars = new ArrayList<>();
+        for (int i = 0; i < n; ++i) {
+            vars.add(new Var(method, "v" + i, PrimitiveType.INT, i));
+        }
+        return vars;
+    }
+
+    private static Value randomValue(Random random) {
+        return switch (random.nextInt(4)) {
+            case 0 -> Value.getUndef();
+            case 1 -> Value.getNAC();
+            // few distinct constants, so that meets of equal constants occur
+            default -> Value.makeConstant(random.nextInt(3) - 1);
+        };
+    }
+
+    private static Map<Var, Value> randomMap(Random random) {
+        Map<Var, Value> map = new HashMap<>();
+        // limit the variables of some maps, so that facts of
+        // different lengths are met and compared
+        int n = 1 + random.nextInt(VARS);
+        for (int i = random.nextInt(2 * n); i > 0; --i) {
+            Value value = randomValue(random);
+            Var var = vars.get(random.nextInt(n));
+            if (value.isUndef()) {
+                map.remove(var);
+            } else {
+                map.put(var, value);
+            }
+        }
+        return map;
+    }
+
+    private static CPFact toFact(Map<Var, Value> map) {
+        CPFact fact = new CPFact();
+        map.forEach(fact::update);
+        return fact;
+    }
+
+    private static Value meet(Value v1, Value v2) {
+        if (v1.isUndef()) {
+            return v2;
+        } else if (v2.isUndef() || v1.equals(v2)) {
+            return v1;
+        } else {
+            return Value.getNAC();
+        }
+    }
+
+    private static void assertFact(String message, Map<Var, Value> expected,
+                                   CPFact fact) {
+        assertEquals(message, expected.keySet(), fact.keySet());
+        for (Var var : vars) {
+            assertEquals(message + ", " + var,
+                    expected.getOrDefault(var, Value.getUndef()), fact.get(var));
+        }
+        Map<Var, Value> entries = new HashMap<>();
+        fact.forEach(entries::put);
+        assertEquals(message, expected, entries);
+    }
+
+    @Test
+    public void testUpdateAndRemove() {
+        Random random = new Random(5);
+        for (int round = 0; round < ROUNDS; ++round) {
+            Map<Var, Value> expected = new HashMap<>();
+            CPFact fact = new CPFact();
+            for (int i = random.nextInt(3 * VARS); i > 0; --i) {
+                Var var = vars.get(random.nextInt(VARS));
+                Value old = expected.getOrDefault(var, Value.getUndef());
+                if (random.nextInt(4) == 0) {
+                    expected.remove(var);
+                    assertEquals("round " + round,
+                            old.isUndef() ? null : old, fact.remove(var));
+                } else {
+                    Value value = randomValue(random);
+                    if (value.isUndef()) {
+                        expected.remove(var);
+                    } else {
+                        expected.put(var, value);
+                    }
+                    assertEquals("round " + round,
+                            !old.equals(value), fact.update(var, value));
+                }
+            }
+            assertFact("round " + round, expected, fact);
+            assertFact("round " + round + ", copy", expected, fact.copy());
+        }
+    }
+
+    @Test
+    public void testMeetAndCopyFrom() {
+        Random random = new Random(6);
+        for (int round = 0; round < ROUNDS; ++round) {
+            Map<Var, Value> map1 = randomMap(random);
+            Map<Var, Value> map2 = randomMap(random);
+            Map<Var, Value> met = new HashMap<>(map1);
+            map2.forEach((var, value) ->
+                    met.put(var, meet(met.getOrDefault(var, Value.getUndef()), value)));
+            CPFact fact = toFact(map1);
+            assertEquals("round " + round, !met.equals(map1),
+                    fact.meet(toFact(map2)));
+            assertFact("round " + round + ", meet", met, fact);
+
+            Map<Var, Value> copied = new HashMap<>(map1);
+            copied.putAll(map2);
+            fact = toFact(map1);
+            assertEquals("round " + round, !copied.equals(map1),
+                    fact.copyFrom(toFact(map2)));
+            assertFact("round " + round + ", copyFrom", copied, fact);
+            // copy from a fact in another representation
+            fact = toFact(map1);
+            fact.copyFrom(new MapFact<>(map2));
+            assertFact("round " + round + ", copyFrom MapFact", copied, fact);
+        }
+    }
+
+    @Test
+    public void testEqualsAndHashCode() {
+        Random random = new Random(7);
+        for (int round = 0; round < ROUNDS; ++round) {
+            Map<Var, Value> map1 = randomMap(random);
+            Map<Var, Value> map2 = random.nextBoolean() ? randomMap(random) : map1;
+            CPFact fact1 = toFact(map1);
+            CPFact fact2 = toFact(map2);
+            // grow fact2 and then remove the tail, so that equal
+            // facts of different array lengths are compared
+            fact2.update(vars.get(VARS - 1), Value.getNAC());
+            fact2.remove(vars.get(VARS - 1));
+            fact2.update(vars.get(VARS - 1), map2.getOrDefault(
+                    vars.get(VARS - 1), Value.getUndef()));
+            if (map1.equals(map2)) {
+                assertEquals("round " + round, fact1, fact2);
+                assertEquals("round " + round, fact1.hashCode(), fact2.hashCode());
+            } else {
+                assertNotEquals("round " + round, fact1, fact2);
+            }
+        }
+    }
+
+    @Test
+    public void testClear() {
+        CPFact fact = toFact(Map.of(vars.get(0), Value.makeConstant(1),
+                vars.get(3), Value.getNAC()));
+        fact.clear();
+        assertEquals(Set.of(), fact.keySet());
+        assertEquals(new CPFact(), fact);
+        assertFalse(fact.update(vars.get(3), Value.getUndef()));
+        assertTrue(fact.update(vars.get(3), Value.getNAC()));
+    }
+
+    @Test
+    public void testAdoptMethod() {
+        JClass c = new JClass(null, "C");
+        List<Var> vars1 = newVars(newMethod(c, "m1"), 4);
+        List<Var> vars2 = newVars(newMethod(c, "m2"), 4);
+        CPFact fact = new CPFact();
+        // variables without methods can be mixed with the ones of any method.
+        // We set the last variable first, so that the fact does not grow
+        // after adopting a method, which would load the IR of the method.
+        fact.update(vars.get(3), Value.makeConstant(3));
+        fact.update(vars1.get(1), Value.makeConstant(1));
+        fact.update(vars.get(0), Value.makeConstant(0));
+        assertEquals(Set.of(vars.get(0), vars1.get(1), vars.get(3)), fact.keySet());
+        try {
+            fact.update(vars2.get(2), Value.makeConstant(2));
+            fail("expected AnalysisException");
+        } catch (AnalysisException e) {
+            // expected
+        }
+        // setting UNDEF does not add the variable, so it is allowed
+        assertFalse(fact.update(vars2.get(2), Value.getUndef()));
+        CPFact other = new CPFact();
+        other.update(vars.get(3), Value.getNAC());
+        other.update(vars2.get(2), Value.getNAC());
+        try {
+            fact.meet(other);
+            fail("expected AnalysisException");
+        } catch (AnalysisException e) {
+            // expected
+        }
+    }
+
+    private static JMethod newMethod(JClass declaringClass, String name) {
+        return new JMethod(declaringClass, name, Set.of(), List.of(),
+                PrimitiveType.INT, List.of(), AnnotationHolder.emptyHolder(),
+                null, null);
+    }
+}
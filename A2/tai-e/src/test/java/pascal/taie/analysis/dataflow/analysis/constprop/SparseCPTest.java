@@ -0,0 +1,228 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.dataflow.analysis.constprop;
+
+import org.junit.Test;
+import pascal.taie.analysis.dataflow.fact.DataflowResult;
+import pascal.taie.analysis.graph.cfg.CFG;
+import pascal.taie.analysis.graph.cfg.CFGBuilder;
+import pascal.taie.analysis.graph.cfg.Edge;
+import pascal.taie.analysis.graph.cfg.TestCFG;
+import pascal.taie.config.AnalysisConfig;
+import pascal.taie.ir.DefaultIR;
+import pascal.taie.ir.IR;
+import pascal.taie.ir.exp.ArithmeticExp;
+import pascal.taie.ir.exp.BinaryExp;
+import pascal.taie.ir.exp.ConditionExp;
+import pascal.taie.ir.exp.Exp;
+import pascal.taie.ir.exp.IntLiteral;
+import pascal.taie.ir.exp.Var;
+import pascal.taie.ir.stmt.AssignLiteral;
+import pascal.taie.ir.stmt.Binary;
+import pascal.taie.ir.stmt.If;
+import pascal.taie.ir.stmt.Nop;
+import pascal.taie.ir.stmt.Stmt;
+import pascal.taie.language.type.PrimitiveType;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Checks the constants computed by {@link SparseConstantPropagation} on
+ * a hand-built IR against the ones computed by hand.
+ * <p>
+ * As {@link ConstantPropagation} is left to be completed, the analysis
+ * under test overrides its lattice operations and expression evaluation
+ * with minimal ones which only handle the expressions in the test IR.
+ */
+public class SparseCPTest {
+
+    private static final Value NAC = Value.getNAC();
+
+    private static Value c(int i) {
+        return Value.makeConstant(i);
+    }
+
+    /**
+     * Test IR of the following code, where p is a parameter:
+     * <pre>
+     *  0: x = 1;
+     *  1: one = 1;
+     *  2: if (x == one) goto 4;
+     *  3: y = 2; goto 5;
+     *  4: y = 3;
+     *  5: z = y + x;
+     *  6: i = 0;
+     *  7: if (i &lt; z) goto 8; else goto 9;
+     *  8: i = i + one; goto 7;
+     *  9: w = p + one;
+     * </pre>
+     * Statement 3 is never executed as x == one always holds, so y is 3 at
+     * statement 5 (which dense constant propagation would treat as NAC),
+     * while i is NAC in the loop as it is incremented there.
+     */
+    @Test
+    public void testConstants() {
+        List<Var> vars = new ArrayList<>();
+        for (String name : List.of("p", "x", "one", "y", "z", "i", "w")) {
+            vars.add(new Var(null, name, PrimitiveType.INT, vars.size()));
+        }
+        Var p = vars.get(0), x = vars.get(1), one = vars.get(2),
+                y = vars.get(3), z = vars.get(4), i = vars.get(5),
+                w = vars.get(6);
+        List<Stmt> stmts = List.of(
+                new AssignLiteral(x, IntLiteral.get(1)),
+                new AssignLiteral(one, IntLiteral.get(1)),
+                new If(new ConditionExp(ConditionExp.Op.EQ, x, one)),
+                new AssignLiteral(y, IntLiteral.get(2)),
+                new AssignLiteral(y, IntLiteral.get(3)),
+                new Binary(z, new ArithmeticExp(ArithmeticExp.Op.ADD, y, x)),
+                new AssignLiteral(i, IntLiteral.get(0)),
+                new If(new ConditionExp(ConditionExp.Op.LT, i, z)),
+                new Binary(i, new ArithmeticExp(ArithmeticExp.Op.ADD, i, one)),
+                new Binary(w, new ArithmeticExp(ArithmeticExp.Op.ADD, p, one)));
+        for (int k = 0; k < stmts.size(); ++k) {
+            stmts.get(k).setIndex(k);
+        }
+        IR ir = new DefaultIR(null, null, List.of(p), Set.of(),
+                vars, stmts, List.of());
+        Nop entry = new Nop();
+        entry.setIndex(stmts.size());
+        Nop exit = new Nop();
+        exit.setIndex(stmts.size() + 1);
+        List<Stmt> nodes = new ArrayList<>();
+        nodes.add(entry);
+        nodes.addAll(stmts);
+        nodes.add(exit);
+        TestCFG<Stmt> cfg = new TestCFG<>(ir, nodes);
+        cfg.addEdge(entry, stmts.get(0));
+        cfg.addEdge(stmts.get(0), stmts.get(1));
+        cfg.addEdge(stmts.get(1), stmts.get(2));
+        cfg.addEdge(Edge.Kind.IF_FALSE, stmts.get(2), stmts.get(3));
+        cfg.addEdge(Edge.Kind.IF_TRUE, stmts.get(2), stmts.get(4));
+        cfg.addEdge(Edge.Kind.GOTO, stmts.get(3), stmts.get(5));
+        cfg.addEdge(stmts.get(4), stmts.get(5));
+        cfg.addEdge(stmts.get(5), stmts.get(6));
+        cfg.addEdge(stmts.get(6), stmts.get(7));
+        cfg.addEdge(Edge.Kind.IF_TRUE, stmts.get(7), stmts.get(8));
+        cfg.addEdge(Edge.Kind.IF_FALSE, stmts.get(7), stmts.get(9));
+        cfg.addEdge(Edge.Kind.GOTO, stmts.get(8), stmts.get(7));
+        cfg.addEdge(stmts.get(9), exit);
+        ir.storeResult(CFGBuilder.ID, cfg);
+
+        DataflowResult<Stmt, CPFact> result = new TestSparseCP().analyze(ir);
+        assertFact(Map.of(p, NAC), result.getOutFact(entry));
+        assertFact(Map.of(p, NAC, x, c(1), one, c(1)),
+                result.getOutFact(stmts.get(2)));
+        // statement 3 is not executable
+        assertFact(Map.of(), result.getInFact(stmts.get(3)));
+        assertFact(Map.of(), result.getOutFact(stmts.get(3)));
+        assertFact(Map.of(p, NAC, x, c(1), one, c(1), y, c(3)),
+                result.getInFact(stmts.get(5)));
+        assertFact(Map.of(p, NAC, x, c(1), one, c(1), y, c(3), z, c(4)),
+                result.getOutFact(stmts.get(5)));
+        assertFact(Map.of(p, NAC, x, c(1), one, c(1), y, c(3), z, c(4), i, NAC),
+                result.getInFact(stmts.get(7)));
+        assertFact(Map.of(p, NAC, x, c(1), one, c(1), y, c(3), z, c(4), i, NAC,
+                w, NAC), result.getInFact(exit));
+    }
+
+    private static void assertFact(Map<Var, Value> expected, CPFact fact) {
+        Map<Var, Value> actual = new HashMap<>();
+        fact.forEach(actual::put);
+        assertEquals(expected, actual);
+    }
+
+    /**
+     * Sparse constant propagation with minimal lattice operations and
+     * evaluation of integer literals, variables, additions, and
+     * conditions == and &lt;.
+     */
+    private static class TestSparseCP extends SparseConstantPropagation {
+
+        private TestSparseCP() {
+            super(new AnalysisConfig(SparseConstantPropagation.ID));
+        }
+
+        @Override
+        public CPFact newBoundaryFact(CFG<Stmt> cfg) {
+            CPFact fact = new CPFact();
+            cfg.getIR().getParams().forEach(param -> fact.update(param, NAC));
+            return fact;
+        }
+
+        @Override
+        public CPFact newInitialFact() {
+            return new CPFact();
+        }
+
+        @Override
+        public void meetInto(CPFact fact, CPFact target) {
+            fact.forEach((var, value) ->
+                    target.update(var, meetValue(value, target.get(var))));
+        }
+
+        @Override
+        public Value meetValue(Value v1, Value v2) {
+            if (v1.isUndef()) {
+                return v2;
+            } else if (v2.isUndef() || v1.equals(v2)) {
+                return v1;
+            } else {
+                return NAC;
+            }
+        }
+
+        @Override
+        protected Value evaluateExp(Exp exp, CPFact in) {
+            if (exp instanceof IntLiteral literal) {
+                return c(literal.getValue());
+            } else if (exp instanceof Var var) {
+                return in.get(var);
+            } else if (exp instanceof BinaryExp binary) {
+                Value v1 = in.get(binary.getOperand1());
+                Value v2 = in.get(binary.getOperand2());
+                if (v1.isNAC() || v2.isNAC()) {
+                    return NAC;
+                } else if (v1.isUndef() || v2.isUndef()) {
+                    return Value.getUndef();
+                }
+                int i1 = v1.getConstant(), i2 = v2.getConstant();
+                BinaryExp.Op op = binary.getOperator();
+                if (op == ArithmeticExp.Op.ADD) {
+                    return c(i1 + i2);
+                } else if (op == ConditionExp.Op.EQ) {
+                    return c(i1 == i2 ? 1 : 0);
+                } else if (op == ConditionExp.Op.LT) {
+                    return c(i1 < i2 ? 1 : 0);
+                }
+            }
+            return NAC;
+        }
+    }
+}
@@ -0,0 +1,157 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.graph.cfg;
+
+import pascal.taie.ir.IR;
+import pascal.taie.language.classes.JMethod;
+import pascal.taie.util.collection.Maps;
+import pascal.taie.util.collection.MultiMap;
+
+import javax.annotation.Nullable;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * A CFG whose nodes and edges are given explicitly, for testing.
+ * The first node is the entry, and the last node is the exit.
+ *
+ * @param <N> type of CFG nodes
+ */
+public class TestCFG<N> implements CFG<N> {
+
+    private final IR ir;
+
+    private final List<N> nodes;
+
+    private final MultiMap<N, Edge<N>> inEdges = Maps.newMultiMap();
+
+    private final MultiMap<N, Edge<N>> outEdges = Maps.newMultiMap();
+
+    /**
+     * @param ir    the IR of the CFG, or null if the nodes are not
+     *              statements of an IR.
+     * @param nodes nodes of the CFG.
+     */
+    public TestCFG(@Nullable IR ir, List<N> nodes) {
+        this.ir = ir;
+        this.nodes = List.copyOf(nodes);
+    }
+
+    /**
+     * Adds a fall-through edge from source to target.
+     */
+    public void addEdge(N source, N target) {
+        addEdge(Edge.Kind.FALL_THROUGH, source, target);
+    }
+
+    /**
+     * Adds an edge of given kind from source to target.
+     */
+    public void addEdge(Edge.Kind kind, N source, N target) {
+        Edge<N> edge = new Edge<>(kind, source, target);
+        outEdges.put(source, edge);
+        inEdges.put(target, edge);
+    }
+
+    @Override
+    public IR getIR() {
+        return ir;
+    }
+
+    @Override
+    public JMethod getMethod() {
+        return ir != null ? ir.getMethod() : null;
+    }
+
+    @Override
+    public N getEntry() {
+        return nodes.get(0);
+    }
+
+    @Override
+    public N getExit() {
+        return nodes.get(nodes.size() - 1);
+    }
+
+    @Override
+    public boolean isEntry(N node) {
+        return node.equals(getEntry());
+    }
+
+    @Override
+    public boolean isExit(N node) {
+        return node.equals(getExit());
+    }
+
+    @Override
+    public Set<Edge<N>> getInEdgesOf(N node) {
+        return Collections.unmodifiableSet(inEdges.get(node));
+    }
+
+    @Override
+    public Set<Edge<N>> getOutEdgesOf(N node) {
+        return Collections.unmodifiableSet(outEdges.get(node));
+    }
+
+    @Override
+    public boolean hasNode(N node) {
+        return nodes.contains(node);
+    }
+
+    @Override
+    public boolean hasEdge(N source, N target) {
+        return getSuccsOf(source).contains(target);
+    }
+
+    @Override
+    public Set<N> getPredsOf(N node) {
+        Set<N> preds = new LinkedHashSet<>();
+        inEdges.get(node).forEach(edge -> preds.add(edge.getSource()));
+        return preds;
+    }
+
+    @Override
+    public Set<N> getSuccsOf(N node) {
+        Set<N> succs = new LinkedHashSet<>();
+        outEdges.get(node).forEach(edge -> succs.add(edge.getTarget()));
+        return succs;
+    }
+
+    @Override
+    public Set<N> getNodes() {
+        return Collections.unmodifiableSet(new LinkedHashSet<>(nodes));
+    }
+
+    @Override
+    public int getNumberOfNodes() {
+        return nodes.size();
+    }
+
+    @Override
+    public Iterator<N> iterator() {
+        return nodes.iterator();
+    }
+}
@@ -53,20 +53,61 @@ public class DeadCodeDetection extends MethodAnalysis {
 
     public static final String ID = "deadcode";
 
+    /**
+     * Constant propagation run by this analysis in fused mode,
+     * null in normal mode.
+     */
+    private final ConstantPropagation constprop;
+
+    /**
+     * Live variable analysis run by this analysis in fused mode,
+     * null in normal mode.
+     */
+    private final LiveVariableAnalysis livevar;
+
     public DeadCodeDetection(AnalysisConfig config) {
         super(config);
+        if (getOptions().getBooleanOrDefault("fused", false)) {
+            constprop = new ConstantPropagation(new AnalysisConfig(
+                    ConstantPropagation.ID, "edge-refine",
+                    getOptions().getBooleanOrDefault("edge-refine", false)));
+            livevar = new LiveVariableAnalysis(new AnalysisConfig(
+                    LiveVariableAnalysis.ID, "strongly",
+                    getOptions().getBooleanOrDefault("strongly", false)));
+        } else {
+            constprop = null;
+            livevar = null;
+        }
     }
 
     @Override
     public Set<Stmt> analyze(IR ir) {
         // obtain CFG
         CFG<Stmt> cfg = ir.getResult(CFGBuilder.ID);
+        if (constprop != null) {
+            // fused mode: compute constants and live variables of this
+            // method on demand, without storing them to ir, so that
+            // their facts can be reclaimed as soon as this method is done
+            return detectDeadCode(ir, cfg,
+                    constprop.analyze(ir), livevar.analyze(ir));
+        }
         // obtain result of constant propagation
         DataflowResult<Stmt, CPFact> constants =
                 ir.getResult(ConstantPropagation.ID);
         // obtain result of live variable analysis
         DataflowResult<Stmt, SetFact<Var>> liveVars =
                 ir.getResult(LiveVariableAnalysis.ID);
+        return detectDeadCode(ir, cfg, constants, liveVars);
+    }
+
+    /**
+     * @return dead code in ir, given the results of constant propagation
+     * and live variable analysis on ir.
+     */
+    private static Set<Stmt> detectDeadCode(
+            IR ir, CFG<Stmt> cfg,
+            DataflowResult<Stmt, CPFact> constants,
+            DataflowResult<Stmt, SetFact<Var>> liveVars) {
         // keep statements (dead code) sorted in the resulting set
         Set<Stmt> deadCode = new TreeSet<>(Comparator.comparing(Stmt::getIndex));
         // TODO - finish me
@@ -29,6 +29,7 @@ import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
 import java.util.function.BiConsumer;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
@@ -54,6 +55,14 @@ public class MapFact<K, V> {
         this.map = Maps.newHybridMap(map);
     }
 
+    /**
+     * Constructs a new MapFact backed by the map given by the factory,
+     * so that subclasses can choose their own map representations.
+     */
+    protected MapFact(Supplier<Map<K, V>> mapFactory) {
+        this.map = mapFactory.get();
+    }
+
     /**
      * @return the value to which the specified key is mapped,
      * or null if this map contains no mapping for the key.
@@ -88,8 +97,10 @@ public class MapFact<K, V> {
      */
     public boolean copyFrom(MapFact<K, V> fact) {
         boolean changed = false;
-        for (Map.Entry<K, V> entry : fact.map.entrySet()) {
-            changed |= update(entry.getKey(), entry.getValue());
+        // go through keySet() and get() instead of fact.map, as subclasses
+        // (e.g., CPFact) may keep their mappings outside the map
+        for (K key : fact.keySet()) {
+            changed |= update(key, fact.get(key));
         }
         return changed;
     }
@@ -0,0 +1,138 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.dataflow.fact;
+
+import pascal.taie.ir.IR;
+import pascal.taie.ir.stmt.Stmt;
+
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+/**
+ * A {@link DataflowResult} for the CFG of a single {@link IR}, which keeps
+ * the facts in arrays indexed by {@link Stmt#getIndex()}.
+ * <p>
+ * The statements of an IR are indexed densely from 0, and the entry and
+ * exit nodes of its CFG take the next two indexes, thus a node lookup is
+ * a plain array access instead of a hash lookup. This result only accepts
+ * the statements of the IR it was created for and the entry/exit nodes
+ * of the IR's CFG.
+ * <p>
+ * Facts are looked up by statement identity: a statement only gets
+ * the facts that were set for the statement itself, even if it has been
+ * re-indexed since, e.g., when it is moved to a new IR, and a statement
+ * which takes the index of another one gets no facts.
+ *
+ * @param <Fact> type of data-flow facts
+ */
+public class StmtDataflowResult<Fact> extends DataflowResult<Stmt, Fact> {
+
+    private final Object[] inFacts;
+
+    private final Object[] outFacts;
+
+    /**
+     * The node whose facts are stored at each position.
+     */
+    private final Stmt[] nodes;
+
+    /**
+     * Positions of the nodes, built on the first lookup of a node
+     * which is not at the position of its index.
+     */
+    private volatile Map<Stmt, Integer> positions;
+
+    public StmtDataflowResult(IR ir) {
+        super(Map.of(), Map.of());
+        // +2 for entry and exit nodes of the CFG
+        int size = ir.getStmts().size() + 2;
+        inFacts = new Object[size];
+        outFacts = new Object[size];
+        nodes = new Stmt[size];
+    }
+
+    @Override
+    public Fact getInFact(Stmt node) {
+        return get(inFacts, node);
+    }
+
+    @Override
+    public void setInFact(Stmt node, Fact fact) {
+        inFacts[occupy(node)] = fact;
+    }
+
+    @Override
+    public Fact getOutFact(Stmt node) {
+        return get(outFacts, node);
+    }
+
+    @Override
+    public void setOutFact(Stmt node, Fact fact) {
+        outFacts[occupy(node)] = fact;
+    }
+
+    @SuppressWarnings("unchecked")
+    private <Fact> Fact get(Object[] facts, Stmt node) {
+        int position = positionOf(node);
+        return position >= 0 ? (Fact) facts[position] : null;
+    }
+
+    /**
+     * @return the position of given node, or -1 if this result
+     * has no facts of the node.
+     */
+    private int positionOf(Stmt node) {
+        int index = node.getIndex();
+        if (0 <= index && index < nodes.length && nodes[index] == node) {
+            return index;
+        }
+        Map<Stmt, Integer> pos = positions;
+        if (pos == null) {
+            pos = new IdentityHashMap<>();
+            for (int i = 0; i < nodes.length; ++i) {
+                if (nodes[i] != null) {
+                    pos.put(nodes[i], i);
+                }
+            }
+            positions = pos;
+        }
+        return pos.getOrDefault(node, -1);
+    }
+
+    /**
+     * Stores given node at the position of its index, and drops the facts
+     * of the node which was stored there before, if any.
+     *
+     * @return the position of the node.
+     */
+    private int occupy(Stmt node) {
+        int index = node.getIndex();
+        if (nodes[index] != node) {
+            nodes[index] = node;
+            inFacts[index] = null;
+            outFacts[index] = null;
+            positions = null;
+        }
+        return index;
+    }
+}
@@ -24,6 +24,7 @@ package pascal.taie.analysis.dataflow.inter;
 
 import pascal.taie.analysis.dataflow.analysis.constprop.CPFact;
 import pascal.taie.analysis.dataflow.analysis.constprop.ConstantPropagation;
+import pascal.taie.analysis.dataflow.analysis.constprop.Value;
 import pascal.taie.analysis.graph.cfg.CFG;
 import pascal.taie.analysis.graph.cfg.CFGBuilder;
 import pascal.taie.analysis.graph.icfg.CallEdge;
@@ -74,6 +75,16 @@ public class InterConstantPropagation extends
         cp.meetInto(fact, target);
     }
 
+    /**
+     * Queries the value of given variable right before given statement.
+     * Unless the analysis has been run on the whole program, only the
+     * statements that may reach {@code stmt} in the ICFG are analyzed,
+     * and their facts are memoized for later queries.
+     */
+    public Value query(Stmt stmt, Var var) {
+        return queryInFact(stmt).get(var);
+    }
+
     @Override
     protected boolean transferCallNode(Stmt stmt, CPFact in, CPFact out) {
         // TODO - finish me
@@ -0,0 +1,423 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.dataflow.inter;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import pascal.taie.analysis.dataflow.fact.DataflowResult;
+import pascal.taie.analysis.graph.icfg.ICFG;
+import pascal.taie.analysis.graph.icfg.ICFGEdge;
+import pascal.taie.util.AnalysisException;
+import pascal.taie.util.collection.Maps;
+import pascal.taie.util.collection.SetQueue;
+import pascal.taie.util.graph.MergedNode;
+import pascal.taie.util.graph.MergedSCCGraph;
+import pascal.taie.util.graph.SimpleGraph;
+import pascal.taie.util.graph.TopoSorter;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Work-list solver for inter-procedural data-flow analysis which schedules
+ * the nodes by the strongly connected components (SCCs) of the call graph.
+ * <p>
+ * The SCCs are sorted topologically, either top-down (callers first) or
+ * bottom-up (callees first), and each SCC has its own work list. The solver
+ * always processes the first SCC (in the topological order) that has
+ * pending nodes, and drives it to a local fixed point before moving on.
+ * Facts that flow to an earlier SCC, e.g., return facts in top-down order,
+ * make that SCC pending again, so the final result is the same as that of
+ * a single global work list, but most nodes are visited far fewer times.
+ * <p>
+ * With more than one thread, SCCs are solved in parallel on a work-stealing
+ * pool. Facts flow between methods only along call and return edges, which
+ * connect adjacent SCCs of the condensed call graph, so an SCC is started
+ * only when none of its adjacent SCCs is running. Each running SCC thus
+ * exclusively owns the facts of its nodes and reads stable facts from its
+ * neighbors, and synchronization is needed only when an SCC makes another
+ * one pending, or when an SCC starts or finishes. As the work-list
+ * algorithm computes the same fixed point regardless of the visiting
+ * order, the result is identical to the sequential one. This requires
+ * the transfer functions of the analysis to be thread-safe, and to access
+ * the facts of other nodes only via the given in/out facts.
+ */
+class SCCInterSolver<Method, Node, Fact> {
+
+    private static final Logger logger = LogManager.getLogger(SCCInterSolver.class);
+
+    private final InterDataflowAnalysis<Node, Fact> analysis;
+
+    private final ICFG<Method, Node> icfg;
+
+    private final boolean bottomUp;
+
+    private final int threads;
+
+    private DataflowResult<Node, Fact> result;
+
+    /**
+     * SCCs of the call graph in scheduling order.
+     */
+    private List<List<Method>> components;
+
+    /**
+     * Method -> index of its SCC in {@link #components}.
+     */
+    private Map<Method, Integer> componentOf;
+
+    /**
+     * Work list of each SCC.
+     */
+    private List<Queue<Node>> workLists;
+
+    /**
+     * Indexes of the SCCs (in {@link #components}) that are adjacent to
+     * each SCC in the condensed call graph.
+     */
+    private int[][] neighbors;
+
+    /**
+     * Indexes of the SCCs that have pending nodes.
+     */
+    private BitSet pending;
+
+    /**
+     * Pool for solving SCCs in parallel, which is null in sequential mode.
+     */
+    private ForkJoinPool pool;
+
+    /**
+     * Whether each SCC is being solved in parallel mode.
+     */
+    private boolean[] running;
+
+    /**
+     * Number of the SCCs being solved in parallel mode.
+     */
+    private int numberOfRunning;
+
+    /**
+     * The first failure thrown while solving SCCs in parallel mode.
+     */
+    private Throwable failure;
+
+    /**
+     * Boundary nodes, i.e., entry (exit) nodes of the entry methods for
+     * forward (backward) analyses, whose facts are never recomputed.
+     */
+    private Set<Node> boundaries;
+
+    private int[] iterations;
+
+    private long[] elapsedNanos;
+
+    /**
+     * @param bottomUp if true, solves callees before callers, otherwise
+     *                 solves callers before callees.
+     * @param threads  number of threads for solving SCCs,
+     *                 1 means sequential mode.
+     */
+    SCCInterSolver(InterDataflowAnalysis<Node, Fact> analysis,
+                   ICFG<Method, Node> icfg, boolean bottomUp, int threads) {
+        this.analysis = analysis;
+        this.icfg = icfg;
+        this.bottomUp = bottomUp;
+        this.threads = threads;
+    }
+
+    DataflowResult<Node, Fact> solve() {
+        result = new DataflowResult<>();
+        initialize();
+        doSolve();
+        logStatistics();
+        return result;
+    }
+
+    /**
+     * @return statistics of the SCCs in scheduling order,
+     * available after {@link #solve()}.
+     */
+    List<ComponentStatistics<Method>> getStatistics() {
+        List<ComponentStatistics<Method>> statistics = new ArrayList<>(components.size());
+        for (int i = 0; i < components.size(); ++i) {
+            statistics.add(new ComponentStatistics<>(
+                    components.get(i), iterations[i], elapsedNanos[i]));
+        }
+        return statistics;
+    }
+
+    private void initialize() {
+        buildComponents();
+        int n = components.size();
+        workLists = new ArrayList<>(n);
+        for (int i = 0; i < n; ++i) {
+            workLists.add(new SetQueue<>());
+        }
+        pending = new BitSet(n);
+        running = new boolean[n];
+        iterations = new int[n];
+        elapsedNanos = new long[n];
+        for (Node node : icfg) {
+            result.setInFact(node, analysis.newInitialFact());
+            result.setOutFact(node, analysis.newInitialFact());
+        }
+        boundaries = icfg.entryMethods()
+                .map(m -> analysis.isForward() ? icfg.getEntryOf(m) : icfg.getExitOf(m))
+                .collect(Collectors.toSet());
+        for (Node boundary : boundaries) {
+            Fact fact = analysis.newBoundaryFact(boundary);
+            if (analysis.isForward()) {
+                result.setOutFact(boundary, fact);
+            } else {
+                result.setInFact(boundary, fact);
+            }
+        }
+        for (Node node : icfg) {
+            add(node, -1);
+        }
+    }
+
+    /**
+     * Computes the SCCs of the call graph induced by the ICFG,
+     * and sorts them in scheduling order.
+     */
+    private void buildComponents() {
+        SimpleGraph<Method> callGraph = new SimpleGraph<>();
+        for (Node node : icfg) {
+            Method method = icfg.getContainingMethodOf(node);
+            callGraph.addNode(method);
+            if (icfg.isCallSite(node)) {
+                icfg.getCalleesOf(node).forEach(callee ->
+                        callGraph.addEdge(method, callee));
+            }
+        }
+        MergedSCCGraph<Method> condensed = new MergedSCCGraph<>(callGraph);
+        List<MergedNode<Method>> sorted = new TopoSorter<>(condensed, bottomUp).get();
+        components = new ArrayList<>(sorted.size());
+        componentOf = Maps.newMap(callGraph.getNumberOfNodes());
+        Map<MergedNode<Method>, Integer> indexes = Maps.newMap(sorted.size());
+        for (MergedNode<Method> component : sorted) {
+            int index = components.size();
+            components.add(component.getNodes());
+            component.getNodes().forEach(m -> componentOf.put(m, index));
+            indexes.put(component, index);
+        }
+        neighbors = new int[sorted.size()][];
+        for (MergedNode<Method> component : sorted) {
+            neighbors[indexes.get(component)] = Stream.concat(
+                            condensed.getPredsOf(component).stream(),
+                            condensed.getSuccsOf(component).stream())
+                    .mapToInt(indexes::get)
+                    .distinct()
+                    .toArray();
+        }
+    }
+
+    /**
+     * Adds given node to the work list of its SCC.
+     *
+     * @param current index of the SCC being solved by the current thread,
+     *                or -1 if no SCC is being solved.
+     */
+    private void add(Node node, int current) {
+        if (boundaries.contains(node)) {
+            return;
+        }
+        int index = componentOf.get(icfg.getContainingMethodOf(node));
+        if (index == current) {
+            // the work list of the current SCC is owned by current thread
+            workLists.get(index).add(node);
+        } else if (pool == null) {
+            workLists.get(index).add(node);
+            pending.set(index);
+        } else {
+            synchronized (this) {
+                workLists.get(index).add(node);
+                pending.set(index);
+            }
+        }
+    }
+
+    private void doSolve() {
+        if (threads == 1 || components.size() <= 1) {
+            for (int index = pending.nextSetBit(0); index >= 0;
+                 index = pending.nextSetBit(0)) {
+                pending.clear(index);
+                solveComponent(index);
+            }
+        } else {
+            doSolveInParallel();
+        }
+    }
+
+    private void doSolveInParallel() {
+        pool = new ForkJoinPool(threads);
+        try {
+            synchronized (this) {
+                schedule();
+                while (numberOfRunning > 0) {
+                    wait();
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new AnalysisException("Interrupted while solving SCCs", e);
+        } finally {
+            pool.shutdownNow();
+            pool = null;
+        }
+        if (failure instanceof RuntimeException e) {
+            throw e;
+        } else if (failure instanceof Error e) {
+            throw e;
+        } else if (failure != null) {
+            throw new AnalysisException(failure);
+        }
+    }
+
+    /**
+     * Starts all pending SCCs whose adjacent SCCs are not running.
+     * Pending SCCs are examined in scheduling order, so that earlier
+     * SCCs take precedence when adjacent SCCs are pending.
+     * Must be called with the lock of this solver held.
+     */
+    private void schedule() {
+        for (int i = pending.nextSetBit(0); i >= 0; i = pending.nextSetBit(i + 1)) {
+            if (isRunnable(i)) {
+                int index = i;
+                pending.clear(index);
+                running[index] = true;
+                ++numberOfRunning;
+                pool.execute(() -> runComponent(index));
+            }
+        }
+    }
+
+    private boolean isRunnable(int index) {
+        if (running[index]) {
+            return false;
+        }
+        for (int neighbor : neighbors[index]) {
+            if (running[neighbor]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void runComponent(int index) {
+        try {
+            solveComponent(index);
+        } catch (Throwable e) {
+            synchronized (this) {
+                if (failure == null) {
+                    failure = e;
+                }
+            }
+        } finally {
+            synchronized (this) {
+                running[index] = false;
+                --numberOfRunning;
+                if (failure == null) {
+                    schedule();
+                }
+                notifyAll();
+            }
+        }
+    }
+
+    /**
+     * Drives given SCC to a local fixed point.
+     */
+    private void solveComponent(int index) {
+        long start = System.nanoTime();
+        Queue<Node> workList = workLists.get(index);
+        while (!workList.isEmpty()) {
+            Node node = workList.poll();
+            ++iterations[index];
+            if (analysis.isForward()) {
+                processForward(node, index);
+            } else {
+                processBackward(node, index);
+            }
+        }
+        elapsedNanos[index] += System.nanoTime() - start;
+    }
+
+    private void processForward(Node node, int current) {
+        Fact in = result.getInFact(node);
+        for (ICFGEdge<Node> inEdge : icfg.getInEdgesOf(node)) {
+            analysis.meetInto(analysis.transferEdge(inEdge,
+                    result.getOutFact(inEdge.getSource())), in);
+        }
+        if (analysis.transferNode(node, in, result.getOutFact(node))) {
+            icfg.getOutEdgesOf(node).forEach(e -> add(e.getTarget(), current));
+        }
+    }
+
+    private void processBackward(Node node, int current) {
+        Fact out = result.getOutFact(node);
+        for (ICFGEdge<Node> outEdge : icfg.getOutEdgesOf(node)) {
+            analysis.meetInto(analysis.transferEdge(outEdge,
+                    result.getInFact(outEdge.getTarget())), out);
+        }
+        if (analysis.transferNode(node, result.getInFact(node), out)) {
+            icfg.getInEdgesOf(node).forEach(e -> add(e.getSource(), current));
+        }
+    }
+
+    private void logStatistics() {
+        int total = 0;
+        int nonTrivial = 0;
+        for (int i = 0; i < components.size(); ++i) {
+            total += iterations[i];
+            if (components.get(i).size() > 1) {
+                ++nonTrivial;
+                logger.debug("SCC {} ({} methods): {} iterations, {} ms",
+                        i, components.get(i).size(), iterations[i],
+                        elapsedNanos[i] / 1_000_000);
+            }
+        }
+        logger.info("#SCCs: {} (non-trivial: {}), #iterations: {}",
+                components.size(), nonTrivial, total);
+    }
+
+    /**
+     * Statistics of solving an SCC of the call graph.
+     *
+     * @param methods      methods in the SCC
+     * @param iterations   number of node visits in the SCC
+     * @param elapsedNanos time spent on the SCC, in nanoseconds
+     */
+    record ComponentStatistics<Method>(
+            List<Method> methods, int iterations, long elapsedNanos) {
+    }
+}
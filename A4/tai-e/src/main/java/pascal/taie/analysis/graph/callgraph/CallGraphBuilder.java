@@ -55,14 +55,20 @@ public class CallGraphBuilder extends ProgramAnalysis {
 
     @Override
     public CallGraph<Invoke, JMethod> analyze() {
-        CGBuilder<Invoke, JMethod> builder;
-        if (algorithm.equals("cha")) {
-            builder = new CHABuilder();
-        } else {
-            throw new ConfigException("Unknown call graph building algorithm: " + algorithm);
-        }
-        ClassHierarchyImpl.setCheckCHA(true);
+        CGBuilder<Invoke, JMethod> builder = switch (algorithm) {
+            case "cha" -> new CHABuilder();
+            case "rta" -> new RTABuilder();
+            case "vta" -> new VTABuilder();
+            default -> throw new ConfigException(
+                    "Unknown call graph building algorithm: " + algorithm);
+        };
+        // only CHABuilder is checked, and the check walks the stack on
+        // every hierarchy query, which would slow down RTA and VTA
+        ClassHierarchyImpl.setCheckCHA(builder instanceof CHABuilder);
         CallGraph<Invoke, JMethod> callGraph = builder.build();
+        if (getOptions().getBooleanOrDefault("freeze", false)) {
+            callGraph = new FrozenCallGraph<>(callGraph);
+        }
         ClassHierarchyImpl.setCheckCHA(false);
         takeAction(callGraph);
         return callGraph;
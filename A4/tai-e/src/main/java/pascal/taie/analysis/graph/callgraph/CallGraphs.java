@@ -32,13 +32,21 @@ import pascal.taie.ir.exp.InvokeInterface;
 import pascal.taie.ir.exp.InvokeSpecial;
 import pascal.taie.ir.exp.InvokeStatic;
 import pascal.taie.ir.exp.InvokeVirtual;
+import pascal.taie.ir.exp.NewInstance;
+import pascal.taie.ir.proginfo.FieldRef;
+import pascal.taie.ir.stmt.FieldStmt;
 import pascal.taie.ir.stmt.Invoke;
+import pascal.taie.ir.stmt.New;
+import pascal.taie.ir.stmt.Stmt;
+import pascal.taie.language.classes.JClass;
+import pascal.taie.language.classes.JField;
 import pascal.taie.language.classes.JMethod;
 import pascal.taie.util.AnalysisException;
 import pascal.taie.util.IDProvider;
 import pascal.taie.util.MapIDProvider;
 import pascal.taie.util.graph.DotDumper;
 
+import javax.annotation.Nullable;
 import java.io.File;
 import java.util.Map;
 import java.util.stream.Collectors;
@@ -73,6 +81,29 @@ public final class CallGraphs {
         return getCallKind(invoke.getInvokeExp());
     }
 
+    /**
+     * @return the class that the JVM initializes before executing given
+     * statement, i.e., the class instantiated by {@code new}, or the
+     * declaring class of the invoked static method or the accessed static
+     * field, or null if the statement does not trigger class initialization.
+     */
+    static @Nullable JClass getInitializedClass(Stmt stmt) {
+        if (stmt instanceof New newStmt) {
+            return newStmt.getRValue() instanceof NewInstance newInstance
+                    ? newInstance.getType().getJClass()
+                    : null;
+        } else if (stmt instanceof Invoke invoke && invoke.isStatic()) {
+            return invoke.getMethodRef().getDeclaringClass();
+        } else if (stmt instanceof FieldStmt<?, ?> fieldStmt && fieldStmt.isStatic()) {
+            FieldRef fieldRef = fieldStmt.getFieldRef();
+            JField field = fieldRef.resolveNullable();
+            return field != null
+                    ? field.getDeclaringClass()
+                    : fieldRef.getDeclaringClass();
+        }
+        return null;
+    }
+
     /**
      * Dumps call graph to dot file.
      */
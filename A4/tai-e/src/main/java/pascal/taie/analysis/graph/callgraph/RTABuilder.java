@@ -0,0 +1,201 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.graph.callgraph;
+
+import pascal.taie.World;
+import pascal.taie.ir.exp.NewExp;
+import pascal.taie.ir.exp.NewInstance;
+import pascal.taie.ir.proginfo.ExceptionEntry;
+import pascal.taie.ir.proginfo.MethodRef;
+import pascal.taie.ir.stmt.AssignLiteral;
+import pascal.taie.ir.stmt.Invoke;
+import pascal.taie.ir.stmt.New;
+import pascal.taie.ir.stmt.Stmt;
+import pascal.taie.language.classes.ClassHierarchy;
+import pascal.taie.language.classes.JClass;
+import pascal.taie.language.classes.JMethod;
+import pascal.taie.language.type.ClassType;
+import pascal.taie.util.collection.Maps;
+import pascal.taie.util.collection.MultiMap;
+import pascal.taie.util.collection.Sets;
+
+import java.util.ArrayDeque;
+import java.util.Queue;
+import java.util.Set;
+
+/**
+ * Implementation of the RTA (rapid type analysis) algorithm.
+ * <p>
+ * RTA resolves virtual calls like CHA, but only to the classes that are
+ * instantiated in reachable methods. The set of instantiated classes
+ * grows as new reachable methods are discovered, and each newly
+ * instantiated class is dispatched on the virtual call sites that
+ * have been found so far and whose declaring classes are its supertypes.
+ * <p>
+ * The static initializer of a class (and of its superclasses) becomes
+ * reachable when the class is first referenced by {@code new}, a static
+ * call or a static field access in a reachable method. Exceptions raised
+ * implicitly by the JVM are approximated by instantiating the concrete
+ * exception types caught in reachable methods.
+ */
+class RTABuilder implements CGBuilder<Invoke, JMethod> {
+
+    private ClassHierarchy hierarchy;
+
+    private DefaultCallGraph callGraph;
+
+    private final Queue<JMethod> workList = new ArrayDeque<>();
+
+    /**
+     * Classes instantiated in the reachable methods.
+     */
+    private final Set<JClass> instantiatedClasses = Sets.newSet();
+
+    /**
+     * Classes whose static initializers have been made reachable.
+     */
+    private final Set<JClass> initializedClasses = Sets.newSet();
+
+    /**
+     * Declaring class of method reference -> virtual call sites
+     * in the reachable methods.
+     */
+    private final MultiMap<JClass, Invoke> virtualCallSites = Maps.newMultiMap();
+
+    @Override
+    public CallGraph<Invoke, JMethod> build() {
+        hierarchy = World.get().getClassHierarchy();
+        callGraph = new DefaultCallGraph();
+        JMethod entry = World.get().getMainMethod();
+        callGraph.addEntryMethod(entry);
+        // the JVM instantiates the arguments of the main method
+        instantiate(hierarchy.getJREClass("java.lang.String"));
+        initialize(entry.getDeclaringClass());
+        workList.add(entry);
+        while (!workList.isEmpty()) {
+            JMethod method = workList.poll();
+            if (callGraph.addReachableMethod(method) && !method.isAbstract()) {
+                processNewMethod(method);
+            }
+        }
+        return callGraph;
+    }
+
+    private void processNewMethod(JMethod method) {
+        for (ExceptionEntry entry : method.getIR().getExceptionEntries()) {
+            JClass exceptionClass = entry.catchType().getJClass();
+            if (exceptionClass != null && !exceptionClass.isAbstract()) {
+                instantiate(exceptionClass);
+            }
+        }
+        for (Stmt stmt : method.getIR()) {
+            initialize(CallGraphs.getInitializedClass(stmt));
+            if (stmt instanceof New newStmt) {
+                NewExp newExp = newStmt.getRValue();
+                if (newExp instanceof NewInstance newInstance) {
+                    instantiate(newInstance.getType().getJClass());
+                } else {
+                    // methods invoked on arrays are dispatched to Object
+                    instantiate(hierarchy.getJREClass("java.lang.Object"));
+                }
+            } else if (stmt instanceof AssignLiteral assign &&
+                    assign.getRValue().getType() instanceof ClassType type) {
+                // string and class constants
+                instantiate(type.getJClass());
+            } else if (stmt instanceof Invoke callSite) {
+                processCallSite(callSite);
+            }
+        }
+    }
+
+    private void processCallSite(Invoke callSite) {
+        MethodRef methodRef = callSite.getMethodRef();
+        JClass declaringClass = methodRef.getDeclaringClass();
+        switch (CallGraphs.getCallKind(callSite)) {
+            case STATIC -> addEdge(callSite, declaringClass
+                    .getDeclaredMethod(methodRef.getSubsignature()));
+            case SPECIAL -> addEdge(callSite, hierarchy.dispatch(
+                    declaringClass, methodRef.getSubsignature()));
+            case VIRTUAL, INTERFACE -> {
+                virtualCallSites.put(declaringClass, callSite);
+                for (JClass subclass : hierarchy.getAllSubclassesOf(declaringClass, true)) {
+                    if (instantiatedClasses.contains(subclass)) {
+                        addEdge(callSite, hierarchy.dispatch(
+                                subclass, methodRef.getSubsignature()));
+                    }
+                }
+            }
+            default -> {
+                // invokedynamic is not handled by RTA
+            }
+        }
+    }
+
+    /**
+     * Marks given class as instantiated, and dispatches it on the known
+     * virtual call sites whose declaring classes are its supertypes.
+     */
+    private void instantiate(JClass jclass) {
+        if (jclass == null || !instantiatedClasses.add(jclass)) {
+            return;
+        }
+        Set<JClass> visited = Sets.newSet();
+        Queue<JClass> supertypes = new ArrayDeque<>();
+        supertypes.add(jclass);
+        while (!supertypes.isEmpty()) {
+            JClass supertype = supertypes.poll();
+            if (!visited.add(supertype)) {
+                continue;
+            }
+            for (Invoke callSite : virtualCallSites.get(supertype)) {
+                addEdge(callSite, hierarchy.dispatch(jclass,
+                        callSite.getMethodRef().getSubsignature()));
+            }
+            if (supertype.getSuperClass() != null) {
+                supertypes.add(supertype.getSuperClass());
+            }
+            supertypes.addAll(supertype.getInterfaces());
+        }
+    }
+
+    /**
+     * Makes the static initializers of given class and its superclasses
+     * reachable, as the JVM initializes the superclasses of a class first.
+     */
+    private void initialize(JClass jclass) {
+        for (JClass c = jclass; c != null && initializedClasses.add(c);
+             c = c.getSuperClass()) {
+            JMethod clinit = c.getClinit();
+            if (clinit != null) {
+                workList.add(clinit);
+            }
+        }
+    }
+
+    private void addEdge(Invoke callSite, JMethod callee) {
+        if (callee != null && callGraph.addEdge(new Edge<>(
+                CallGraphs.getCallKind(callSite), callSite, callee))) {
+            workList.add(callee);
+        }
+    }
+}
@@ -0,0 +1,374 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.graph.callgraph;
+
+import pascal.taie.World;
+import pascal.taie.ir.IR;
+import pascal.taie.ir.exp.InvokeInstanceExp;
+import pascal.taie.ir.exp.NewInstance;
+import pascal.taie.ir.exp.Var;
+import pascal.taie.ir.proginfo.ExceptionEntry;
+import pascal.taie.ir.proginfo.FieldRef;
+import pascal.taie.ir.stmt.AssignLiteral;
+import pascal.taie.ir.stmt.Cast;
+import pascal.taie.ir.stmt.Copy;
+import pascal.taie.ir.stmt.Invoke;
+import pascal.taie.ir.stmt.LoadArray;
+import pascal.taie.ir.stmt.LoadField;
+import pascal.taie.ir.stmt.New;
+import pascal.taie.ir.stmt.Stmt;
+import pascal.taie.ir.stmt.StoreArray;
+import pascal.taie.ir.stmt.StoreField;
+import pascal.taie.ir.stmt.Throw;
+import pascal.taie.language.classes.ClassHierarchy;
+import pascal.taie.language.classes.JClass;
+import pascal.taie.language.classes.JField;
+import pascal.taie.language.classes.JMethod;
+import pascal.taie.language.type.ClassType;
+import pascal.taie.language.type.ReferenceType;
+import pascal.taie.language.type.Type;
+import pascal.taie.util.collection.Maps;
+import pascal.taie.util.collection.MultiMap;
+import pascal.taie.util.collection.Sets;
+
+import javax.annotation.Nullable;
+import java.util.ArrayDeque;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+
+/**
+ * Implementation of the VTA (variable type analysis) algorithm.
+ * <p>
+ * VTA propagates the instantiated classes along the assignments of the
+ * reachable methods, and resolves a virtual call to the classes that
+ * reach its receiver variable. Unlike pointer analysis, it does not model
+ * heap objects: each field is a single node for all its base objects
+ * (field-based), and all array elements share a single node. The call
+ * graph is built on the fly, i.e., the flows of arguments and return
+ * values are added as call edges are discovered.
+ * <p>
+ * Thrown exceptions flow into a single node, from which they reach the
+ * catch variables of the handlers that catch their types. Exceptions
+ * raised implicitly by the JVM are approximated by seeding each catch
+ * variable with its concrete caught type. As in RTA, the static
+ * initializer of a class becomes reachable when the class is first
+ * referenced by {@code new}, a static call or a static field access.
+ */
+class VTABuilder implements CGBuilder<Invoke, JMethod> {
+
+    /**
+     * The node that represents the elements of all arrays.
+     */
+    private static final Object ARRAY_ELEMENTS = new Object() {
+        @Override
+        public String toString() {
+            return "<array-elements>";
+        }
+    };
+
+    /**
+     * The node that represents the exceptions thrown in all methods.
+     */
+    private static final Object EXCEPTIONS = new Object() {
+        @Override
+        public String toString() {
+            return "<exceptions>";
+        }
+    };
+
+    private ClassHierarchy hierarchy;
+
+    private DefaultCallGraph callGraph;
+
+    private JClass javaLangObject;
+
+    /**
+     * Node (variable, field or {@link #ARRAY_ELEMENTS}) -> classes
+     * that reach the node.
+     */
+    private final Map<Object, Set<JClass>> types = Maps.newMap();
+
+    /**
+     * Node -> flows out of the node.
+     */
+    private final MultiMap<Object, Flow> flows = Maps.newMultiMap();
+
+    /**
+     * Receiver variable -> virtual call sites on the variable.
+     */
+    private final MultiMap<Var, Invoke> receivers = Maps.newMultiMap();
+
+    /**
+     * Classes whose static initializers have been made reachable.
+     */
+    private final Set<JClass> initializedClasses = Sets.newSet();
+
+    /**
+     * Methods to be made reachable.
+     */
+    private final Queue<JMethod> methodWorkList = new ArrayDeque<>();
+
+    private final Queue<Entry> workList = new ArrayDeque<>();
+
+    /**
+     * A flow of classes to given target, which only lets through the
+     * subtypes of given filter class if the filter is not null.
+     */
+    private record Flow(Object target, @Nullable JClass filter) {
+    }
+
+    private record Entry(Object node, Set<JClass> types) {
+    }
+
+    @Override
+    public CallGraph<Invoke, JMethod> build() {
+        hierarchy = World.get().getClassHierarchy();
+        javaLangObject = hierarchy.getJREClass("java.lang.Object");
+        callGraph = new DefaultCallGraph();
+        JMethod entry = World.get().getMainMethod();
+        callGraph.addEntryMethod(entry);
+        initialize(entry.getDeclaringClass());
+        methodWorkList.add(entry);
+        // the JVM instantiates the arguments of the main method
+        JClass string = hierarchy.getJREClass("java.lang.String");
+        if (string != null && !entry.getIR().getParams().isEmpty()) {
+            addTypes(ARRAY_ELEMENTS, Set.of(string));
+            addTypes(entry.getIR().getParam(0), Set.of(javaLangObject));
+        }
+        while (!methodWorkList.isEmpty() || !workList.isEmpty()) {
+            // process new methods first, so that their flows are
+            // in place before the classes are propagated
+            while (!methodWorkList.isEmpty()) {
+                JMethod method = methodWorkList.poll();
+                if (callGraph.addReachableMethod(method) && !method.isAbstract()) {
+                    processNewMethod(method);
+                }
+            }
+            if (!workList.isEmpty()) {
+                Entry next = workList.poll();
+                propagate(next.node(), next.types());
+            }
+        }
+        return callGraph;
+    }
+
+    private void processNewMethod(JMethod method) {
+        for (ExceptionEntry entry : method.getIR().getExceptionEntries()) {
+            Var catchVar = entry.handler().getExceptionRef();
+            JClass exceptionClass = entry.catchType().getJClass();
+            // if the caught class cannot be resolved, all exceptions
+            // flow to the catch variable
+            addFlow(EXCEPTIONS, catchVar, exceptionClass);
+            if (exceptionClass != null && !exceptionClass.isAbstract()) {
+                addTypes(catchVar, Set.of(exceptionClass));
+            }
+        }
+        for (Stmt stmt : method.getIR()) {
+            initialize(CallGraphs.getInitializedClass(stmt));
+            if (stmt instanceof New newStmt) {
+                JClass jclass = newStmt.getRValue() instanceof NewInstance newInstance
+                        ? newInstance.getType().getJClass()
+                        // methods invoked on arrays are dispatched to Object
+                        : javaLangObject;
+                addTypes(newStmt.getLValue(), Set.of(jclass));
+            } else if (stmt instanceof AssignLiteral assign &&
+                    assign.getRValue().getType() instanceof ClassType type) {
+                // string and class constants
+                addTypes(assign.getLValue(), Set.of(type.getJClass()));
+            } else if (stmt instanceof Copy copy) {
+                addFlow(copy.getRValue(), copy.getLValue(), null);
+            } else if (stmt instanceof Cast cast) {
+                Type castType = cast.getRValue().getCastType();
+                addFlow(cast.getRValue().getValue(), cast.getLValue(),
+                        castType instanceof ClassType classType
+                                ? classType.getJClass() : null);
+            } else if (stmt instanceof LoadField load) {
+                addFlow(getFieldNode(load.getFieldRef()), load.getLValue(), null);
+            } else if (stmt instanceof StoreField store) {
+                addFlow(store.getRValue(), getFieldNode(store.getFieldRef()), null);
+            } else if (stmt instanceof LoadArray load) {
+                addFlow(ARRAY_ELEMENTS, load.getLValue(), null);
+            } else if (stmt instanceof StoreArray store) {
+                addFlow(store.getRValue(), ARRAY_ELEMENTS, null);
+            } else if (stmt instanceof Throw throwStmt) {
+                addFlow(throwStmt.getExceptionRef(), EXCEPTIONS, null);
+            } else if (stmt instanceof Invoke callSite) {
+                processCallSite(callSite);
+            }
+        }
+    }
+
+    /**
+     * Makes the static initializers of given class and its superclasses
+     * reachable, as the JVM initializes the superclasses of a class first.
+     */
+    private void initialize(JClass jclass) {
+        for (JClass c = jclass; c != null && initializedClasses.add(c);
+             c = c.getSuperClass()) {
+            JMethod clinit = c.getClinit();
+            if (clinit != null) {
+                methodWorkList.add(clinit);
+            }
+        }
+    }
+
+    private static Object getFieldNode(FieldRef fieldRef) {
+        Object field = fieldRef.resolveNullable();
+        return field != null ? field : fieldRef;
+    }
+
+    private void processCallSite(Invoke callSite) {
+        JClass declaringClass = callSite.getMethodRef().getDeclaringClass();
+        switch (CallGraphs.getCallKind(callSite)) {
+            case STATIC -> addCallEdge(callSite, declaringClass
+                    .getDeclaredMethod(callSite.getMethodRef().getSubsignature()));
+            case SPECIAL -> {
+                JMethod callee = hierarchy.dispatch(declaringClass,
+                        callSite.getMethodRef().getSubsignature());
+                if (addCallEdge(callSite, callee) && !callee.isAbstract()) {
+                    addFlow(((InvokeInstanceExp) callSite.getInvokeExp()).getBase(),
+                            callee.getIR().getThis(), null);
+                }
+            }
+            case VIRTUAL, INTERFACE -> {
+                Var base = ((InvokeInstanceExp) callSite.getInvokeExp()).getBase();
+                receivers.put(base, callSite);
+                Set<JClass> baseTypes = types.get(base);
+                if (baseTypes != null) {
+                    dispatch(callSite, Set.copyOf(baseTypes));
+                }
+            }
+            default -> {
+                // invokedynamic is not handled by VTA
+            }
+        }
+    }
+
+    /**
+     * Dispatches given classes on a virtual call site, and passes
+     * each class to the this variable of the corresponding callee.
+     */
+    private void dispatch(Invoke callSite, Set<JClass> receiverTypes) {
+        for (JClass type : receiverTypes) {
+            JMethod callee = hierarchy.dispatch(type,
+                    callSite.getMethodRef().getSubsignature());
+            if (callee != null) {
+                addCallEdge(callSite, callee);
+                if (!callee.isAbstract()) {
+                    addTypes(callee.getIR().getThis(), Set.of(type));
+                }
+            }
+        }
+    }
+
+    /**
+     * Adds a call edge, and the flows of arguments and return values
+     * if the edge is new.
+     *
+     * @return true if the call graph changed as a result of the call.
+     */
+    private boolean addCallEdge(Invoke callSite, JMethod callee) {
+        if (callee == null || !callGraph.addEdge(new Edge<>(
+                CallGraphs.getCallKind(callSite), callSite, callee))) {
+            return false;
+        }
+        methodWorkList.add(callee);
+        if (!callee.isAbstract()) {
+            IR ir = callee.getIR();
+            List<Var> args = callSite.getInvokeExp().getArgs();
+            for (int i = 0; i < args.size(); ++i) {
+                addFlow(args.get(i), ir.getParam(i), null);
+            }
+            Var result = callSite.getResult();
+            if (result != null) {
+                ir.getReturnVars().forEach(ret -> addFlow(ret, result, null));
+            }
+        }
+        return true;
+    }
+
+    private void addFlow(Object source, Object target, @Nullable JClass filter) {
+        if (!isReference(source) || !isReference(target)) {
+            return;
+        }
+        Flow flow = new Flow(target, filter);
+        if (flows.put(source, flow)) {
+            Set<JClass> sourceTypes = types.get(source);
+            if (sourceTypes != null) {
+                addTypes(target, filter(sourceTypes, filter));
+            }
+        }
+    }
+
+    private static boolean isReference(Object node) {
+        if (node instanceof Var var) {
+            return var.getType() instanceof ReferenceType;
+        } else if (node instanceof JField field) {
+            return field.getType() instanceof ReferenceType;
+        } else if (node instanceof FieldRef fieldRef) {
+            return fieldRef.getType() instanceof ReferenceType;
+        } else {
+            return true;
+        }
+    }
+
+    private void addTypes(Object node, Set<JClass> newTypes) {
+        if (!newTypes.isEmpty()) {
+            workList.add(new Entry(node, newTypes));
+        }
+    }
+
+    private void propagate(Object node, Set<JClass> newTypes) {
+        Set<JClass> nodeTypes = types.computeIfAbsent(node, __ -> Sets.newHybridSet());
+        Set<JClass> diff = Sets.newHybridSet();
+        for (JClass type : newTypes) {
+            if (nodeTypes.add(type)) {
+                diff.add(type);
+            }
+        }
+        if (diff.isEmpty()) {
+            return;
+        }
+        for (Flow flow : flows.get(node)) {
+            addTypes(flow.target(), filter(diff, flow.filter()));
+        }
+        if (node instanceof Var var) {
+            receivers.get(var).forEach(callSite -> dispatch(callSite, diff));
+        }
+    }
+
+    private Set<JClass> filter(Set<JClass> classes, @Nullable JClass filter) {
+        if (filter == null) {
+            return classes;
+        }
+        Set<JClass> result = Sets.newHybridSet();
+        for (JClass jclass : classes) {
+            if (hierarchy.isSubclass(filter, jclass)) {
+                result.add(jclass);
+            }
+        }
+        return result;
+    }
+}
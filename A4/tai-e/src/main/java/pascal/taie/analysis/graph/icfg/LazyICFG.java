@@ -0,0 +1,335 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.graph.icfg;
+
+import pascal.taie.analysis.exception.ThrowAnalysis;
+import pascal.taie.analysis.graph.callgraph.CallGraph;
+import pascal.taie.analysis.graph.cfg.CFG;
+import pascal.taie.analysis.graph.cfg.CFGBuilder;
+import pascal.taie.analysis.graph.cfg.Edge;
+import pascal.taie.config.AnalysisConfig;
+import pascal.taie.ir.IR;
+import pascal.taie.ir.exp.Var;
+import pascal.taie.ir.stmt.Invoke;
+import pascal.taie.ir.stmt.Return;
+import pascal.taie.ir.stmt.Stmt;
+import pascal.taie.language.classes.JMethod;
+import pascal.taie.language.type.ClassType;
+import pascal.taie.util.AnalysisException;
+import pascal.taie.util.collection.Maps;
+import pascal.taie.util.collection.MultiMap;
+import pascal.taie.util.collection.Sets;
+import pascal.taie.util.collection.Views;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * An ICFG that is built on demand. The CFG of a method is obtained
+ * (and built, if the IR does not hold it yet) only when one of its nodes
+ * is first queried, and the ICFG edges of a method, i.e., its intra-procedural
+ * edges, the call/return edges of its call sites, and the call/return edges
+ * of its entry/exit, are built when the solver first asks for the in/out
+ * edges of one of its nodes.
+ * <p>
+ * The edges are kept in a bounded cache: when more than
+ * {@code maxCachedMethods} methods are cached, the edges of the least
+ * recently queried method are evicted, and rebuilt if that method is
+ * queried again. The CFGs themselves are never evicted, as the facts
+ * of the solver are keyed by their nodes.
+ * <p>
+ * The containing method of a call site is found through the call graph,
+ * which obtains the CFG of that method only. Other nodes are known only
+ * after the CFGs of their methods have been obtained, e.g., through
+ * {@link #getEntryOf(JMethod)} or {@link #getExitOf(JMethod)}, or by
+ * traversing edges from such nodes, thus
+ * {@link #getContainingMethodOf(Stmt)} and the edge queries reject
+ * nodes of other methods.
+ * <p>
+ * Note that {@link #getNodes()} (and hence iterating over the ICFG)
+ * and {@link #hasNode(Stmt)} of an unknown node obtain the CFGs of all
+ * reachable methods. The whole-program solvers
+ * iterate over all nodes to initialize their facts, so with them every
+ * CFG is still built up front, and only the ICFG edges are built lazily.
+ * Moreover, they query the edges of all methods in every round, so a
+ * {@code maxCachedMethods} below the number of reachable methods makes
+ * them rebuild evicted edges repeatedly. Only {@code DemandSolver},
+ * which explores just the nodes that a query depends on, avoids
+ * building the CFGs of unrelated methods.
+ */
+public class LazyICFG extends AbstractICFG<JMethod, Stmt> {
+
+    private final CFGBuilder cfgBuilder = new CFGBuilder(new AnalysisConfig(
+            CFGBuilder.ID, "exception", "explicit", "dump", false));
+
+    private final ThrowAnalysis throwAnalysis = new ThrowAnalysis(new AnalysisConfig(
+            ThrowAnalysis.ID, "exception", "explicit", "algorithm", "intra"));
+
+    /**
+     * Maps each node to its containing method. Nodes are registered
+     * when the CFG of their method is obtained.
+     */
+    private final Map<Stmt, JMethod> stmtToMethod = new LinkedHashMap<>();
+
+    private final Map<JMethod, CFG<Stmt>> cfgs = Maps.newMap();
+
+    private final Map<JMethod, MethodEdges> edges;
+
+    /**
+     * Whether the CFGs of all reachable methods have been obtained.
+     */
+    private boolean complete = false;
+
+    /**
+     * @param maxCachedMethods maximum number of methods whose edges are
+     *                         cached, or a non-positive number for no limit.
+     */
+    public LazyICFG(CallGraph<Stmt, JMethod> callGraph, int maxCachedMethods) {
+        super(callGraph);
+        edges = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<JMethod, MethodEdges> eldest) {
+                return maxCachedMethods > 0 && size() > maxCachedMethods;
+            }
+        };
+    }
+
+    @Override
+    public synchronized Set<ICFGEdge<Stmt>> getInEdgesOf(Stmt stmt) {
+        return getEdgesOf(getContainingMethodOf(stmt)).inEdges.get(stmt);
+    }
+
+    @Override
+    public synchronized Set<ICFGEdge<Stmt>> getOutEdgesOf(Stmt stmt) {
+        return getEdgesOf(getContainingMethodOf(stmt)).outEdges.get(stmt);
+    }
+
+    @Override
+    public synchronized Stmt getEntryOf(JMethod method) {
+        return getCFGOf(method).getEntry();
+    }
+
+    @Override
+    public synchronized Stmt getExitOf(JMethod method) {
+        return getCFGOf(method).getExit();
+    }
+
+    @Override
+    public synchronized Set<Stmt> getReturnSitesOf(Stmt callSite) {
+        assert isCallSite(callSite);
+        return getCFGOf(callGraph.getContainerOf(callSite)).getSuccsOf(callSite);
+    }
+
+    /**
+     * @throws AnalysisException if the node is neither a call site in
+     *                           a reachable method nor a node of a method
+     *                           whose CFG has been obtained.
+     */
+    @Override
+    public synchronized JMethod getContainingMethodOf(Stmt stmt) {
+        JMethod method = findContainingMethodOf(stmt);
+        if (method == null) {
+            throw new AnalysisException(stmt + " is not a node of the methods" +
+                    " obtained so far, query the entry or exit of its method first");
+        }
+        return method;
+    }
+
+    /**
+     * @return the containing method of given node, or null if the node
+     * is not known yet.
+     */
+    private JMethod findContainingMethodOf(Stmt stmt) {
+        JMethod method = stmtToMethod.get(stmt);
+        if (method == null && isCallSite(stmt)) {
+            JMethod container = callGraph.getContainerOf(stmt);
+            if (container != null && callGraph.contains(container)) {
+                getCFGOf(container);
+                method = stmtToMethod.get(stmt);
+            }
+        }
+        return method;
+    }
+
+    @Override
+    public boolean isCallSite(Stmt stmt) {
+        return stmt instanceof Invoke;
+    }
+
+    @Override
+    public synchronized boolean hasNode(Stmt stmt) {
+        if (findContainingMethodOf(stmt) == null && !complete) {
+            obtainAllCFGs();
+        }
+        return stmtToMethod.containsKey(stmt);
+    }
+
+    @Override
+    public boolean hasEdge(Stmt source, Stmt target) {
+        return getOutEdgesOf(source)
+                .stream()
+                .anyMatch(edge -> edge.getTarget().equals(target));
+    }
+
+    @Override
+    public Set<Stmt> getPredsOf(Stmt stmt) {
+        return Views.toMappedSet(getInEdgesOf(stmt), ICFGEdge::getSource);
+    }
+
+    @Override
+    public Set<Stmt> getSuccsOf(Stmt stmt) {
+        return Views.toMappedSet(getOutEdgesOf(stmt), ICFGEdge::getTarget);
+    }
+
+    @Override
+    public synchronized Set<Stmt> getNodes() {
+        obtainAllCFGs();
+        return Collections.unmodifiableSet(stmtToMethod.keySet());
+    }
+
+    private void obtainAllCFGs() {
+        if (!complete) {
+            callGraph.reachableMethods().forEach(this::getCFGOf);
+            complete = true;
+        }
+    }
+
+    private CFG<Stmt> getCFGOf(JMethod method) {
+        CFG<Stmt> cfg = cfgs.get(method);
+        if (cfg == null) {
+            IR ir = method.getIR();
+            cfg = ir.getResult(CFGBuilder.ID);
+            if (cfg == null) {
+                if (ir.getResult(ThrowAnalysis.ID) == null) {
+                    ir.storeResult(ThrowAnalysis.ID, throwAnalysis.analyze(ir));
+                }
+                cfg = cfgBuilder.analyze(ir);
+                ir.storeResult(CFGBuilder.ID, cfg);
+            }
+            cfg.forEach(stmt -> stmtToMethod.put(stmt, method));
+            cfgs.put(method, cfg);
+        }
+        return cfg;
+    }
+
+    private MethodEdges getEdgesOf(JMethod method) {
+        MethodEdges methodEdges = edges.get(method);
+        if (methodEdges == null) {
+            methodEdges = buildEdges(method);
+            edges.put(method, methodEdges);
+        }
+        return methodEdges;
+    }
+
+    /**
+     * Builds all ICFG edges that start or end at nodes of the given method.
+     * The call/return edges between a caller and a callee are built
+     * separately for the caller (as out edges of its call sites and in edges
+     * of its return sites) and for the callee (as in edges of its entry and
+     * out edges of its exit).
+     */
+    private MethodEdges buildEdges(JMethod method) {
+        CFG<Stmt> cfg = getCFGOf(method);
+        MethodEdges methodEdges = new MethodEdges();
+        cfg.forEach(stmt -> {
+            boolean isCallSite = isCallSite(stmt);
+            cfg.getOutEdgesOf(stmt).forEach(edge -> {
+                ICFGEdge<Stmt> local = isCallSite ?
+                        new CallToReturnEdge<>(edge) :
+                        new NormalEdge<>(edge);
+                methodEdges.addEdge(local);
+            });
+            if (isCallSite) {
+                getCalleesOf(stmt).forEach(callee -> {
+                    methodEdges.addOutEdge(
+                            new CallEdge<>(stmt, getEntryOf(callee), callee));
+                    Returns returns = getReturnsOf(callee);
+                    Stmt exit = getExitOf(callee);
+                    cfg.getSuccsOf(stmt).forEach(retSite ->
+                            methodEdges.addInEdge(new ReturnEdge<>(exit, retSite,
+                                    stmt, returns.vars(), returns.exceptions())));
+                });
+            }
+        });
+        Stmt entry = cfg.getEntry();
+        Stmt exit = cfg.getExit();
+        Returns returns = getReturnsOf(method);
+        getCallersOf(method).forEach(callSite -> {
+            methodEdges.addInEdge(new CallEdge<>(callSite, entry, method));
+            getReturnSitesOf(callSite).forEach(retSite ->
+                    methodEdges.addOutEdge(new ReturnEdge<>(exit, retSite,
+                            callSite, returns.vars(), returns.exceptions())));
+        });
+        return methodEdges;
+    }
+
+    /**
+     * Collects the returned variables and the exceptions that may be
+     * thrown out of the given method.
+     */
+    private Returns getReturnsOf(JMethod method) {
+        CFG<Stmt> cfg = getCFGOf(method);
+        Set<Var> vars = Sets.newHybridSet();
+        Set<ClassType> exceptions = Sets.newHybridSet();
+        cfg.getInEdgesOf(cfg.getExit()).forEach(edge -> {
+            if (edge.getKind() == Edge.Kind.RETURN) {
+                Var var = ((Return) edge.getSource()).getValue();
+                if (var != null) {
+                    vars.add(var);
+                }
+            }
+            if (edge.isExceptional()) {
+                exceptions.addAll(edge.getExceptions());
+            }
+        });
+        return new Returns(vars, exceptions);
+    }
+
+    private record Returns(Set<Var> vars, Set<ClassType> exceptions) {
+    }
+
+    /**
+     * ICFG edges that start or end at nodes of a method.
+     */
+    private static class MethodEdges {
+
+        private final MultiMap<Stmt, ICFGEdge<Stmt>> inEdges = Maps.newMultiMap();
+
+        private final MultiMap<Stmt, ICFGEdge<Stmt>> outEdges = Maps.newMultiMap();
+
+        private void addEdge(ICFGEdge<Stmt> edge) {
+            addOutEdge(edge);
+            addInEdge(edge);
+        }
+
+        private void addOutEdge(ICFGEdge<Stmt> edge) {
+            outEdges.put(edge.getSource(), edge);
+        }
+
+        private void addInEdge(ICFGEdge<Stmt> edge) {
+            inEdges.put(edge.getTarget(), edge);
+        }
+    }
+}
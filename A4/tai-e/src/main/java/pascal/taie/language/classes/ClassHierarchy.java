@@ -75,6 +75,32 @@ public interface ClassHierarchy {
      */
     Collection<JClass> getDirectSubclassesOf(JClass jclass);
 
+    /**
+     * @return true if {@code subclass} is {@code superclass} or a direct
+     * or indirect subtype (subclass, subinterface or implementor) of
+     * {@code superclass}, otherwise false.
+     */
+    boolean isSubclass(JClass superclass, JClass subclass);
+
+    /**
+     * @param selfInclude whether the result contains given class itself.
+     * @return all direct and indirect subtypes of given class, i.e.,
+     * subclasses for a class, and subinterfaces, implementors and their
+     * subclasses for an interface.
+     */
+    Collection<JClass> getAllSubclassesOf(JClass jclass, boolean selfInclude);
+
+    /**
+     * Looks up the target of a virtual dispatch, i.e., the first non-abstract
+     * method with given subsignature that is declared by given class or
+     * its superclasses.
+     *
+     * @return the dispatched target method, or null if no satisfying method
+     * can be found.
+     */
+    @Nullable
+    JMethod dispatch(JClass jclass, Subsignature subsignature);
+
     /**
      * Obtains a JRE class by it name.
      *
@@ -26,17 +26,24 @@ import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import pascal.taie.ir.proginfo.MethodRef;
 import pascal.taie.util.AnalysisException;
+import pascal.taie.util.collection.Views;
 
 import javax.annotation.Nullable;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.Map;
+import java.util.Queue;
 import java.util.Set;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
+import static pascal.taie.util.collection.Maps.newConcurrentMap;
 import static pascal.taie.util.collection.Maps.newMap;
 import static pascal.taie.util.collection.Maps.newSmallMap;
 import static pascal.taie.util.collection.Sets.newHybridSet;
+import static pascal.taie.util.collection.Sets.newSet;
 
 public class ClassHierarchyImpl implements ClassHierarchy {
 
@@ -65,6 +72,26 @@ public class ClassHierarchyImpl implements ClassHierarchy {
      */
     private final Map<JClass, Set<JClass>> directSubclasses = newMap();
 
+    /**
+     * Numbering of the current class hierarchy for subtype queries,
+     * which is built lazily and discarded when a class is added.
+     */
+    private volatile ClassNumbering numbering;
+
+    /**
+     * Map from each interface to all its subtypes (including itself),
+     * which is computed lazily and replaced by an empty map when a class
+     * is added, so that results computed on the old hierarchy only land
+     * in the discarded map.
+     */
+    private volatile Map<JClass, Set<JClass>> allSubclasses = newConcurrentMap();
+
+    /**
+     * Memoized results of {@link #dispatch(JClass, Subsignature)}.
+     * Only found targets are cached, since failed dispatches are rare.
+     */
+    private final Map<JClass, Map<Subsignature, JMethod>> dispatchTable = newConcurrentMap();
+
     @Override
     public void setDefaultClassLoader(JClassLoader loader) {
         this.defaultLoader = loader;
@@ -96,7 +123,7 @@ public class ClassHierarchyImpl implements ClassHierarchy {
     }
 
     @Override
-    public void addClass(JClass jclass) {
+    public synchronized void addClass(JClass jclass) {
         // Add direct subinterface
         if (jclass.isInterface()) {
             jclass.getInterfaces().forEach(iface ->
@@ -117,6 +144,11 @@ public class ClassHierarchyImpl implements ClassHierarchy {
                         .add(jclass);
             }
         }
+        // new class may be a subtype of any numbered or cached class.
+        // This method holds the lock of getNumbering(), so a numbering
+        // built without the new class is never published after the reset.
+        numbering = null;
+        allSubclasses = newConcurrentMap();
     }
 
     @Override
@@ -160,19 +192,118 @@ public class ClassHierarchyImpl implements ClassHierarchy {
         return directSubclasses.getOrDefault(jclass, Set.of());
     }
 
+    private ClassNumbering getNumbering() {
+        ClassNumbering result = numbering;
+        if (result == null) {
+            synchronized (this) {
+                result = numbering;
+                if (result == null) {
+                    result = new ClassNumbering(
+                            allClasses().collect(Collectors.toSet()),
+                            directSubclasses);
+                    numbering = result;
+                }
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public boolean isSubclass(JClass superclass, JClass subclass) {
+        checkCHA("isSubclass(JClass, JClass)");
+        ClassNumbering numbering = getNumbering();
+        if (numbering.contains(superclass) && numbering.contains(subclass)) {
+            return numbering.isSubclass(superclass, subclass);
+        }
+        return superclass == subclass ||
+                lookupAllSubclasses(superclass, true).contains(subclass);
+    }
+
+    @Override
+    public Collection<JClass> getAllSubclassesOf(JClass jclass, boolean selfInclude) {
+        checkCHA("getAllSubclassesOf(JClass, boolean)");
+        return lookupAllSubclasses(jclass, selfInclude);
+    }
+
+    private Collection<JClass> lookupAllSubclasses(JClass jclass, boolean selfInclude) {
+        if (!jclass.isInterface()) {
+            ClassNumbering numbering = getNumbering();
+            if (numbering.contains(jclass)) {
+                return numbering.getSubclassesOf(jclass, selfInclude);
+            }
+        }
+        Set<JClass> subclasses = allSubclasses.computeIfAbsent(
+                jclass, this::computeAllSubclasses);
+        return selfInclude ? subclasses :
+                Views.toFilteredCollection(subclasses, c -> c != jclass);
+    }
+
+    private Set<JClass> computeAllSubclasses(JClass jclass) {
+        Set<JClass> subclasses = newSet();
+        Queue<JClass> workList = new ArrayDeque<>();
+        subclasses.add(jclass);
+        workList.add(jclass);
+        while (!workList.isEmpty()) {
+            JClass c = workList.poll();
+            Collection<JClass> directs;
+            if (c.isInterface()) {
+                directs = new ArrayList<>(getDirectSubinterfacesOf(c));
+                directs.addAll(getDirectImplementorsOf(c));
+            } else {
+                directs = getDirectSubclassesOf(c);
+            }
+            for (JClass sub : directs) {
+                if (subclasses.add(sub)) {
+                    workList.add(sub);
+                }
+            }
+        }
+        return Collections.unmodifiableSet(subclasses);
+    }
+
+    @Override
+    public @Nullable
+    JMethod dispatch(JClass jclass, Subsignature subsignature) {
+        checkCHA("dispatch(JClass, Subsignature)");
+        return lookupDispatch(jclass, subsignature);
+    }
+
+    private JMethod lookupDispatch(JClass jclass, Subsignature subsignature) {
+        Map<Subsignature, JMethod> table = dispatchTable.computeIfAbsent(
+                jclass, c -> newConcurrentMap());
+        JMethod target = table.get(subsignature);
+        if (target == null) {
+            JMethod method = jclass.getDeclaredMethod(subsignature);
+            if (method != null && !method.isAbstract()) {
+                target = method;
+            } else if (jclass.getSuperClass() != null) {
+                // memoizes the dispatch results of superclasses as well
+                target = lookupDispatch(jclass.getSuperClass(), subsignature);
+            }
+            if (target != null) {
+                table.put(subsignature, target);
+            }
+        }
+        return target;
+    }
+
     private static boolean checkCHA = false;
 
     public static void setCheckCHA(boolean checkCHA) {
         ClassHierarchyImpl.checkCHA = checkCHA;
     }
 
-    private static void checkCHA() {
+    /**
+     * Checks that CHABuilder does not use given API of this class hierarchy,
+     * which it has to implement by itself in this assignment.
+     */
+    private static void checkCHA(String api) {
         if (checkCHA) {
             StackTraceElement[] stack = Thread.currentThread().getStackTrace();
             for (StackTraceElement e : stack) {
                 if (e.getClassName().equals("pascal.taie.analysis.graph.callgraph.CHABuilder")) {
                     throw new AnalysisException("You are NOT allowed to use" +
-                            " ClassHierarchyImpl.resolveMethod(MethodRef) in this assignment ╮(╯▽╰)╭");
+                            " ClassHierarchyImpl." + api + " in this assignment ╮(╯▽╰)╭");
                 }
             }
         }
@@ -181,7 +312,7 @@ public class ClassHierarchyImpl implements ClassHierarchy {
     @Override
     public @Nullable
     JMethod resolveMethod(MethodRef methodRef) {
-        checkCHA();
+        checkCHA("resolveMethod(MethodRef)");
         JClass declaringClass = methodRef.getDeclaringClass();
         JMethod method = lookupMethod(declaringClass,
                 methodRef.getSubsignature(), true);
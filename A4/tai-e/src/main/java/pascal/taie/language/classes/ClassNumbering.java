@@ -0,0 +1,185 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.language.classes;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static pascal.taie.util.collection.Maps.newMap;
+
+/**
+ * Immutable numbering of a snapshot of the class hierarchy, which answers
+ * subtype queries in constant time.
+ * <p>
+ * Classes (excluding interfaces) are numbered by a preorder traversal of
+ * the class tree, so that the subclasses of each class occupy a contiguous
+ * range after the class itself. Interfaces are numbered separately, and
+ * each class and interface is associated with a bit set of all its
+ * (direct and indirect) superinterfaces. A class that declares no
+ * interface shares the bit set of its superclass.
+ */
+class ClassNumbering {
+
+    private static final BitSet EMPTY = new BitSet(0);
+
+    /**
+     * Classes in preorder.
+     */
+    private final JClass[] classes;
+
+    /**
+     * Class -> its preorder number.
+     */
+    private final Map<JClass, Integer> preorder;
+
+    /**
+     * Preorder number -> the largest preorder number in its subtree.
+     */
+    private final int[] last;
+
+    /**
+     * Interface -> its index in the bit sets.
+     */
+    private final Map<JClass, Integer> interfaceIndexes = newMap();
+
+    /**
+     * Class or interface -> all its superinterfaces (including itself
+     * for an interface).
+     */
+    private final Map<JClass, BitSet> superinterfaces = newMap();
+
+    ClassNumbering(Set<JClass> allClasses,
+                   Map<JClass, Set<JClass>> directSubclasses) {
+        // number the class tree in preorder
+        List<JClass> roots = allClasses.stream()
+                .filter(c -> !c.isInterface())
+                .filter(c -> c.getSuperClass() == null ||
+                        !allClasses.contains(c.getSuperClass()))
+                .toList();
+        int n = (int) allClasses.stream().filter(c -> !c.isInterface()).count();
+        classes = new JClass[n];
+        preorder = newMap(n);
+        last = new int[n];
+        int next = 0;
+        Deque<JClass> stack = new ArrayDeque<>();
+        for (JClass root : roots) {
+            stack.push(root);
+            while (!stack.isEmpty()) {
+                JClass c = stack.pop();
+                preorder.put(c, next);
+                classes[next++] = c;
+                directSubclasses.getOrDefault(c, Set.of()).forEach(stack::push);
+            }
+        }
+        // compute subtree ranges, children have larger numbers than parents
+        for (int i = n - 1; i >= 0; --i) {
+            last[i] = Math.max(last[i], i);
+            JClass superClass = classes[i].getSuperClass();
+            Integer parent = superClass == null ? null : preorder.get(superClass);
+            if (parent != null) {
+                last[parent] = Math.max(last[parent], last[i]);
+            }
+        }
+        // number interfaces and compute superinterfaces
+        allClasses.stream()
+                .filter(JClass::isInterface)
+                .forEach(i -> interfaceIndexes.put(i, interfaceIndexes.size()));
+        allClasses.stream()
+                .filter(JClass::isInterface)
+                .forEach(this::computeSuperinterfaces);
+        // superclasses precede subclasses in preorder
+        for (JClass c : classes) {
+            computeSuperinterfaces(c);
+        }
+    }
+
+    private BitSet computeSuperinterfaces(JClass jclass) {
+        BitSet result = superinterfaces.get(jclass);
+        if (result != null) {
+            return result;
+        }
+        JClass superClass = jclass.isInterface() ? null : jclass.getSuperClass();
+        BitSet inherited = superClass == null ? EMPTY
+                : superinterfaces.getOrDefault(superClass, EMPTY);
+        Integer index = interfaceIndexes.get(jclass);
+        if (index == null && jclass.getInterfaces().isEmpty()) {
+            result = inherited;
+        } else {
+            result = (BitSet) inherited.clone();
+            if (index != null) {
+                result.set(index);
+            }
+            for (JClass iface : jclass.getInterfaces()) {
+                result.or(computeSuperinterfaces(iface));
+            }
+        }
+        superinterfaces.put(jclass, result);
+        return result;
+    }
+
+    /**
+     * @return true if given class is numbered by this numbering.
+     */
+    boolean contains(JClass jclass) {
+        return preorder.containsKey(jclass) || interfaceIndexes.containsKey(jclass);
+    }
+
+    /**
+     * @return true if {@code subclass} is {@code superclass} or
+     * a (direct or indirect) subtype of {@code superclass}.
+     */
+    boolean isSubclass(JClass superclass, JClass subclass) {
+        if (superclass == subclass) {
+            return true;
+        }
+        if (superclass.isInterface()) {
+            Integer index = interfaceIndexes.get(superclass);
+            return index != null &&
+                    superinterfaces.getOrDefault(subclass, EMPTY).get(index);
+        }
+        if (subclass.isInterface()) {
+            // the only superclass of interfaces is java.lang.Object
+            return superclass.getSuperClass() == null &&
+                    superclass.getName().equals("java.lang.Object");
+        }
+        Integer sup = preorder.get(superclass);
+        Integer sub = preorder.get(subclass);
+        return sup != null && sub != null && sup <= sub && sub <= last[sup];
+    }
+
+    /**
+     * @return the given class and all its subclasses, as a view
+     * of a contiguous range of the preorder class array.
+     */
+    List<JClass> getSubclassesOf(JClass jclass, boolean selfInclude) {
+        int pre = preorder.get(jclass);
+        return Collections.unmodifiableList(Arrays.asList(classes)
+                .subList(selfInclude ? pre : pre + 1, last[pre] + 1));
+    }
+}
@@ -0,0 +1,84 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.dataflow.inter;
+
+import org.junit.Test;
+import pascal.taie.analysis.dataflow.fact.DataflowResult;
+import pascal.taie.analysis.graph.icfg.TestICFG;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Checks the facts queried from {@link DemandSolver} against the fixed
+ * point computed by {@link RandomGenKillInterAnalysis#solve}, for both
+ * directions of analyses. The nodes are queried in random order, so that
+ * later queries reuse the nodes solved by earlier ones.
+ */
+public class DemandSolverTest {
+
+    private static final int ROUNDS = 200;
+
+    @Test
+    public void testForward() {
+        testDemandSolver(true, 31);
+    }
+
+    @Test
+    public void testBackward() {
+        testDemandSolver(false, 32);
+    }
+
+    private static void testDemandSolver(boolean forward, long seed) {
+        Random random = new Random(seed);
+        for (int round = 0; round < ROUNDS; ++round) {
+            TestICFG icfg = TestICFG.random(
+                    1 + random.nextInt(12), random.nextInt(12), random);
+            RandomGenKillInterAnalysis analysis =
+                    new RandomGenKillInterAnalysis(icfg, forward, random);
+            DataflowResult<Integer, Set<Integer>> expected = analysis.solve(icfg);
+            DemandSolver<String, Integer, Set<Integer>> solver =
+                    new DemandSolver<>(analysis, icfg);
+            List<Integer> nodes = new ArrayList<>();
+            icfg.forEach(nodes::add);
+            Collections.shuffle(nodes, random);
+            for (Integer node : nodes) {
+                String message = "round " + round + ", node " + node;
+                // query in and out facts in either order
+                if (random.nextBoolean()) {
+                    assertEquals(message, expected.getInFact(node), solver.getInFact(node));
+                    assertEquals(message, expected.getOutFact(node), solver.getOutFact(node));
+                } else {
+                    assertEquals(message, expected.getOutFact(node), solver.getOutFact(node));
+                    assertEquals(message, expected.getInFact(node), solver.getInFact(node));
+                }
+            }
+            assertEquals("round " + round, nodes.size(), solver.getNumberOfSolvedNodes());
+        }
+    }
+}
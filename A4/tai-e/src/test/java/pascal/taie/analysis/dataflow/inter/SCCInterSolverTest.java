@@ -0,0 +1,95 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.dataflow.inter;
+
+import org.junit.Test;
+import pascal.taie.analysis.dataflow.fact.DataflowResult;
+import pascal.taie.analysis.graph.icfg.TestICFG;
+
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Checks the results of {@link SCCInterSolver} against the fixed point
+ * computed by {@link RandomGenKillInterAnalysis#solve}, for both
+ * directions of analyses, both orders of SCCs, and in parallel mode.
+ */
+public class SCCInterSolverTest {
+
+    private static final int ROUNDS = 200;
+
+    @Test
+    public void testForwardTopDown() {
+        testSCCSolver(true, false, 1, 21);
+    }
+
+    @Test
+    public void testForwardBottomUp() {
+        testSCCSolver(true, true, 1, 22);
+    }
+
+    @Test
+    public void testBackwardTopDown() {
+        testSCCSolver(false, false, 1, 23);
+    }
+
+    @Test
+    public void testBackwardBottomUp() {
+        testSCCSolver(false, true, 1, 24);
+    }
+
+    /**
+     * The parallel solver must compute the same fixed point as
+     * the sequential one, regardless of the scheduling of SCCs.
+     */
+    @Test
+    public void testParallelForward() {
+        testSCCSolver(true, false, 4, 25);
+    }
+
+    @Test
+    public void testParallelBackward() {
+        testSCCSolver(false, true, 4, 26);
+    }
+
+    private static void testSCCSolver(
+            boolean forward, boolean bottomUp, int threads, long seed) {
+        Random random = new Random(seed);
+        for (int round = 0; round < ROUNDS; ++round) {
+            TestICFG icfg = TestICFG.random(
+                    1 + random.nextInt(12), random.nextInt(12), random);
+            RandomGenKillInterAnalysis analysis =
+                    new RandomGenKillInterAnalysis(icfg, forward, random);
+            DataflowResult<Integer, Set<Integer>> expected = analysis.solve(icfg);
+            DataflowResult<Integer, Set<Integer>> result =
+                    new SCCInterSolver<>(analysis, icfg, bottomUp, threads).solve();
+            for (Integer node : icfg) {
+                String message = "round " + round + ", node " + node;
+                assertEquals(message, expected.getInFact(node), result.getInFact(node));
+                assertEquals(message, expected.getOutFact(node), result.getOutFact(node));
+            }
+        }
+    }
+}
@@ -0,0 +1,104 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.graph.callgraph;
+
+import org.junit.Assert;
+import org.junit.Test;
+import pascal.taie.Main;
+import pascal.taie.World;
+import pascal.taie.ir.stmt.Invoke;
+import pascal.taie.language.classes.JMethod;
+
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Checks the call graphs built by RTA and VTA against the edges
+ * expected for the test program.
+ */
+public class CallGraphAlgorithmTest {
+
+    private static final String CLASS_PATH = "src/test/resources/cg/";
+
+    private static final Set<String> APP_CLASSES = Set.of(
+            "InitAndCatch", "Task", "Impl", "Unused", "Base", "Config",
+            "Checker", "CheckException", "DetailedCheckException");
+
+    /**
+     * Edges (caller -> callee) out of the application methods of
+     * InitAndCatch. Both RTA and VTA should find exactly these edges:
+     * only Impl is instantiated among the implementations of Task,
+     * and only CheckException is instantiated among the subclasses
+     * of CheckException.
+     */
+    private static final Set<String> INIT_AND_CATCH_EDGES = Set.of(
+            "<InitAndCatch: void main(java.lang.String[])> -> <Impl: void run()>",
+            "<InitAndCatch: void main(java.lang.String[])> -> <Checker: void check(java.lang.String[])>",
+            "<InitAndCatch: void main(java.lang.String[])> -> <CheckException: void report()>",
+            "<Config: void <clinit>()> -> <Impl: void <init>()>",
+            "<Base: void <clinit>()> -> <java.lang.Object: void <init>()>",
+            "<Impl: void <init>()> -> <java.lang.Object: void <init>()>",
+            "<Checker: void check(java.lang.String[])> -> <CheckException: void <init>()>",
+            "<CheckException: void <init>()> -> <java.lang.Exception: void <init>()>");
+
+    @Test
+    public void testInitAndCatch() {
+        for (String algorithm : List.of("rta", "vta")) {
+            CallGraph<Invoke, JMethod> callGraph = build("InitAndCatch", algorithm);
+            Assert.assertEquals(algorithm, INIT_AND_CATCH_EDGES, getAppEdges(callGraph));
+            Set<String> methods = getMethods(callGraph);
+            // static initializers of referenced classes and their superclasses
+            Assert.assertTrue(algorithm, methods.contains("<Config: void <clinit>()>"));
+            Assert.assertTrue(algorithm, methods.contains("<Base: void <clinit>()>"));
+            Assert.assertFalse(algorithm, methods.contains("<Unused: void run()>"));
+            Assert.assertFalse(algorithm,
+                    methods.contains("<DetailedCheckException: void report()>"));
+        }
+    }
+
+    private static CallGraph<Invoke, JMethod> build(String main, String algorithm) {
+        Main.main(new String[]{"-pp", "-cp", CLASS_PATH, "-m", main,
+                "-a", CallGraphBuilder.ID + "=algorithm:" + algorithm});
+        return World.get().getResult(CallGraphBuilder.ID);
+    }
+
+    private static Set<String> getMethods(CallGraph<Invoke, JMethod> callGraph) {
+        return callGraph.reachableMethods()
+                .map(JMethod::getSignature)
+                .collect(Collectors.toSet());
+    }
+
+    /**
+     * @return the edges (as strings) out of the call sites in
+     * the methods of application classes.
+     */
+    private static Set<String> getAppEdges(CallGraph<Invoke, JMethod> callGraph) {
+        return callGraph.edges()
+                .filter(edge -> APP_CLASSES.contains(edge.getCallSite()
+                        .getContainer().getDeclaringClass().getName()))
+                .map(edge -> edge.getCallSite().getContainer().getSignature()
+                        + " -> " + edge.getCallee().getSignature())
+                .collect(Collectors.toSet());
+    }
+}
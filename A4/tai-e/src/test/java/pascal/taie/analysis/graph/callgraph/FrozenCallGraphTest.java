@@ -0,0 +1,218 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.graph.callgraph;
+
+import org.junit.Test;
+import pascal.taie.World;
+import pascal.taie.ir.DefaultIR;
+import pascal.taie.ir.IR;
+import pascal.taie.ir.IRBuilder;
+import pascal.taie.ir.exp.InvokeStatic;
+import pascal.taie.ir.proginfo.MethodRef;
+import pascal.taie.ir.stmt.Invoke;
+import pascal.taie.ir.stmt.Stmt;
+import pascal.taie.language.annotation.AnnotationHolder;
+import pascal.taie.language.classes.ClassHierarchy;
+import pascal.taie.language.classes.JClass;
+import pascal.taie.language.classes.JMethod;
+import pascal.taie.language.type.PrimitiveType;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Checks the queries of {@link FrozenCallGraph} on random call graphs
+ * against the ones of the {@link DefaultCallGraph}s they are frozen from.
+ */
+public class FrozenCallGraphTest {
+
+    private static final int ROUNDS = 50;
+
+    @Test
+    public void testRandomCallGraphs() {
+        Random random = new Random(18);
+        Map<JMethod, IR> irs = new HashMap<>();
+        World world = new World();
+        world.setIRBuilder(new IRBuilder() {
+            @Override
+            public IR buildIR(JMethod method) {
+                return irs.get(method);
+            }
+
+            @Override
+            public void buildAll(ClassHierarchy hierarchy) {
+            }
+        });
+        World.set(world);
+        try {
+            for (int round = 0; round < ROUNDS; ++round) {
+                irs.clear();
+                DefaultCallGraph callGraph = randomCallGraph(random, irs);
+                check(round, callGraph, new FrozenCallGraph<>(callGraph),
+                        List.copyOf(irs.keySet()));
+            }
+        } finally {
+            World.reset();
+        }
+    }
+
+    /**
+     * Builds a call graph whose first method is the entry. Each method
+     * has a few call sites with a few callees each, and only some of the
+     * methods are added as reachable, so that some callees are not
+     * reported as reachable, like the callees of native methods are.
+     */
+    private static DefaultCallGraph randomCallGraph(
+            Random random, Map<JMethod, IR> irs) {
+        JClass jclass = new JClass(null, "C");
+        int n = 1 + random.nextInt(20);
+        List<JMethod> methods = new ArrayList<>();
+        for (int i = 0; i < n; ++i) {
+            JMethod method = new JMethod(jclass, "m" + i, Set.of(), List.of(),
+                    PrimitiveType.INT, List.of(), AnnotationHolder.emptyHolder(),
+                    null, null);
+            methods.add(method);
+        }
+        for (JMethod method : methods) {
+            List<Stmt> stmts = new ArrayList<>();
+            int callSites = random.nextInt(4);
+            for (int i = 0; i < callSites; ++i) {
+                JMethod target = methods.get(random.nextInt(n));
+                MethodRef ref = MethodRef.get(jclass, target.getName(),
+                        List.of(), PrimitiveType.INT, true);
+                Invoke invoke = new Invoke(method, new InvokeStatic(ref, List.of()));
+                invoke.setIndex(i);
+                stmts.add(invoke);
+            }
+            irs.put(method, new DefaultIR(method, null, List.of(), Set.of(),
+                    List.of(), stmts, List.of()));
+        }
+        DefaultCallGraph callGraph = new DefaultCallGraph();
+        callGraph.addEntryMethod(methods.get(0));
+        for (JMethod method : methods) {
+            if (method == methods.get(0) || random.nextInt(4) != 0) {
+                callGraph.addReachableMethod(method);
+            }
+        }
+        callGraph.reachableMethods().toList().forEach(method -> {
+            for (Stmt stmt : irs.get(method)) {
+                int callees = random.nextInt(4);
+                for (int i = 0; i < callees; ++i) {
+                    callGraph.addEdge(new Edge<>(CallKind.STATIC, (Invoke) stmt,
+                            methods.get(random.nextInt(n))));
+                }
+            }
+        });
+        return callGraph;
+    }
+
+    private static void check(int round, DefaultCallGraph expected,
+                              FrozenCallGraph<Invoke, JMethod> actual,
+                              List<JMethod> methods) {
+        String msg = "round " + round;
+        assertEquals(msg, set(expected.entryMethods()), set(actual.entryMethods()));
+        assertEquals(msg, set(expected.reachableMethods()),
+                set(actual.reachableMethods()));
+        assertEquals(msg, expected.getNumberOfMethods(), actual.getNumberOfMethods());
+        assertEquals(msg, set(expected.edges()), set(actual.edges()));
+        assertEquals(msg, expected.getNumberOfEdges(), actual.getNumberOfEdges());
+        assertEquals(msg, new HashSet<>(expected.getNodes()),
+                new HashSet<>(actual.getNodes()));
+        for (JMethod method : methods) {
+            String m = msg + ", method " + method.getName();
+            assertEquals(m, expected.contains(method), actual.contains(method));
+            assertEquals(m, expected.hasNode(method), actual.hasNode(method));
+            assertEquals(m, new HashSet<>(expected.getCallSitesIn(method)),
+                    new HashSet<>(actual.getCallSitesIn(method)));
+            assertEquals(m, new HashSet<>(expected.getCallersOf(method)),
+                    new HashSet<>(actual.getCallersOf(method)));
+            assertEquals(m, new HashSet<>(expected.getCalleesOfM(method)),
+                    new HashSet<>(actual.getCalleesOfM(method)));
+            assertEquals(m, set(expected.edgesInTo(method)),
+                    set(actual.edgesInTo(method)));
+            assertEquals(m, new HashSet<>(expected.getSuccsOf(method)),
+                    new HashSet<>(actual.getSuccsOf(method)));
+            assertEquals(m, new HashSet<>(expected.getPredsOf(method)),
+                    new HashSet<>(actual.getPredsOf(method)));
+            assertEquals(m, new HashSet<>(expected.getInEdgesOf(method)),
+                    new HashSet<>(actual.getInEdgesOf(method)));
+            assertEquals(m, new HashSet<>(expected.getOutEdgesOf(method)),
+                    new HashSet<>(actual.getOutEdgesOf(method)));
+            for (JMethod target : methods) {
+                assertEquals(m + " -> " + target.getName(),
+                        expected.hasEdge(method, target),
+                        actual.hasEdge(method, target));
+            }
+            // index-based queries
+            int index = actual.getIndexOf(method);
+            if (index >= 0) {
+                assertEquals(m, method, actual.getMethod(index));
+                Set<JMethod> succs = new HashSet<>();
+                for (int i = 0; i < actual.getNumberOfSuccsOf(index); ++i) {
+                    succs.add(actual.getMethod(actual.getSuccOf(index, i)));
+                }
+                assertEquals(m, new HashSet<>(expected.getSuccsOf(method)), succs);
+                assertEquals(m, succs.size(), actual.getNumberOfSuccsOf(index));
+                Set<JMethod> preds = new HashSet<>();
+                for (int i = 0; i < actual.getNumberOfPredsOf(index); ++i) {
+                    preds.add(actual.getMethod(actual.getPredOf(index, i)));
+                }
+                assertEquals(m, new HashSet<>(expected.getPredsOf(method)), preds);
+                assertEquals(m, preds.size(), actual.getNumberOfPredsOf(index));
+            } else {
+                assertEquals(m, Set.of(), new HashSet<>(expected.getPredsOf(method)));
+                assertEquals(m, false, expected.contains(method));
+            }
+        }
+        // call sites in unreachable methods are irrelevant to the frozen
+        // call graph, thus only the ones in reachable methods are compared
+        expected.reachableMethods().forEach(method -> {
+            for (Invoke callSite : expected.getCallSitesIn(method)) {
+                String c = msg + ", call site " + callSite;
+                assertEquals(c, expected.getContainerOf(callSite),
+                        actual.getContainerOf(callSite));
+                assertEquals(c, new HashSet<>(expected.getCalleesOf(callSite)),
+                        new HashSet<>(actual.getCalleesOf(callSite)));
+                assertEquals(c, set(expected.edgesOutOf(callSite)),
+                        set(actual.edgesOutOf(callSite)));
+                assertEquals(c, expected.isRelevant(callSite),
+                        actual.isRelevant(callSite));
+                assertEquals(c, new HashSet<>(expected.getResult(callSite)),
+                        new HashSet<>(actual.getResult(callSite)));
+            }
+        });
+    }
+
+    private static <T> Set<T> set(Stream<T> stream) {
+        return stream.collect(Collectors.toSet());
+    }
+}
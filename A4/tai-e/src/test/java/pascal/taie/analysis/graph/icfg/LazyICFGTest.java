@@ -0,0 +1,305 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.graph.icfg;
+
+import org.junit.Test;
+import pascal.taie.World;
+import pascal.taie.analysis.graph.callgraph.CallGraph;
+import pascal.taie.analysis.graph.callgraph.CallKind;
+import pascal.taie.analysis.graph.callgraph.DefaultCallGraph;
+import pascal.taie.analysis.graph.callgraph.Edge;
+import pascal.taie.analysis.graph.cfg.CFGBuilder;
+import pascal.taie.analysis.graph.cfg.TestCFG;
+import pascal.taie.ir.DefaultIR;
+import pascal.taie.ir.IR;
+import pascal.taie.ir.IRBuilder;
+import pascal.taie.ir.exp.InvokeStatic;
+import pascal.taie.ir.exp.Var;
+import pascal.taie.ir.proginfo.MethodRef;
+import pascal.taie.ir.stmt.Invoke;
+import pascal.taie.ir.stmt.Nop;
+import pascal.taie.ir.stmt.Return;
+import pascal.taie.ir.stmt.Stmt;
+import pascal.taie.language.annotation.AnnotationHolder;
+import pascal.taie.language.classes.ClassHierarchy;
+import pascal.taie.language.classes.JClass;
+import pascal.taie.language.classes.JMethod;
+import pascal.taie.language.type.PrimitiveType;
+import pascal.taie.util.AnalysisException;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Checks {@link LazyICFG} against the ICFG built by {@link ICFGBuilder}
+ * on a small hand-built program, and checks that it obtains the CFGs of
+ * the queried methods only.
+ */
+public class LazyICFGTest {
+
+    @Test
+    public void testEdges() {
+        Program p = new Program();
+        try {
+            ICFG<JMethod, Stmt> expected = new DefaultICFG(p.callGraph);
+            // a cache of one method makes the edges be evicted and rebuilt
+            for (int maxCachedMethods : List.of(0, 1)) {
+                LazyICFG actual = new LazyICFG(p.callGraph, maxCachedMethods);
+                for (JMethod method : List.of(p.main, p.foo, p.bar)) {
+                    assertEquals(expected.getEntryOf(method), actual.getEntryOf(method));
+                    assertEquals(expected.getExitOf(method), actual.getExitOf(method));
+                }
+                for (Stmt stmt : expected.getNodes()) {
+                    String msg = p.names.get(stmt);
+                    assertEquals(msg, expected.getContainingMethodOf(stmt),
+                            actual.getContainingMethodOf(stmt));
+                    assertEquals(msg, describe(p, expected.getInEdgesOf(stmt)),
+                            describe(p, actual.getInEdgesOf(stmt)));
+                    assertEquals(msg, describe(p, expected.getOutEdgesOf(stmt)),
+                            describe(p, actual.getOutEdgesOf(stmt)));
+                    if (expected.isCallSite(stmt)) {
+                        assertEquals(msg, expected.getReturnSitesOf(stmt),
+                                new HashSet<>(actual.getReturnSitesOf(stmt)));
+                    }
+                }
+                assertEquals(expected.getNodes(), new HashSet<>(actual.getNodes()));
+            }
+        } finally {
+            World.reset();
+        }
+    }
+
+    @Test
+    public void testObtainQueriedCFGsOnly() {
+        Program p = new Program();
+        try {
+            LazyICFG icfg = new LazyICFG(p.callGraph, 0);
+            // the containing method of a call site is found by the call graph
+            Stmt callBar = p.body.get(p.foo).get(0);
+            assertEquals(p.foo, icfg.getContainingMethodOf(callBar));
+            assertEquals(Set.of(p.foo), p.obtained);
+            // other nodes are known after the CFGs of their methods are obtained
+            Stmt nop = p.body.get(p.bar).get(0);
+            try {
+                icfg.getContainingMethodOf(nop);
+                fail("expected AnalysisException for a node of an unobtained method");
+            } catch (AnalysisException e) {
+                // expected
+            }
+            icfg.getEntryOf(p.bar);
+            assertEquals(p.bar, icfg.getContainingMethodOf(nop));
+            assertEquals(Set.of(p.foo, p.bar), p.obtained);
+            // the edges of foo involve its callee bar and its caller main
+            icfg.getOutEdgesOf(callBar);
+            assertEquals(Set.of(p.foo, p.bar, p.main), p.obtained);
+            // unused is not reachable
+            assertFalse(icfg.hasNode(p.body.get(p.unused).get(0)));
+            assertFalse(p.obtained.contains(p.unused));
+            assertTrue(icfg.hasNode(nop));
+        } finally {
+            World.reset();
+        }
+    }
+
+    /**
+     * @return the given edges as strings, including the callees of
+     * call edges and the call sites and returns of return edges.
+     */
+    private static Set<String> describe(Program p, Set<ICFGEdge<Stmt>> edges) {
+        return edges.stream().map(edge -> {
+            String s = edge.getClass().getSimpleName() + " "
+                    + p.names.get(edge.getSource()) + " -> "
+                    + p.names.get(edge.getTarget());
+            if (edge instanceof CallEdge<Stmt> call) {
+                s += " callee " + call.getCallee().getName();
+            }
+            if (edge instanceof ReturnEdge<Stmt> ret) {
+                s += " call site " + p.names.get(ret.getCallSite())
+                        + " vars " + Set.copyOf(ret.getReturnVars())
+                        + " exceptions " + Set.copyOf(ret.getExceptions());
+            }
+            return s;
+        }).collect(Collectors.toSet());
+    }
+
+    /**
+     * The following program, where unused is not reachable:
+     * <pre>
+     * main() {                 foo() {            bar() {
+     *  0: a = foo();            0: bar();          0: nop;
+     *     goto 2 or 1;          1: return r;       1: return;
+     *  1: bar();               }                  }
+     *  2: foo();
+     *  3: return;              unused() {
+     * }                         0: bar();
+     *                           1: return;
+     *                          }
+     * </pre>
+     * The statements are named method:index, and the entry and exit of
+     * each method are named method:entry and method:exit.
+     */
+    private static class Program {
+
+        private final JClass jclass = new JClass(null, "C");
+
+        private final Map<JMethod, IR> irs = new HashMap<>();
+
+        private final Map<JMethod, List<Stmt>> body = new HashMap<>();
+
+        private final Map<Stmt, String> names = new HashMap<>();
+
+        /**
+         * Methods whose CFGs have been obtained from their IRs.
+         */
+        private final Set<JMethod> obtained = new HashSet<>();
+
+        private final JMethod main = newMethod("main");
+
+        private final JMethod foo = newMethod("foo");
+
+        private final JMethod bar = newMethod("bar");
+
+        private final JMethod unused = newMethod("unused");
+
+        private final CallGraph<Stmt, JMethod> callGraph;
+
+        @SuppressWarnings("unchecked")
+        private Program() {
+            World world = new World();
+            world.setIRBuilder(new IRBuilder() {
+                @Override
+                public IR buildIR(JMethod method) {
+                    return irs.get(method);
+                }
+
+                @Override
+                public void buildAll(ClassHierarchy hierarchy) {
+                }
+            });
+            World.set(world);
+            Var a = new Var(main, "a", PrimitiveType.INT, 0);
+            Var r = new Var(foo, "r", PrimitiveType.INT, 0);
+            TestCFG<Stmt> mainCFG = setBody(main, List.of(a), List.of(
+                    new Invoke(main, invokeExp(foo), a),
+                    new Invoke(main, invokeExp(bar)),
+                    new Invoke(main, invokeExp(foo)),
+                    new Return()));
+            mainCFG.addEdge(pascal.taie.analysis.graph.cfg.Edge.Kind.GOTO,
+                    body.get(main).get(0), body.get(main).get(2));
+            setBody(foo, List.of(r), List.of(
+                    new Invoke(foo, invokeExp(bar)),
+                    new Return(r)));
+            setBody(bar, List.of(), List.of(
+                    new Nop(),
+                    new Return()));
+            setBody(unused, List.of(), List.of(
+                    new Invoke(unused, invokeExp(bar)),
+                    new Return()));
+            DefaultCallGraph cg = new DefaultCallGraph();
+            cg.addEntryMethod(main);
+            for (JMethod method : List.of(main, foo, bar)) {
+                cg.addReachableMethod(method);
+            }
+            addCallEdge(cg, main, 0, foo);
+            addCallEdge(cg, main, 1, bar);
+            addCallEdge(cg, main, 2, foo);
+            addCallEdge(cg, foo, 0, bar);
+            callGraph = (CallGraph<Stmt, JMethod>) (CallGraph<?, ?>) cg;
+        }
+
+        private JMethod newMethod(String name) {
+            return new JMethod(jclass, name, Set.of(), List.of(),
+                    PrimitiveType.INT, List.of(), AnnotationHolder.emptyHolder(),
+                    null, null);
+        }
+
+        private InvokeStatic invokeExp(JMethod callee) {
+            return new InvokeStatic(MethodRef.get(jclass, callee.getName(),
+                    List.of(), PrimitiveType.INT, true), List.of());
+        }
+
+        private void addCallEdge(DefaultCallGraph cg, JMethod caller,
+                                 int index, JMethod callee) {
+            Invoke callSite = (Invoke) body.get(caller).get(index);
+            cg.addEdge(new Edge<>(CallKind.STATIC, callSite, callee));
+        }
+
+        /**
+         * Sets the IR of given method, whose CFG falls through the given
+         * statements, and goes from each return statement to the exit.
+         */
+        private TestCFG<Stmt> setBody(JMethod method, List<Var> vars,
+                                      List<Stmt> stmts) {
+            String name = method.getName();
+            for (int i = 0; i < stmts.size(); ++i) {
+                stmts.get(i).setIndex(i);
+                names.put(stmts.get(i), name + ":" + i);
+            }
+            IR ir = new DefaultIR(method, null, List.of(), Set.of(),
+                    vars, stmts, List.of()) {
+                @Override
+                public <R> R getResult(String id) {
+                    if (id.equals(CFGBuilder.ID)) {
+                        obtained.add(method);
+                    }
+                    return super.getResult(id);
+                }
+            };
+            Nop entry = new Nop();
+            entry.setIndex(stmts.size());
+            names.put(entry, name + ":entry");
+            Nop exit = new Nop();
+            exit.setIndex(stmts.size() + 1);
+            names.put(exit, name + ":exit");
+            List<Stmt> nodes = new ArrayList<>();
+            nodes.add(entry);
+            nodes.addAll(stmts);
+            nodes.add(exit);
+            TestCFG<Stmt> cfg = new TestCFG<>(ir, nodes);
+            cfg.addEdge(entry, stmts.get(0));
+            for (int i = 0; i < stmts.size(); ++i) {
+                Stmt stmt = stmts.get(i);
+                if (stmt instanceof Return) {
+                    cfg.addEdge(pascal.taie.analysis.graph.cfg.Edge.Kind.RETURN,
+                            stmt, exit);
+                } else {
+                    cfg.addEdge(stmt, stmts.get(i + 1));
+                }
+            }
+            ir.storeResult(CFGBuilder.ID, cfg);
+            irs.put(method, ir);
+            body.put(method, stmts);
+            return cfg;
+        }
+    }
+}
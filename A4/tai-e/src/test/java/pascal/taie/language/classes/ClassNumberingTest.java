@@ -0,0 +1,265 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.language.classes;
+
+import org.junit.Test;
+import pascal.taie.language.annotation.AnnotationHolder;
+import pascal.taie.language.type.ClassType;
+import pascal.taie.util.collection.Maps;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Checks the subtype queries of {@link ClassNumbering} on random class
+ * hierarchies against the ones computed by traversing the hierarchies.
+ */
+public class ClassNumberingTest {
+
+    private static final int ROUNDS = 100;
+
+    @Test
+    public void testRandomHierarchies() {
+        Random random = new Random(16);
+        for (int round = 0; round < ROUNDS; ++round) {
+            Hierarchy hierarchy = Hierarchy.random(random);
+            ClassNumbering numbering = new ClassNumbering(
+                    new HashSet<>(hierarchy.all), hierarchy.directSubclasses);
+            for (JClass sup : hierarchy.all) {
+                assertTrue(numbering.contains(sup));
+                for (JClass sub : hierarchy.all) {
+                    assertEquals("round " + round + ", " + sup.getName() +
+                                    " :> " + sub.getName(),
+                            hierarchy.isSubclass(sup, sub),
+                            numbering.isSubclass(sup, sub));
+                }
+                if (!sup.isInterface()) {
+                    // the subclasses are a contiguous preorder range
+                    // starting with the class itself
+                    List<JClass> subclasses = numbering.getSubclassesOf(sup, true);
+                    assertEquals("round " + round, sup, subclasses.get(0));
+                    assertEquals("round " + round,
+                            hierarchy.getSubclassesOf(sup), Set.copyOf(subclasses));
+                    assertEquals("round " + round, subclasses.subList(1, subclasses.size()),
+                            numbering.getSubclassesOf(sup, false));
+                }
+            }
+        }
+    }
+
+    /**
+     * All interfaces are subtypes of java.lang.Object, and of no other class.
+     */
+    @Test
+    public void testInterfacesAndObject() {
+        Hierarchy hierarchy = new Hierarchy();
+        JClass object = hierarchy.newClass("java.lang.Object", null, List.of());
+        JClass a = hierarchy.newClass("A", object, List.of());
+        JClass i = hierarchy.newInterface("I", List.of());
+        JClass j = hierarchy.newInterface("J", List.of(i));
+        JClass b = hierarchy.newClass("B", a, List.of(j));
+        ClassNumbering numbering = new ClassNumbering(
+                new HashSet<>(hierarchy.all), hierarchy.directSubclasses);
+        assertTrue(numbering.isSubclass(object, i));
+        assertTrue(numbering.isSubclass(object, j));
+        assertFalse(numbering.isSubclass(a, i));
+        assertTrue(numbering.isSubclass(i, j));
+        assertTrue(numbering.isSubclass(i, b));
+        assertFalse(numbering.isSubclass(j, i));
+        assertFalse(numbering.isSubclass(j, a));
+        assertEquals(List.of(object, a, b), numbering.getSubclassesOf(object, true));
+        // classes loaded after the numbering is built are not numbered
+        JClass c = new Hierarchy().newClass("C", a, List.of(i));
+        assertFalse(numbering.contains(c));
+    }
+
+    /**
+     * A class hierarchy built by hand, whose subtype queries are answered
+     * by traversing the superclasses and superinterfaces.
+     */
+    private static class Hierarchy {
+
+        private final List<JClass> all = new ArrayList<>();
+
+        private final Map<JClass, Set<JClass>> directSubclasses = Maps.newMap();
+
+        /**
+         * @return a hierarchy rooted at java.lang.Object, where each class
+         * extends a random earlier class and implements random interfaces,
+         * and each interface extends random earlier interfaces.
+         */
+        private static Hierarchy random(Random random) {
+            Hierarchy hierarchy = new Hierarchy();
+            List<JClass> classes = new ArrayList<>();
+            List<JClass> interfaces = new ArrayList<>();
+            classes.add(hierarchy.newClass("java.lang.Object", null, List.of()));
+            for (int i = random.nextInt(40); i > 0; --i) {
+                if (random.nextInt(3) == 0) {
+                    interfaces.add(hierarchy.newInterface(
+                            "I" + interfaces.size(), pick(interfaces, random)));
+                } else {
+                    classes.add(hierarchy.newClass("C" + classes.size(),
+                            classes.get(random.nextInt(classes.size())),
+                            pick(interfaces, random)));
+                }
+            }
+            return hierarchy;
+        }
+
+        private static List<JClass> pick(List<JClass> classes, Random random) {
+            List<JClass> result = new ArrayList<>();
+            for (int i = random.nextInt(3); i > 0 && !classes.isEmpty(); --i) {
+                JClass c = classes.get(random.nextInt(classes.size()));
+                if (!result.contains(c)) {
+                    result.add(c);
+                }
+            }
+            return result;
+        }
+
+        private JClass newClass(String name, JClass superClass,
+                                List<JClass> interfaces) {
+            JClass jclass = newJClass(name, Set.of(), superClass, interfaces);
+            if (superClass != null) {
+                directSubclasses.computeIfAbsent(superClass, __ -> new HashSet<>())
+                        .add(jclass);
+            }
+            return jclass;
+        }
+
+        private JClass newInterface(String name, List<JClass> interfaces) {
+            return newJClass(name, Set.of(Modifier.INTERFACE, Modifier.ABSTRACT),
+                    null, interfaces);
+        }
+
+        private JClass newJClass(String name, Set<Modifier> modifiers,
+                                 JClass superClass, List<JClass> interfaces) {
+            JClass jclass = new JClass(null, name);
+            jclass.build(new JClassBuilder() {
+                @Override
+                public void build(JClass jclass) {
+                }
+
+                @Override
+                public Set<Modifier> getModifiers() {
+                    return modifiers;
+                }
+
+                @Override
+                public String getSimpleName() {
+                    return name;
+                }
+
+                @Override
+                public ClassType getClassType() {
+                    return null;
+                }
+
+                @Override
+                public JClass getSuperClass() {
+                    return superClass;
+                }
+
+                @Override
+                public Collection<JClass> getInterfaces() {
+                    return interfaces;
+                }
+
+                @Override
+                public JClass getOuterClass() {
+                    return null;
+                }
+
+                @Override
+                public Collection<JField> getDeclaredFields() {
+                    return List.of();
+                }
+
+                @Override
+                public Collection<JMethod> getDeclaredMethods() {
+                    return List.of();
+                }
+
+                @Override
+                public AnnotationHolder getAnnotationHolder() {
+                    return AnnotationHolder.emptyHolder();
+                }
+
+                @Override
+                public boolean isApplication() {
+                    return true;
+                }
+            });
+            all.add(jclass);
+            return jclass;
+        }
+
+        private boolean isSubclass(JClass sup, JClass sub) {
+            if (sub.isInterface() && !sup.isInterface()) {
+                return sup.getName().equals("java.lang.Object");
+            }
+            return getSupertypesOf(sub).contains(sup);
+        }
+
+        /**
+         * @return given class, its superclasses and all their
+         * (direct and indirect) superinterfaces.
+         */
+        private Set<JClass> getSupertypesOf(JClass jclass) {
+            Set<JClass> supertypes = new HashSet<>();
+            Queue<JClass> workList = new ArrayDeque<>();
+            workList.add(jclass);
+            while (!workList.isEmpty()) {
+                JClass c = workList.poll();
+                if (supertypes.add(c)) {
+                    if (c.getSuperClass() != null) {
+                        workList.add(c.getSuperClass());
+                    }
+                    workList.addAll(c.getInterfaces());
+                }
+            }
+            return supertypes;
+        }
+
+        private Set<JClass> getSubclassesOf(JClass jclass) {
+            Set<JClass> subclasses = new HashSet<>();
+            for (JClass c : all) {
+                if (!c.isInterface() && getSupertypesOf(c).contains(jclass)) {
+                    subclasses.add(c);
+                }
+            }
+            return subclasses;
+        }
+    }
+}
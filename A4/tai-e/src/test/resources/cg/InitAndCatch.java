@@ -0,0 +1,51 @@
+public class InitAndCatch {
+
+    public static void main(String[] args) {
+        Config.TASK.run();
+        try {
+            Checker.check(args);
+        } catch (CheckException e) {
+            e.report();
+        }
+    }
+}
+
+interface Task {
+    void run();
+}
+
+class Impl implements Task {
+    public void run() {
+    }
+}
+
+class Unused implements Task {
+    public void run() {
+    }
+}
+
+class Base {
+    static Object lock = new Object();
+}
+
+class Config extends Base {
+    static Task TASK = new Impl();
+}
+
+class Checker {
+    static void check(String[] args) throws CheckException {
+        if (args.length == 0) {
+            throw new CheckException();
+        }
+    }
+}
+
+class CheckException extends Exception {
+    void report() {
+    }
+}
+
+class DetailedCheckException extends CheckException {
+    void report() {
+    }
+}
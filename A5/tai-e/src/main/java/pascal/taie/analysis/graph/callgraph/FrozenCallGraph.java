@@ -0,0 +1,501 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.graph.callgraph;
+
+import pascal.taie.ir.stmt.Stmt;
+import pascal.taie.util.collection.Maps;
+
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.function.IntUnaryOperator;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+/**
+ * Immutable call graph which compacts another call graph after its
+ * construction finishes.
+ * <p>
+ * Methods and call sites are numbered, and the call sites of each method,
+ * the edges out of each call site, the edges into each method, and the
+ * successors and predecessors of each method are stored in compressed
+ * sparse row (CSR) form, i.e., as contiguous ranges of integer arrays.
+ * The collections returned by this class are read-only views of these
+ * ranges, and {@link #getNumberOfSuccsOf(int)}/{@link #getSuccOf(int, int)}
+ * and their predecessor counterparts support traversals that do not
+ * allocate at all.
+ *
+ * @param <CallSite> type of call sites
+ * @param <Method>   type of methods
+ */
+public class FrozenCallGraph<CallSite, Method>
+        implements CallGraph<CallSite, Method> {
+
+    /**
+     * Index -> method. The reachable methods come first.
+     */
+    private final Object[] methods;
+
+    private final Map<Method, Integer> methodIndexes;
+
+    /**
+     * Number of reachable methods.
+     */
+    private final int numberOfReachable;
+
+    private final int[] entries;
+
+    /**
+     * Index -> call site. Call sites in the same method are contiguous.
+     */
+    private final Object[] callSites;
+
+    private final Map<CallSite, Integer> callSiteIndexes;
+
+    /**
+     * Call site index -> index of its container method.
+     */
+    private final int[] containers;
+
+    /**
+     * The call sites in method m are in [callSiteOffsets[m], callSiteOffsets[m + 1]).
+     */
+    private final int[] callSiteOffsets;
+
+    /**
+     * The edges out of call site c are in [outOffsets[c], outOffsets[c + 1])
+     * of {@link #outEdges} and {@link #callees}.
+     */
+    private final int[] outOffsets;
+
+    private final Edge<CallSite, Method>[] outEdges;
+
+    private final int[] callees;
+
+    /**
+     * The edges into method m are in [inOffsets[m], inOffsets[m + 1])
+     * of {@link #inEdges} and {@link #callers}.
+     */
+    private final int[] inOffsets;
+
+    private final Edge<CallSite, Method>[] inEdges;
+
+    private final int[] callers;
+
+    /**
+     * Distinct callees (successors) and callers (predecessors) of each method.
+     */
+    private final int[] succOffsets;
+
+    private final int[] succs;
+
+    private final int[] predOffsets;
+
+    private final int[] preds;
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public FrozenCallGraph(CallGraph<CallSite, Method> callGraph) {
+        // number methods
+        List<Method> methodList = new ArrayList<>(callGraph.reachableMethods().toList());
+        numberOfReachable = methodList.size();
+        // not sized by numberOfReachable, as callees which are not reported
+        // as reachable are added to methodIndexes later
+        methodIndexes = Maps.newMap();
+        for (int i = 0; i < numberOfReachable; ++i) {
+            methodIndexes.put(methodList.get(i), i);
+        }
+        // number call sites and collect out edges
+        List<CallSite> callSiteList = new ArrayList<>();
+        List<Edge<CallSite, Method>> outEdgeList = new ArrayList<>();
+        callSiteOffsets = new int[numberOfReachable + 1];
+        List<Integer> outOffsetList = new ArrayList<>();
+        for (int m = 0; m < numberOfReachable; ++m) {
+            callSiteOffsets[m] = callSiteList.size();
+            for (CallSite callSite : callGraph.getCallSitesIn(methodList.get(m))) {
+                callSiteList.add(callSite);
+                outOffsetList.add(outEdgeList.size());
+                callGraph.edgesOutOf(callSite).forEach(outEdgeList::add);
+            }
+        }
+        callSiteOffsets[numberOfReachable] = callSiteList.size();
+        outOffsetList.add(outEdgeList.size());
+        callSites = callSiteList.toArray();
+        callSiteIndexes = Maps.newMap(callSites.length);
+        containers = new int[callSites.length];
+        for (int m = 0; m < numberOfReachable; ++m) {
+            for (int c = callSiteOffsets[m]; c < callSiteOffsets[m + 1]; ++c) {
+                callSiteIndexes.put(callSiteList.get(c), c);
+                containers[c] = m;
+            }
+        }
+        outOffsets = outOffsetList.stream().mapToInt(Integer::intValue).toArray();
+        outEdges = outEdgeList.toArray(new Edge[0]);
+        callees = new int[outEdges.length];
+        for (int e = 0; e < outEdges.length; ++e) {
+            Method callee = outEdges[e].getCallee();
+            Integer index = methodIndexes.get(callee);
+            if (index == null) {
+                // callee is not reported as reachable by the call graph
+                index = methodList.size();
+                methodList.add(callee);
+                methodIndexes.put(callee, index);
+            }
+            callees[e] = index;
+        }
+        methods = methodList.toArray();
+        int n = methods.length;
+        // in edges, by counting sort of out edges on callees
+        inOffsets = new int[n + 1];
+        for (int callee : callees) {
+            ++inOffsets[callee + 1];
+        }
+        for (int m = 0; m < n; ++m) {
+            inOffsets[m + 1] += inOffsets[m];
+        }
+        inEdges = new Edge[outEdges.length];
+        callers = new int[outEdges.length];
+        int[] next = Arrays.copyOf(inOffsets, n);
+        for (int c = 0; c < callSites.length; ++c) {
+            for (int e = outOffsets[c]; e < outOffsets[c + 1]; ++e) {
+                int pos = next[callees[e]]++;
+                inEdges[pos] = outEdges[e];
+                callers[pos] = c;
+            }
+        }
+        // distinct successors and predecessors
+        int[] mark = new int[n];
+        Arrays.fill(mark, -1);
+        succOffsets = new int[n + 1];
+        IntStream.Builder succBuilder = IntStream.builder();
+        int numberOfSuccs = 0;
+        for (int m = 0; m < n; ++m) {
+            succOffsets[m] = numberOfSuccs;
+            if (m < numberOfReachable) {
+                for (int e = outOffsets[callSiteOffsets[m]];
+                     e < outOffsets[callSiteOffsets[m + 1]]; ++e) {
+                    if (mark[callees[e]] != m) {
+                        mark[callees[e]] = m;
+                        succBuilder.add(callees[e]);
+                        ++numberOfSuccs;
+                    }
+                }
+            }
+        }
+        succOffsets[n] = numberOfSuccs;
+        succs = succBuilder.build().toArray();
+        Arrays.fill(mark, -1);
+        predOffsets = new int[n + 1];
+        IntStream.Builder predBuilder = IntStream.builder();
+        int numberOfPreds = 0;
+        for (int m = 0; m < n; ++m) {
+            predOffsets[m] = numberOfPreds;
+            for (int e = inOffsets[m]; e < inOffsets[m + 1]; ++e) {
+                int caller = containers[callers[e]];
+                if (mark[caller] != m) {
+                    mark[caller] = m;
+                    predBuilder.add(caller);
+                    ++numberOfPreds;
+                }
+            }
+        }
+        predOffsets[n] = numberOfPreds;
+        preds = predBuilder.build().toArray();
+        entries = callGraph.entryMethods()
+                .mapToInt(methodIndexes::get)
+                .toArray();
+    }
+
+    // ---------- index-based queries ----------
+
+    /**
+     * @return the index of given method in this call graph,
+     * or -1 if this call graph does not contain the method.
+     */
+    public int getIndexOf(Method method) {
+        Integer index = methodIndexes.get(method);
+        return index != null ? index : -1;
+    }
+
+    /**
+     * @return the method of given index.
+     */
+    @SuppressWarnings("unchecked")
+    public Method getMethod(int index) {
+        return (Method) methods[index];
+    }
+
+    /**
+     * @return the number of distinct callees of the method of given index.
+     */
+    public int getNumberOfSuccsOf(int method) {
+        return succOffsets[method + 1] - succOffsets[method];
+    }
+
+    /**
+     * @return the index of the i-th distinct callee of the method of given index.
+     */
+    public int getSuccOf(int method, int i) {
+        return succs[succOffsets[method] + i];
+    }
+
+    /**
+     * @return the number of distinct callers of the method of given index.
+     */
+    public int getNumberOfPredsOf(int method) {
+        return predOffsets[method + 1] - predOffsets[method];
+    }
+
+    /**
+     * @return the index of the i-th distinct caller of the method of given index.
+     */
+    public int getPredOf(int method, int i) {
+        return preds[predOffsets[method] + i];
+    }
+
+    // ---------- CallGraph interface ----------
+
+    @Override
+    public Set<CallSite> getCallersOf(Method callee) {
+        int m = getIndexOf(callee);
+        return m < 0 ? Set.of() : new RangeSet<>(callSites,
+                inOffsets[m], inOffsets[m + 1], i -> callers[i]);
+    }
+
+    @Override
+    public Set<Method> getCalleesOf(CallSite callSite) {
+        Integer c = callSiteIndexes.get(callSite);
+        return c == null ? Set.of() : new RangeSet<>(methods,
+                outOffsets[c], outOffsets[c + 1], i -> callees[i]);
+    }
+
+    @Override
+    public Set<Method> getCalleesOfM(Method caller) {
+        return getSuccsOf(caller);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public Method getContainerOf(CallSite callSite) {
+        Integer c = callSiteIndexes.get(callSite);
+        return c == null ? null : (Method) methods[containers[c]];
+    }
+
+    @Override
+    public Set<CallSite> getCallSitesIn(Method method) {
+        int m = getIndexOf(method);
+        return m < 0 || m >= numberOfReachable ? Set.of() : new RangeSet<>(
+                callSites, callSiteOffsets[m], callSiteOffsets[m + 1], i -> i);
+    }
+
+    @Override
+    public Stream<Edge<CallSite, Method>> edgesOutOf(CallSite callSite) {
+        Integer c = callSiteIndexes.get(callSite);
+        return c == null ? Stream.of() :
+                Arrays.stream(outEdges, outOffsets[c], outOffsets[c + 1]);
+    }
+
+    @Override
+    public Stream<Edge<CallSite, Method>> edgesInTo(Method method) {
+        int m = getIndexOf(method);
+        return m < 0 ? Stream.of() :
+                Arrays.stream(inEdges, inOffsets[m], inOffsets[m + 1]);
+    }
+
+    @Override
+    public Stream<Edge<CallSite, Method>> edges() {
+        return Arrays.stream(outEdges);
+    }
+
+    @Override
+    public int getNumberOfEdges() {
+        return outEdges.length;
+    }
+
+    @Override
+    public Stream<Method> entryMethods() {
+        return Arrays.stream(entries).mapToObj(this::getMethod);
+    }
+
+    @Override
+    public Stream<Method> reachableMethods() {
+        return IntStream.range(0, numberOfReachable).mapToObj(this::getMethod);
+    }
+
+    @Override
+    public int getNumberOfMethods() {
+        return numberOfReachable;
+    }
+
+    @Override
+    public boolean contains(Method method) {
+        int m = getIndexOf(method);
+        return 0 <= m && m < numberOfReachable;
+    }
+
+    /**
+     * The call sites of this call graph are the ones in reachable methods,
+     * thus other call sites are regarded as irrelevant.
+     */
+    @Override
+    public boolean isRelevant(Stmt stmt) {
+        return callSiteIndexes.containsKey(stmt);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public Set<Method> getResult(Stmt stmt) {
+        return getCalleesOf((CallSite) stmt);
+    }
+
+    // ---------- Graph interface ----------
+
+    @Override
+    public boolean hasNode(Method node) {
+        return contains(node);
+    }
+
+    @Override
+    public boolean hasEdge(Method source, Method target) {
+        int s = getIndexOf(source);
+        int t = getIndexOf(target);
+        if (s < 0 || t < 0) {
+            return false;
+        }
+        for (int i = succOffsets[s]; i < succOffsets[s + 1]; ++i) {
+            if (succs[i] == t) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public Set<MethodEdge<CallSite, Method>> getInEdgesOf(Method method) {
+        return edgesInTo(method)
+                .map(e -> new MethodEdge<>(getContainerOf(e.getCallSite()),
+                        method, e.getCallSite()))
+                .collect(Collectors.toUnmodifiableSet());
+    }
+
+    @Override
+    public Set<MethodEdge<CallSite, Method>> getOutEdgesOf(Method method) {
+        return callSitesIn(method)
+                .flatMap(this::edgesOutOf)
+                .map(e -> new MethodEdge<>(method, e.getCallee(), e.getCallSite()))
+                .collect(Collectors.toUnmodifiableSet());
+    }
+
+    @Override
+    public Set<Method> getPredsOf(Method node) {
+        int m = getIndexOf(node);
+        return m < 0 ? Set.of() : new RangeSet<>(methods,
+                predOffsets[m], predOffsets[m + 1], i -> preds[i]);
+    }
+
+    @Override
+    public Set<Method> getSuccsOf(Method node) {
+        int m = getIndexOf(node);
+        return m < 0 ? Set.of() : new RangeSet<>(methods,
+                succOffsets[m], succOffsets[m + 1], i -> succs[i]);
+    }
+
+    @Override
+    public Set<Method> getNodes() {
+        return new RangeSet<>(methods, 0, numberOfReachable, i -> i) {
+            @Override
+            public boolean contains(Object o) {
+                Integer index = methodIndexes.get(o);
+                return index != null && index < numberOfReachable;
+            }
+        };
+    }
+
+    /**
+     * Read-only set view of the elements mapped from a range of positions.
+     * The mapped elements in a range are guaranteed to be distinct.
+     */
+    private static class RangeSet<E> extends AbstractSet<E> {
+
+        private final Object[] elements;
+
+        private final int from;
+
+        private final int to;
+
+        /**
+         * Position -> index of element in {@link #elements}.
+         */
+        private final IntUnaryOperator indexOf;
+
+        private RangeSet(Object[] elements, int from, int to,
+                         IntUnaryOperator indexOf) {
+            this.elements = elements;
+            this.from = from;
+            this.to = to;
+            this.indexOf = indexOf;
+        }
+
+        @Override
+        public Iterator<E> iterator() {
+            return new Iterator<>() {
+
+                private int pos = from;
+
+                @Override
+                public boolean hasNext() {
+                    return pos < to;
+                }
+
+                @Override
+                @SuppressWarnings("unchecked")
+                public E next() {
+                    if (pos >= to) {
+                        throw new NoSuchElementException();
+                    }
+                    return (E) elements[indexOf.applyAsInt(pos++)];
+                }
+            };
+        }
+
+        @Override
+        public boolean contains(Object o) {
+            for (int pos = from; pos < to; ++pos) {
+                if (elements[indexOf.applyAsInt(pos)].equals(o)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        @Override
+        public int size() {
+            return to - from;
+        }
+    }
+}
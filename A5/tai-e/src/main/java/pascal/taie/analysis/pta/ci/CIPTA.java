@@ -41,11 +41,17 @@ public class CIPTA extends ProgramAnalysis {
 
     @Override
     public PointerAnalysisResult analyze() {
-        HeapModel heapModel = new AllocationSiteBasedModel(getOptions());
-        Solver solver = new Solver(heapModel);
-        solver.solve();
-        CIPTAResult result = solver.getResult();
-        new ResultProcessor(getOptions()).process(result);
-        return result;
+        PointsToSet.setKind(getOptions().getString("pts"));
+        try {
+            HeapModel heapModel = new AllocationSiteBasedModel(getOptions());
+            Solver solver = new Solver(getOptions(), heapModel);
+            solver.solve();
+            CIPTAResult result = solver.getResult();
+            new ResultProcessor(getOptions()).process(result);
+            return result;
+        } finally {
+            // the kind is global, so it must not leak into later analyses
+            PointsToSet.setKind(null);
+        }
     }
 }
@@ -36,7 +36,9 @@ import pascal.taie.util.collection.Pair;
 import pascal.taie.util.collection.Sets;
 import pascal.taie.util.collection.Views;
 
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.stream.Collectors;
@@ -64,10 +66,17 @@ class CIPTAResult implements PointerAnalysisResult {
 
     @Override
     public Collection<Var> getVars() {
-        return Views.toMappedCollection(
+        Collection<Var> vars = Views.toMappedCollection(
                 Views.toFilteredCollection(pointerFlowGraph.getPointers(),
                         VarPtr.class::isInstance),
                 p -> ((VarPtr) p).getVar());
+        Set<Var> substitutedVars = pointerFlowGraph.getSubstitutedVars();
+        if (substitutedVars.isEmpty()) {
+            return vars;
+        }
+        List<Var> allVars = new ArrayList<>(vars);
+        allVars.addAll(substitutedVars);
+        return allVars;
     }
 
     @Override
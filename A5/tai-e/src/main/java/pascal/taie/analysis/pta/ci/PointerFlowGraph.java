@@ -23,6 +23,7 @@
 package pascal.taie.analysis.pta.ci;
 
 import pascal.taie.analysis.pta.core.heap.Obj;
+import pascal.taie.analysis.pta.toolkit.OfflineVarSubstitution;
 import pascal.taie.ir.exp.Var;
 import pascal.taie.language.classes.JField;
 import pascal.taie.util.collection.Maps;
@@ -30,12 +31,28 @@ import pascal.taie.util.collection.MultiMap;
 import pascal.taie.util.collection.Sets;
 import pascal.taie.util.collection.TwoKeyMap;
 
+import javax.annotation.Nullable;
+import java.util.ArrayDeque;
 import java.util.Collections;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
 /**
  * Represents pointer flow graph in pointer analysis.
+ * <p>
+ * Pointers on a cycle of this graph always end up with the same points-to
+ * set, thus they can be collapsed by {@link #collapseCycle(Pointer, Pointer)}
+ * into a representative, and all of them share the points-to set of
+ * the representative afterwards. The successors of collapsed pointers
+ * are kept by the representative, and {@link #addEdge(Pointer, Pointer)}
+ * and {@link #getSuccsOf(Pointer)} accept any pointer of a cycle.
+ * Entries of collapsed pointers are redirected to their representative
+ * by {@link WorkList}, as pointer analysis processes the objects which
+ * flow to a variable via the pointer of the representative.
  */
 class PointerFlowGraph {
 
@@ -49,6 +66,18 @@ class PointerFlowGraph {
      */
     private final Map<Var, VarPtr> varPtrs = Maps.newMap();
 
+    /**
+     * If not null, equivalent variables share the Var node of
+     * their representative.
+     */
+    @Nullable
+    private final OfflineVarSubstitution varSubstitution;
+
+    /**
+     * Variables which have been substituted by their representatives.
+     */
+    private final Set<Var> substitutedVars = Sets.newSet();
+
     /**
      * Map from JField to StaticField node.
      */
@@ -66,8 +95,29 @@ class PointerFlowGraph {
 
     /**
      * Map from a pointer (node) to its successors in PFG.
+     * Only representatives have successors.
      */
-    private final MultiMap<Pointer, Pointer> successors = Maps.newMultiMap();
+    private final Map<Pointer, Set<Pointer>> successors = Maps.newMap();
+
+    /**
+     * Map from a collapsed pointer to the pointer it was collapsed into.
+     * Representatives are not in this map.
+     */
+    private final Map<Pointer, Pointer> collapsedTo = Maps.newMap();
+
+    /**
+     * Map from a representative to the pointers collapsed into it.
+     */
+    private final MultiMap<Pointer, Pointer> members = Maps.newMultiMap();
+
+    /**
+     * Edges which have been checked for cycles.
+     */
+    private final Set<PFGEdge> checkedEdges = Sets.newSet();
+
+    PointerFlowGraph(@Nullable OfflineVarSubstitution varSubstitution) {
+        this.varSubstitution = varSubstitution;
+    }
 
     /**
      * Returns all pointers in this PFG.
@@ -76,10 +126,25 @@ class PointerFlowGraph {
         return Collections.unmodifiableSet(pointers);
     }
 
+    /**
+     * Returns the variables which share the Var nodes of
+     * their representatives.
+     */
+    Set<Var> getSubstitutedVars() {
+        return Collections.unmodifiableSet(substitutedVars);
+    }
+
     /**
      * @return the corresponding Var node for the given variable.
      */
     VarPtr getVarPtr(Var var) {
+        if (varSubstitution != null) {
+            Var rep = varSubstitution.getRepresentative(var);
+            if (rep != var) {
+                substitutedVars.add(var);
+                var = rep;
+            }
+        }
         return varPtrs.computeIfAbsent(var, v -> {
             VarPtr varPtr = new VarPtr(v);
             pointers.add(varPtr);
@@ -128,13 +193,213 @@ class PointerFlowGraph {
      * otherwise false.
      */
     boolean addEdge(Pointer source, Pointer target) {
-        return successors.put(source, target);
+        source = getRepresentative(source);
+        target = getRepresentative(target);
+        if (source == target) {
+            // self-loops do not change the points-to sets
+            return false;
+        }
+        return successors.computeIfAbsent(source, __ -> Sets.newHybridSet())
+                .add(target);
     }
 
     /**
      * @return successors of given pointer in the PFG.
      */
     Set<Pointer> getSuccsOf(Pointer pointer) {
-        return successors.get(pointer);
+        Pointer rep = getRepresentative(pointer);
+        Set<Pointer> succs = successors.get(rep);
+        if (succs == null) {
+            return Set.of();
+        }
+        if (succs.stream().anyMatch(s -> s == rep || collapsedTo.containsKey(s))) {
+            // some successors have been collapsed since they were added,
+            // replace them by their representatives
+            Set<Pointer> newSuccs = Sets.newHybridSet();
+            succs.forEach(s -> {
+                Pointer sRep = getRepresentative(s);
+                if (sRep != rep) {
+                    newSuccs.add(sRep);
+                }
+            });
+            successors.put(rep, newSuccs);
+            succs = newSuccs;
+        }
+        return Collections.unmodifiableSet(succs);
+    }
+
+    /**
+     * @return the representative of the cycle which given pointer has been
+     * collapsed into, or the pointer itself if it has not been collapsed.
+     */
+    Pointer getRepresentative(Pointer pointer) {
+        Pointer rep = pointer;
+        Pointer next;
+        while ((next = collapsedTo.get(rep)) != null) {
+            rep = next;
+        }
+        // path compression
+        while ((next = collapsedTo.get(pointer)) != null && next != rep) {
+            collapsedTo.put(pointer, rep);
+            pointer = next;
+        }
+        return rep;
+    }
+
+    /**
+     * Decides whether edge (source -> target) should be checked for cycles.
+     * Following lazy cycle detection, an edge is checked when the points-to
+     * sets of its two ends are identical after propagation along it,
+     * and each edge is checked at most once.
+     */
+    boolean shouldCheckCycle(Pointer source, Pointer target) {
+        PointsToSet sourcePts = source.getPointsToSet();
+        PointsToSet targetPts = target.getPointsToSet();
+        return sourcePts != targetPts
+                && !sourcePts.isEmpty()
+                && sourcePts.size() == targetPts.size()
+                && sourcePts.getObjects().equals(targetPts.getObjects())
+                && checkedEdges.add(new PFGEdge(source, target));
+    }
+
+    /**
+     * Collapses the cycle containing edge (source -> target), if any.
+     * After collapsing, all pointers of the cycle share the points-to set
+     * of the representative. The objects of the collapsed pointers are
+     * not added to the representative, but returned, so that they are
+     * propagated to the representative by pointer analysis.
+     *
+     * @return the collapsed cycle, or null if the edge is not on a cycle,
+     * or no pointer of the cycle can be collapsed.
+     */
+    CollapsedCycle collapseCycle(Pointer source, Pointer target) {
+        source = getRepresentative(source);
+        target = getRepresentative(target);
+        if (source == target) {
+            return null;
+        }
+        Set<Pointer> cycle = findSCC(target);
+        if (!cycle.contains(source)) {
+            return null;
+        }
+        // pointer analysis processes the field accesses, array accesses
+        // and calls on a variable via its own pointer, so at most one such
+        // variable is collapsed, and it becomes the representative.
+        // Otherwise, choose the pointer with the largest points-to set as
+        // representative, so that fewer objects are copied
+        Pointer rep = cycle.stream()
+                .filter(PointerFlowGraph::hasBaseUses)
+                .findFirst()
+                .orElseGet(() -> Collections.max(cycle, Comparator.comparingInt(
+                        p -> p.getPointsToSet().size())));
+        List<Pointer> collapsed = cycle.stream()
+                .filter(p -> p != rep && !hasBaseUses(p))
+                .toList();
+        if (collapsed.isEmpty()) {
+            return null;
+        }
+        PointsToSet pts = rep.getPointsToSet();
+        PointsToSet collapsedPts = new PointsToSet();
+        Set<Pointer> repSuccs = successors.computeIfAbsent(
+                rep, __ -> Sets.newHybridSet());
+        for (Pointer p : collapsed) {
+            p.getPointsToSet().forEach(collapsedPts::addObject);
+            collapsedTo.put(p, rep);
+            Set<Pointer> succs = successors.remove(p);
+            if (succs != null) {
+                repSuccs.addAll(succs);
+            }
+            Set<Pointer> merged = Sets.newHybridSet(members.get(p));
+            members.removeAll(p);
+            members.put(rep, p);
+            members.putAll(rep, merged);
+            p.setPointsToSet(pts);
+            merged.forEach(m -> m.setPointsToSet(pts));
+        }
+        return new CollapsedCycle(rep, collapsedPts);
+    }
+
+    /**
+     * Computes the strongly connected component which contains given
+     * representative by (iterative) Tarjan's algorithm.
+     */
+    private Set<Pointer> findSCC(Pointer root) {
+        Map<Pointer, Integer> indexes = Maps.newMap();
+        Map<Pointer, Integer> lows = Maps.newMap();
+        Deque<Pointer> stack = new ArrayDeque<>();
+        Set<Pointer> onStack = Sets.newSet();
+        Deque<Pointer> path = new ArrayDeque<>();
+        Deque<Iterator<Pointer>> succIters = new ArrayDeque<>();
+        indexes.put(root, 0);
+        lows.put(root, 0);
+        stack.push(root);
+        onStack.add(root);
+        path.push(root);
+        succIters.push(getSuccsOf(root).iterator());
+        while (!path.isEmpty()) {
+            Pointer node = path.peek();
+            Iterator<Pointer> succIter = succIters.peek();
+            if (succIter.hasNext()) {
+                Pointer succ = succIter.next();
+                if (!indexes.containsKey(succ)) {
+                    int index = indexes.size();
+                    indexes.put(succ, index);
+                    lows.put(succ, index);
+                    stack.push(succ);
+                    onStack.add(succ);
+                    path.push(succ);
+                    succIters.push(getSuccsOf(succ).iterator());
+                } else if (onStack.contains(succ)) {
+                    lows.put(node, Math.min(lows.get(node), indexes.get(succ)));
+                }
+            } else {
+                path.pop();
+                succIters.pop();
+                int low = lows.get(node);
+                if (!path.isEmpty()) {
+                    Pointer parent = path.peek();
+                    lows.put(parent, Math.min(lows.get(parent), low));
+                }
+                if (low == indexes.get(node)) {
+                    Set<Pointer> scc = Sets.newHybridSet();
+                    Pointer p;
+                    do {
+                        p = stack.pop();
+                        onStack.remove(p);
+                        scc.add(p);
+                    } while (p != node);
+                    if (node == root) {
+                        return scc;
+                    }
+                }
+            }
+        }
+        throw new AssertionError("SCC of " + root + " is not found");
+    }
+
+    /**
+     * @return true if given pointer is a variable which is the base of
+     * field or array accesses, or the receiver of calls.
+     */
+    private static boolean hasBaseUses(Pointer pointer) {
+        if (pointer instanceof VarPtr varPtr) {
+            Var var = varPtr.getVar();
+            return !var.getLoadFields().isEmpty()
+                    || !var.getStoreFields().isEmpty()
+                    || !var.getLoadArrays().isEmpty()
+                    || !var.getStoreArrays().isEmpty()
+                    || !var.getInvokes().isEmpty();
+        }
+        return false;
+    }
+
+    /**
+     * Represents a collapsed cycle, i.e., its representative and
+     * the objects of the collapsed pointers.
+     */
+    record CollapsedCycle(Pointer representative, PointsToSet pointsToSet) {
+    }
+
+    private record PFGEdge(Pointer source, Pointer target) {
     }
 }
@@ -23,11 +23,16 @@
 package pascal.taie.analysis.pta.ci;
 
 import pascal.taie.analysis.pta.core.heap.Obj;
+import pascal.taie.config.ConfigException;
+import pascal.taie.util.Indexer;
+import pascal.taie.util.SimpleIndexer;
+import pascal.taie.util.collection.IndexerBitSet;
 import pascal.taie.util.collection.Sets;
 
 import java.util.Collections;
 import java.util.Iterator;
 import java.util.Set;
+import java.util.function.Supplier;
 import java.util.stream.Stream;
 
 /**
@@ -35,21 +40,52 @@ import java.util.stream.Stream;
  */
 class PointsToSet implements Iterable<Obj> {
 
-    private final Set<Obj> set = Sets.newHybridSet();
+    /**
+     * Makes the sets that back the points-to sets.
+     */
+    private static Supplier<Set<Obj>> setFactory = Sets::newHybridSet;
+
+    private final Set<Obj> set;
 
     /**
      * Constructs an empty points-to set.
      */
     PointsToSet() {
+        this(setFactory.get());
+    }
+
+    private PointsToSet(Set<Obj> set) {
+        this.set = set;
     }
 
     /**
      * Constructs a points-to set containing one object.
      */
     PointsToSet(Obj obj) {
+        this();
         addObject(obj);
     }
 
+    /**
+     * Selects the representation of the points-to sets constructed
+     * afterwards. {@link CIPTA} calls this according to its {@code pts}
+     * option before it starts, and resets the kind to hybrid when it finishes.
+     *
+     * @param kind {@code hybrid} (or null) for hybrid sets, or {@code bit}
+     *             for bit sets over an index of the objects. The index
+     *             starts over with each call of this method.
+     */
+    static void setKind(String kind) {
+        if (kind == null || kind.equals("hybrid")) {
+            setFactory = Sets::newHybridSet;
+        } else if (kind.equals("bit")) {
+            Indexer<Obj> indexer = new SimpleIndexer<>();
+            setFactory = () -> new IndexerBitSet<>(indexer, true);
+        } else {
+            throw new ConfigException("Unknown points-to set kind: " + kind);
+        }
+    }
+
     /**
      * Adds an object to this set.
      *
@@ -60,6 +96,27 @@ class PointsToSet implements Iterable<Obj> {
         return set.add(obj);
     }
 
+    /**
+     * Adds all objects in given points-to set to this set.
+     *
+     * @return a new points-to set of the objects that are added to this
+     * set, i.e., the objects in given set that were not in this set.
+     * For two bit sets, this is computed word by word.
+     */
+    PointsToSet addAllDiff(PointsToSet pts) {
+        if (set instanceof IndexerBitSet<Obj> bits
+                && pts.set instanceof IndexerBitSet<Obj> otherBits) {
+            return new PointsToSet(bits.addAllDiff(otherBits));
+        }
+        PointsToSet diff = new PointsToSet();
+        for (Obj obj : pts) {
+            if (addObject(obj)) {
+                diff.addObject(obj);
+            }
+        }
+        return diff;
+    }
+
     /**
      * @return true if this points-to set contains the given object, otherwise false.
      */
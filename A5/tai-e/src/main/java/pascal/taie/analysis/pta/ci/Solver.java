@@ -31,6 +31,8 @@ import pascal.taie.analysis.graph.callgraph.DefaultCallGraph;
 import pascal.taie.analysis.graph.callgraph.Edge;
 import pascal.taie.analysis.pta.core.heap.HeapModel;
 import pascal.taie.analysis.pta.core.heap.Obj;
+import pascal.taie.analysis.pta.toolkit.OfflineVarSubstitution;
+import pascal.taie.config.AnalysisOptions;
 import pascal.taie.ir.exp.InvokeExp;
 import pascal.taie.ir.exp.Var;
 import pascal.taie.ir.proginfo.MethodRef;
@@ -55,6 +57,10 @@ class Solver {
 
     private final HeapModel heapModel;
 
+    private final boolean cycleElimination;
+
+    private final boolean varSubstitution;
+
     private DefaultCallGraph callGraph;
 
     private PointerFlowGraph pointerFlowGraph;
@@ -65,8 +71,12 @@ class Solver {
 
     private ClassHierarchy hierarchy;
 
-    Solver(HeapModel heapModel) {
+    Solver(AnalysisOptions options, HeapModel heapModel) {
         this.heapModel = heapModel;
+        this.cycleElimination = options.getBooleanOrDefault(
+                "cycle-elimination", false);
+        this.varSubstitution = options.getBooleanOrDefault(
+                "var-substitution", false);
     }
 
     /**
@@ -81,8 +91,9 @@ class Solver {
      * Initializes pointer analysis.
      */
     private void initialize() {
-        workList = new WorkList();
-        pointerFlowGraph = new PointerFlowGraph();
+        pointerFlowGraph = new PointerFlowGraph(varSubstitution ?
+                new OfflineVarSubstitution() : null);
+        workList = new WorkList(pointerFlowGraph);
         callGraph = new DefaultCallGraph();
         stmtProcessor = new StmtProcessor();
         hierarchy = World.get().getClassHierarchy();
@@ -124,12 +135,45 @@ class Solver {
     /**
      * Propagates pointsToSet to pt(pointer) and its PFG successors,
      * returns the difference set of pointsToSet and pt(pointer).
+     * Call {@link #collapseCycles(Pointer)} after propagating a non-empty
+     * difference set, which does nothing unless option
+     * {@code cycle-elimination} is set.
      */
     private PointsToSet propagate(Pointer pointer, PointsToSet pointsToSet) {
         // TODO - finish me
         return null;
     }
 
+    /**
+     * Lazy cycle detection: after propagation, an edge (pointer -> succ)
+     * whose two ends have identical points-to sets is likely on a cycle,
+     * then the cycle is searched and collapsed into a representative.
+     * The objects of the collapsed pointers are propagated to
+     * the representative. As the representative may hold objects which are
+     * new to the successors of the cycle, its points-to set is propagated
+     * to them again.
+     */
+    private void collapseCycles(Pointer pointer) {
+        if (!cycleElimination) {
+            return;
+        }
+        List<Pointer> candidates = pointerFlowGraph.getSuccsOf(pointer)
+                .stream()
+                .filter(succ -> pointerFlowGraph.shouldCheckCycle(pointer, succ))
+                .toList();
+        for (Pointer succ : candidates) {
+            PointerFlowGraph.CollapsedCycle cycle =
+                    pointerFlowGraph.collapseCycle(pointer, succ);
+            if (cycle != null) {
+                Pointer rep = cycle.representative();
+                workList.addEntry(rep, cycle.pointsToSet());
+                PointsToSet pts = rep.getPointsToSet();
+                pointerFlowGraph.getSuccsOf(rep)
+                        .forEach(s -> workList.addEntry(s, pts));
+            }
+        }
+    }
+
     /**
      * Processes instance calls when points-to set of the receiver variable changes.
      *
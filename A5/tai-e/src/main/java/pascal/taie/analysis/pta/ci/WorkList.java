@@ -27,16 +27,27 @@ import java.util.Queue;
 
 /**
  * Represents work list in pointer analysis.
+ * <p>
+ * The pointers of entries are redirected to their representatives in
+ * the pointer flow graph, both when the entries are added and when they
+ * are retrieved, as a pointer may be collapsed into a cycle meanwhile.
  */
 class WorkList {
 
     private final Queue<Entry> entries = new ArrayDeque<>();
 
+    private final PointerFlowGraph pointerFlowGraph;
+
+    WorkList(PointerFlowGraph pointerFlowGraph) {
+        this.pointerFlowGraph = pointerFlowGraph;
+    }
+
     /**
      * Adds an entry to the work list.
      */
     void addEntry(Pointer pointer, PointsToSet pointsToSet) {
-        entries.add(new Entry(pointer, pointsToSet));
+        entries.add(new Entry(
+                pointerFlowGraph.getRepresentative(pointer), pointsToSet));
     }
 
     /**
@@ -44,7 +55,14 @@ class WorkList {
      * if this work list is empty.
      */
     Entry pollEntry() {
-        return entries.poll();
+        Entry entry = entries.poll();
+        if (entry != null) {
+            Pointer rep = pointerFlowGraph.getRepresentative(entry.pointer());
+            if (rep != entry.pointer()) {
+                entry = new Entry(rep, entry.pointsToSet());
+            }
+        }
+        return entry;
     }
 
     /**
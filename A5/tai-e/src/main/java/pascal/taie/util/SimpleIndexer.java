@@ -0,0 +1,64 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.util;
+
+import pascal.taie.util.collection.Maps;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Indexer that assigns indexes to objects in the order they are first
+ * indexed, starting from 0.
+ *
+ * @param <E> type of objects
+ */
+public class SimpleIndexer<E> implements Indexer<E> {
+
+    private final Map<E, Integer> indexes = Maps.newMap();
+
+    private final List<E> objects = new ArrayList<>();
+
+    @Override
+    public int getIndex(E o) {
+        Integer index = indexes.get(o);
+        if (index == null) {
+            index = objects.size();
+            indexes.put(o, index);
+            objects.add(o);
+        }
+        return index;
+    }
+
+    @Override
+    public int indexOf(Object o) {
+        Integer index = indexes.get(o);
+        return index != null ? index : -1;
+    }
+
+    @Override
+    public E getObject(int index) {
+        return objects.get(index);
+    }
+}
@@ -0,0 +1,319 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.util.collection;
+
+import pascal.taie.util.Indexer;
+
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Bit set of objects that are numbered by an {@link Indexer}. Each element
+ * is represented by the bit at its index.
+ * <p>
+ * A dense bit set stores the words from index 0 to its largest element.
+ * A sparse bit set only stores the words from its smallest element to its
+ * largest one, which saves space when the elements of a set are clustered
+ * far from index 0, e.g., the objects allocated in one part of a program.
+ * <p>
+ * Bulk operations between two bit sets of the same indexer, i.e.,
+ * {@link #addAll(Collection)}, {@link #addAllDiff(IndexerBitSet)} and
+ * {@link #equals(Object)}, are performed word by word.
+ *
+ * @param <E> type of elements
+ */
+public class IndexerBitSet<E> extends AbstractSet<E> {
+
+    private static final int ADDRESS_BITS_PER_WORD = 6;
+
+    private static final int BITS_PER_WORD = 1 << ADDRESS_BITS_PER_WORD;
+
+    private static final long[] EMPTY_WORDS = {};
+
+    private final Indexer<E> indexer;
+
+    private final boolean isSparse;
+
+    /**
+     * Index of the word stored in {@code words[0]}, which is always 0
+     * for dense bit sets.
+     */
+    private int offset = 0;
+
+    private long[] words = EMPTY_WORDS;
+
+    private int size = 0;
+
+    public IndexerBitSet(Indexer<E> indexer, boolean isSparse) {
+        this.indexer = indexer;
+        this.isSparse = isSparse;
+    }
+
+    private static int wordIndex(int bitIndex) {
+        return bitIndex >> ADDRESS_BITS_PER_WORD;
+    }
+
+    /**
+     * Ensures that the words from {@code from} (inclusive)
+     * to {@code to} (exclusive) are stored in this set.
+     */
+    private void ensureWords(int from, int to) {
+        if (!isSparse) {
+            from = 0;
+        }
+        if (words.length == 0) {
+            offset = from;
+            words = new long[to - from];
+            return;
+        }
+        int end = offset + words.length;
+        if (from >= offset && to <= end) {
+            return;
+        }
+        int newOffset = Math.min(from, offset);
+        int newEnd = Math.max(to, end);
+        if (newEnd > end) {
+            // grow geometrically, as sets mostly grow at the end
+            newEnd = Math.max(newEnd, offset + 2 * words.length);
+        }
+        long[] newWords = new long[newEnd - newOffset];
+        System.arraycopy(words, 0, newWords, offset - newOffset, words.length);
+        offset = newOffset;
+        words = newWords;
+    }
+
+    @Override
+    public boolean contains(Object o) {
+        int index = indexer.indexOf(o);
+        if (index < 0) {
+            return false;
+        }
+        int i = wordIndex(index) - offset;
+        return i >= 0 && i < words.length
+                && (words[i] & (1L << index)) != 0;
+    }
+
+    @Override
+    public boolean add(E e) {
+        int index = indexer.getIndex(e);
+        int wordIndex = wordIndex(index);
+        ensureWords(wordIndex, wordIndex + 1);
+        int i = wordIndex - offset;
+        long oldWord = words[i];
+        words[i] = oldWord | (1L << index);
+        if (words[i] != oldWord) {
+            ++size;
+            return true;
+        }
+        return false;
+    }
+
+    @Override
+    public boolean remove(Object o) {
+        int index = indexer.indexOf(o);
+        if (index < 0) {
+            return false;
+        }
+        int i = wordIndex(index) - offset;
+        if (i < 0 || i >= words.length) {
+            return false;
+        }
+        long oldWord = words[i];
+        words[i] = oldWord & ~(1L << index);
+        if (words[i] != oldWord) {
+            --size;
+            return true;
+        }
+        return false;
+    }
+
+    @Override
+    public boolean addAll(Collection<? extends E> c) {
+        if (c instanceof IndexerBitSet<? extends E> other
+                && other.indexer == indexer) {
+            return addAllWords(other, null);
+        }
+        return super.addAll(c);
+    }
+
+    /**
+     * Adds all elements in given set to this set.
+     *
+     * @return a new set of the elements that are added to this set,
+     * i.e., the elements of {@code other} that were not in this set.
+     */
+    public IndexerBitSet<E> addAllDiff(IndexerBitSet<E> other) {
+        IndexerBitSet<E> diff = new IndexerBitSet<>(indexer, isSparse);
+        if (other.indexer == indexer) {
+            addAllWords(other, diff);
+        } else {
+            for (E e : other) {
+                if (add(e)) {
+                    diff.add(e);
+                }
+            }
+        }
+        return diff;
+    }
+
+    /**
+     * Adds all words of {@code other} to this set, and records the newly
+     * added bits in {@code diff} if it is not null.
+     */
+    private boolean addAllWords(IndexerBitSet<?> other, IndexerBitSet<?> diff) {
+        if (other.size == 0) {
+            return false;
+        }
+        long[] otherWords = other.words;
+        int otherOffset = other.offset;
+        ensureWords(otherOffset, otherOffset + otherWords.length);
+        if (diff != null) {
+            diff.ensureWords(otherOffset, otherOffset + otherWords.length);
+        }
+        int added = 0;
+        for (int j = 0; j < otherWords.length; ++j) {
+            int i = otherOffset + j - offset;
+            long newBits = otherWords[j] & ~words[i];
+            if (newBits != 0) {
+                words[i] |= newBits;
+                int n = Long.bitCount(newBits);
+                added += n;
+                if (diff != null) {
+                    diff.words[otherOffset + j - diff.offset] = newBits;
+                    diff.size += n;
+                }
+            }
+        }
+        size += added;
+        return added != 0;
+    }
+
+    @Override
+    public void clear() {
+        Arrays.fill(words, 0);
+        size = 0;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return position (in {@link #words}) based bit index of the first set
+     * bit that occurs on or after the given one, or -1 if there is no such bit.
+     */
+    private int nextSetBit(int fromIndex) {
+        int i = wordIndex(fromIndex);
+        if (i >= words.length) {
+            return -1;
+        }
+        long word = words[i] & (-1L << fromIndex);
+        while (true) {
+            if (word != 0) {
+                return i * BITS_PER_WORD + Long.numberOfTrailingZeros(word);
+            }
+            if (++i == words.length) {
+                return -1;
+            }
+            word = words[i];
+        }
+    }
+
+    @Override
+    public Iterator<E> iterator() {
+        return new Iterator<>() {
+
+            private int next = nextSetBit(0);
+
+            private int last = -1;
+
+            @Override
+            public boolean hasNext() {
+                return next >= 0;
+            }
+
+            @Override
+            public E next() {
+                if (next < 0) {
+                    throw new NoSuchElementException();
+                }
+                last = next;
+                next = nextSetBit(next + 1);
+                return indexer.getObject(offset * BITS_PER_WORD + last);
+            }
+
+            @Override
+            public void remove() {
+                if (last < 0) {
+                    throw new IllegalStateException();
+                }
+                words[wordIndex(last)] &= ~(1L << last);
+                --size;
+                last = -1;
+            }
+        };
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof IndexerBitSet<?> other)
+                || other.indexer != indexer) {
+            return super.equals(o);
+        }
+        if (size != other.size) {
+            return false;
+        }
+        int from = Math.min(offset, other.offset);
+        int to = Math.max(offset + words.length,
+                other.offset + other.words.length);
+        for (int w = from; w < to; ++w) {
+            if (getWord(w) != other.getWord(w)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private long getWord(int wordIndex) {
+        int i = wordIndex - offset;
+        return i >= 0 && i < words.length ? words[i] : 0;
+    }
+
+    @Override
+    public int hashCode() {
+        // keep consistent with the hash code of other sets
+        return super.hashCode();
+    }
+}
@@ -0,0 +1,179 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.pta.ci;
+
+import org.junit.Test;
+import pascal.taie.analysis.pta.core.heap.Obj;
+import pascal.taie.ir.exp.ArrayAccess;
+import pascal.taie.ir.exp.Var;
+import pascal.taie.ir.stmt.LoadArray;
+import pascal.taie.language.classes.JMethod;
+import pascal.taie.language.type.PrimitiveType;
+import pascal.taie.language.type.Type;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Checks the collapsing of cycles in {@link PointerFlowGraph} on
+ * hand-built graphs, and the redirection of the work-list entries
+ * of collapsed pointers to their representative.
+ */
+public class PointerFlowGraphTest {
+
+    private final PointerFlowGraph pfg = new PointerFlowGraph(null);
+
+    private int vars = 0;
+
+    private int objs = 0;
+
+    /**
+     * Graph a -> b -> c -> a, c -> d, where a has the largest points-to
+     * set and becomes the representative.
+     */
+    @Test
+    public void testCollapseCycle() {
+        Pointer a = newPointer(), b = newPointer(),
+                c = newPointer(), d = newPointer();
+        Obj o1 = newObj(), o2 = newObj(), o3 = newObj();
+        addObjects(a, o1, o2);
+        addObjects(b, o3);
+        pfg.addEdge(a, b);
+        pfg.addEdge(b, c);
+        pfg.addEdge(c, a);
+        pfg.addEdge(c, d);
+        // d is not on a cycle with c
+        assertNull(pfg.collapseCycle(c, d));
+        PointerFlowGraph.CollapsedCycle cycle = pfg.collapseCycle(a, b);
+        assertSame(a, cycle.representative());
+        // the objects of b and c are left to be propagated to a
+        assertEquals(Set.of(o3), cycle.pointsToSet().getObjects());
+        assertEquals(Set.of(o1, o2), a.getPointsToSet().getObjects());
+        for (Pointer p : List.of(a, b, c)) {
+            assertSame(a, pfg.getRepresentative(p));
+            assertSame(a.getPointsToSet(), p.getPointsToSet());
+            assertEquals(Set.of(d), pfg.getSuccsOf(p));
+        }
+        assertSame(d, pfg.getRepresentative(d));
+        // edges within the cycle are self-loops of the representative
+        assertFalse(pfg.addEdge(b, c));
+        assertNull(pfg.collapseCycle(a, b));
+    }
+
+    /**
+     * A variable which is the base of field or array accesses, or
+     * the receiver of calls, becomes the representative, so that
+     * the solver processes these accesses for all objects of the cycle.
+     */
+    @Test
+    public void testBaseVarIsRepresentative() {
+        Pointer a = newPointer(), c = newPointer();
+        Var base = newVar();
+        new LoadArray(newVar(), new ArrayAccess(base, newVar()));
+        Pointer b = pfg.getVarPtr(base);
+        Obj o1 = newObj(), o2 = newObj();
+        addObjects(a, o1, o2);
+        pfg.addEdge(a, b);
+        pfg.addEdge(b, c);
+        pfg.addEdge(c, a);
+        PointerFlowGraph.CollapsedCycle cycle = pfg.collapseCycle(a, b);
+        assertSame(b, cycle.representative());
+        assertEquals(Set.of(o1, o2), cycle.pointsToSet().getObjects());
+        assertTrue(b.getPointsToSet().isEmpty());
+        assertSame(b, pfg.getRepresentative(a));
+        assertSame(b, pfg.getRepresentative(c));
+    }
+
+    @Test
+    public void testWorkListRedirectsEntries() {
+        WorkList workList = new WorkList(pfg);
+        Pointer a = newPointer(), b = newPointer();
+        Obj o1 = newObj(), o2 = newObj();
+        addObjects(a, o1);
+        PointsToSet before = new PointsToSet(o2);
+        // added before b is collapsed, redirected when polled
+        workList.addEntry(b, before);
+        pfg.addEdge(a, b);
+        pfg.addEdge(b, a);
+        assertSame(a, pfg.collapseCycle(a, b).representative());
+        // added after b is collapsed, redirected when added
+        PointsToSet after = new PointsToSet(o1);
+        workList.addEntry(b, after);
+        WorkList.Entry entry = workList.pollEntry();
+        assertSame(a, entry.pointer());
+        assertSame(before, entry.pointsToSet());
+        entry = workList.pollEntry();
+        assertSame(a, entry.pointer());
+        assertSame(after, entry.pointsToSet());
+        assertTrue(workList.isEmpty());
+    }
+
+    private Var newVar() {
+        int index = vars++;
+        return new Var(null, "v" + index, PrimitiveType.INT, index);
+    }
+
+    private Pointer newPointer() {
+        return pfg.getVarPtr(newVar());
+    }
+
+    private Obj newObj() {
+        return new TestObj(objs++);
+    }
+
+    private static void addObjects(Pointer pointer, Obj... objs) {
+        for (Obj obj : objs) {
+            pointer.getPointsToSet().addObject(obj);
+        }
+    }
+
+    private record TestObj(int id) implements Obj {
+
+        @Override
+        public Type getType() {
+            return null;
+        }
+
+        @Override
+        public Object getAllocation() {
+            return id;
+        }
+
+        @Override
+        public Optional<JMethod> getContainerMethod() {
+            return Optional.empty();
+        }
+
+        @Override
+        public Type getContainerType() {
+            return null;
+        }
+    }
+}
@@ -60,6 +60,9 @@ public class CallGraphBuilder extends ProgramAnalysis {
                     "Unknown call graph building algorithm: " + algorithm);
         };
         CallGraph<Invoke, JMethod> callGraph = builder.build();
+        if (getOptions().getBooleanOrDefault("freeze", false)) {
+            callGraph = new FrozenCallGraph<>(callGraph);
+        }
         takeAction(callGraph);
         return callGraph;
     }
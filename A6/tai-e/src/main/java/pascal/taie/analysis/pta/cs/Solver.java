@@ -28,6 +28,7 @@ import pascal.taie.World;
 import pascal.taie.analysis.graph.callgraph.CallGraphs;
 import pascal.taie.analysis.graph.callgraph.CallKind;
 import pascal.taie.analysis.graph.callgraph.Edge;
+import pascal.taie.analysis.graph.callgraph.FrozenCallGraph;
 import pascal.taie.analysis.pta.PointerAnalysisResult;
 import pascal.taie.analysis.pta.PointerAnalysisResultImpl;
 import pascal.taie.analysis.pta.core.cs.CSCallGraph;
@@ -42,11 +43,13 @@ import pascal.taie.analysis.pta.core.cs.element.InstanceField;
 import pascal.taie.analysis.pta.core.cs.element.MapBasedCSManager;
 import pascal.taie.analysis.pta.core.cs.element.Pointer;
 import pascal.taie.analysis.pta.core.cs.element.StaticField;
+import pascal.taie.analysis.pta.core.cs.element.VarSubstitutingCSManager;
 import pascal.taie.analysis.pta.core.cs.selector.ContextSelector;
 import pascal.taie.analysis.pta.core.heap.HeapModel;
 import pascal.taie.analysis.pta.core.heap.Obj;
 import pascal.taie.analysis.pta.pts.PointsToSet;
 import pascal.taie.analysis.pta.pts.PointsToSetFactory;
+import pascal.taie.analysis.pta.toolkit.OfflineVarSubstitution;
 import pascal.taie.config.AnalysisOptions;
 import pascal.taie.ir.exp.InvokeExp;
 import pascal.taie.ir.exp.Var;
@@ -62,12 +65,16 @@ import pascal.taie.language.classes.JField;
 import pascal.taie.language.classes.JMethod;
 import pascal.taie.language.type.Type;
 
+import java.util.List;
+
 class Solver {
 
     private static final Logger logger = LogManager.getLogger(Solver.class);
 
     private final AnalysisOptions options;
 
+    private final boolean cycleElimination;
+
     private final HeapModel heapModel;
 
     private final ContextSelector contextSelector;
@@ -85,6 +92,8 @@ class Solver {
     Solver(AnalysisOptions options, HeapModel heapModel,
            ContextSelector contextSelector) {
         this.options = options;
+        this.cycleElimination = options.getBooleanOrDefault(
+                "cycle-elimination", false);
         this.heapModel = heapModel;
         this.contextSelector = contextSelector;
     }
@@ -96,9 +105,15 @@ class Solver {
 
     private void initialize() {
         csManager = new MapBasedCSManager();
+        if (options.getBooleanOrDefault("var-substitution", false)) {
+            csManager = new VarSubstitutingCSManager(csManager,
+                    new OfflineVarSubstitution());
+        }
         callGraph = new CSCallGraph(csManager);
         pointerFlowGraph = new PointerFlowGraph();
-        workList = new WorkList();
+        workList = new WorkList(
+                options.getBooleanOrDefault("delta-propagation", false),
+                pointerFlowGraph);
         // process program entry, i.e., main method
         Context defContext = contextSelector.getEmptyContext();
         JMethod main = World.get().getMainMethod();
@@ -149,12 +164,48 @@ class Solver {
     /**
      * Propagates pointsToSet to pt(pointer) and its PFG successors,
      * returns the difference set of pointsToSet and pt(pointer).
+     * <p>
+     * {@link PointsToSet#addAllDiff(PointsToSet)} computes the difference
+     * set while adding it, word by word for bit-set points-to sets.
+     * Call {@link #collapseCycles(Pointer)} after propagating a non-empty
+     * difference set, which does nothing unless option
+     * {@code cycle-elimination} is set.
      */
     private PointsToSet propagate(Pointer pointer, PointsToSet pointsToSet) {
         // TODO - finish me
         return null;
     }
 
+    /**
+     * Lazy cycle detection: after propagation, an edge (pointer -> succ)
+     * whose two ends have identical points-to sets is likely on a cycle,
+     * then the cycle is searched and collapsed into a representative.
+     * The objects of the collapsed pointers are propagated to
+     * the representative. As the representative may hold objects which are
+     * new to the successors of the cycle, its points-to set is propagated
+     * to them again.
+     */
+    private void collapseCycles(Pointer pointer) {
+        if (!cycleElimination) {
+            return;
+        }
+        List<Pointer> candidates = pointerFlowGraph.getSuccsOf(pointer)
+                .stream()
+                .filter(succ -> pointerFlowGraph.shouldCheckCycle(pointer, succ))
+                .toList();
+        for (Pointer succ : candidates) {
+            PointerFlowGraph.CollapsedCycle cycle =
+                    pointerFlowGraph.collapseCycle(pointer, succ);
+            if (cycle != null) {
+                Pointer rep = cycle.representative();
+                workList.addEntry(rep, cycle.pointsToSet());
+                PointsToSet pts = rep.getPointsToSet();
+                pointerFlowGraph.getSuccsOf(rep)
+                        .forEach(s -> workList.addEntry(s, pts));
+            }
+        }
+    }
+
     /**
      * Processes instance calls when points-to set of the receiver variable changes.
      *
@@ -180,7 +231,10 @@ class Solver {
 
     PointerAnalysisResult getResult() {
         if (result == null) {
-            result = new PointerAnalysisResultImpl(csManager, callGraph);
+            result = new PointerAnalysisResultImpl(csManager,
+                    options.getBooleanOrDefault("freeze-call-graph", false)
+                            ? new FrozenCallGraph<>(callGraph)
+                            : callGraph);
         }
         return result;
     }
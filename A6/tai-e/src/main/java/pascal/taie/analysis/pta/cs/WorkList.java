@@ -24,22 +24,80 @@ package pascal.taie.analysis.pta.cs;
 
 import pascal.taie.analysis.pta.core.cs.element.Pointer;
 import pascal.taie.analysis.pta.pts.PointsToSet;
+import pascal.taie.analysis.pta.pts.PointsToSetFactory;
+import pascal.taie.util.collection.Maps;
 
 import java.util.ArrayDeque;
+import java.util.Map;
 import java.util.Queue;
 
 /**
  * Represents work list in pointer analysis.
+ * <p>
+ * By default, each call of {@link #addEntry(Pointer, PointsToSet)} queues
+ * a separate entry. In difference-propagation mode, the work list instead
+ * keeps one pending delta per pointer: adding an entry for a pointer that is
+ * already queued merges the points-to set into its pending delta, so each
+ * pointer is queued at most once, and the polled entry carries all objects
+ * that flowed to the pointer since it was queued.
+ * <p>
+ * Entries of pointers which have been collapsed into a representative
+ * in the pointer flow graph are redirected to the representative, both
+ * when they are added and when they are polled, as they may have been
+ * added before the pointer was collapsed.
  */
 class WorkList {
 
     private final Queue<Entry> entries = new ArrayDeque<>();
 
+    private final PointerFlowGraph pointerFlowGraph;
+
+    /**
+     * Whether the work list is in difference-propagation mode.
+     */
+    private final boolean mergeEntries;
+
+    /**
+     * Queued pointers in difference-propagation mode.
+     */
+    private final Queue<Pointer> pointers = new ArrayDeque<>();
+
+    /**
+     * Pending deltas of the queued pointers in difference-propagation mode.
+     */
+    private final Map<Pointer, Delta> deltas = Maps.newMap();
+
+    WorkList(PointerFlowGraph pointerFlowGraph) {
+        this(false, pointerFlowGraph);
+    }
+
+    /**
+     * @param mergeEntries     whether to merge the entries of the same pointer,
+     *                         i.e., to work in difference-propagation mode.
+     * @param pointerFlowGraph the pointer flow graph which gives
+     *                         the representatives of collapsed pointers.
+     */
+    WorkList(boolean mergeEntries, PointerFlowGraph pointerFlowGraph) {
+        this.mergeEntries = mergeEntries;
+        this.pointerFlowGraph = pointerFlowGraph;
+    }
+
     /**
      * Adds an entry to the work list.
      */
     void addEntry(Pointer pointer, PointsToSet pointsToSet) {
-        entries.add(new Entry(pointer, pointsToSet));
+        pointer = pointerFlowGraph.getRepresentative(pointer);
+        if (!mergeEntries) {
+            entries.add(new Entry(pointer, pointsToSet));
+            return;
+        }
+        Delta delta = deltas.get(pointer);
+        if (delta == null) {
+            deltas.put(pointer, new Delta(pointsToSet));
+            pointers.add(pointer);
+        } else {
+            delta.merge(pointsToSet);
+        }
     }
 
     /**
@@ -47,14 +105,28 @@ class WorkList {
      * if this work list is empty.
      */
     Entry pollEntry() {
-        return entries.poll();
+        Entry entry;
+        if (!mergeEntries) {
+            entry = entries.poll();
+        } else {
+            Pointer pointer = pointers.poll();
+            entry = pointer == null ? null
+                    : new Entry(pointer, deltas.remove(pointer).pointsToSet);
+        }
+        if (entry != null) {
+            Pointer rep = pointerFlowGraph.getRepresentative(entry.pointer());
+            if (rep != entry.pointer()) {
+                entry = new Entry(rep, entry.pointsToSet());
+            }
+        }
+        return entry;
     }
 
     /**
      * @return true if the work list is empty, otherwise false.
      */
     boolean isEmpty() {
-        return entries.isEmpty();
+        return entries.isEmpty() && pointers.isEmpty();
     }
 
     /**
@@ -63,4 +135,31 @@ class WorkList {
      */
     record Entry(Pointer pointer, PointsToSet pointsToSet) {
     }
+
+    /**
+     * Pending delta of a pointer. The same delta is usually added to all
+     * PFG successors of a pointer, so the first points-to set added for
+     * a pointer is shared, and it is copied only when another one is
+     * merged into it.
+     */
+    private static class Delta {
+
+        private PointsToSet pointsToSet;
+
+        private boolean isShared = true;
+
+        private Delta(PointsToSet pointsToSet) {
+            this.pointsToSet = pointsToSet;
+        }
+
+        private void merge(PointsToSet other) {
+            if (isShared) {
+                PointsToSet copy = PointsToSetFactory.make();
+                copy.addAll(pointsToSet);
+                pointsToSet = copy;
+                isShared = false;
+            }
+            pointsToSet.addAll(other);
+        }
+    }
 }
@@ -23,9 +23,11 @@
 package pascal.taie.analysis.pta.pts;
 
 import pascal.taie.analysis.pta.core.cs.element.CSObj;
+import pascal.taie.config.ConfigException;
+import pascal.taie.util.Indexer;
+import pascal.taie.util.SimpleIndexer;
 import pascal.taie.util.collection.Sets;
 
-import java.util.Set;
 import java.util.function.Supplier;
 
 /**
@@ -33,10 +35,34 @@ import java.util.function.Supplier;
  */
 public class PointsToSetFactory {
 
-    private static final Supplier<Set<CSObj>> setFactory = Sets::newHybridSet;
+    private static Supplier<PointsToSet> setFactory = PointsToSetFactory::makeHybrid;
+
+    /**
+     * Selects the representation of the points-to sets made afterwards.
+     * The pointer analysis calls this according to its {@code pts} option
+     * before it starts, and resets the kind to hybrid when it finishes.
+     *
+     * @param kind {@code hybrid} (or null) for hybrid sets, or {@code bit}
+     *             for bit sets over an index of the objects. The index
+     *             starts over with each call of this method.
+     */
+    public static void setKind(String kind) {
+        if (kind == null || kind.equals("hybrid")) {
+            setFactory = PointsToSetFactory::makeHybrid;
+        } else if (kind.equals("bit")) {
+            Indexer<CSObj> indexer = new SimpleIndexer<>();
+            setFactory = () -> new BitPointsToSet(indexer);
+        } else {
+            throw new ConfigException("Unknown points-to set kind: " + kind);
+        }
+    }
+
+    private static PointsToSet makeHybrid() {
+        return new DelegatePointsToSet(Sets.newHybridSet());
+    }
 
     public static PointsToSet make() {
-        return new DelegatePointsToSet(setFactory.get());
+        return setFactory.get();
     }
 
     /**
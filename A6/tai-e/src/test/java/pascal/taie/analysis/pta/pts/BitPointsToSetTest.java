@@ -0,0 +1,164 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.pta.pts;
+
+import org.junit.Test;
+import pascal.taie.analysis.pta.core.cs.context.ListContext;
+import pascal.taie.analysis.pta.core.cs.element.CSManager;
+import pascal.taie.analysis.pta.core.cs.element.CSObj;
+import pascal.taie.analysis.pta.core.cs.element.MapBasedCSManager;
+import pascal.taie.analysis.pta.core.heap.Obj;
+import pascal.taie.language.classes.JMethod;
+import pascal.taie.language.type.Type;
+import pascal.taie.util.Indexer;
+import pascal.taie.util.SimpleIndexer;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Random;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Checks the operations of {@link BitPointsToSet} against the ones of
+ * {@link HashSet}s, between bit sets as well as with hybrid points-to sets.
+ */
+public class BitPointsToSetTest {
+
+    private static final int ROUNDS = 200;
+
+    private static final int OBJECTS = 600;
+
+    @Test
+    public void testRandomOperations() {
+        Random random = new Random(46);
+        List<CSObj> objs = newObjects();
+        Indexer<CSObj> indexer = new SimpleIndexer<>();
+        objs.forEach(indexer::getIndex);
+        for (int round = 0; round < ROUNDS; ++round) {
+            String message = "round " + round;
+            Set<CSObj> expected = randomSet(random, objs);
+            PointsToSet pts = newBitSet(indexer, expected);
+            assertSameSet(message, expected, pts);
+            Set<CSObj> other = randomSet(random, objs);
+            // bit sets are added word by word, other sets object by object
+            PointsToSet otherPts = random.nextBoolean()
+                    ? newBitSet(indexer, other) : newHybridSet(other);
+            if (random.nextBoolean()) {
+                assertEquals(message, expected.addAll(other), pts.addAll(otherPts));
+            } else {
+                Set<CSObj> expectedDiff = new HashSet<>(other);
+                expectedDiff.removeAll(expected);
+                expected.addAll(other);
+                assertSameSet(message, expectedDiff, pts.addAllDiff(otherPts));
+            }
+            assertSameSet(message, expected, pts);
+            CSObj obj = objs.get(random.nextInt(OBJECTS));
+            assertEquals(message, expected.add(obj), pts.addObject(obj));
+            assertSameSet(message, expected, pts);
+        }
+    }
+
+    /**
+     * @return objects in two contexts. They are indexed in this order.
+     */
+    private static List<CSObj> newObjects() {
+        CSManager csManager = new MapBasedCSManager();
+        List<CSObj> objs = new ArrayList<>();
+        for (int i = 0; i < OBJECTS; ++i) {
+            objs.add(csManager.getCSObj(i % 2 == 0 ?
+                    ListContext.make() : ListContext.make("c"), new TestObj(i)));
+        }
+        return objs;
+    }
+
+    /**
+     * @return a random set of up to two clusters of objects,
+     * which are close in the index.
+     */
+    private static Set<CSObj> randomSet(Random random, List<CSObj> objs) {
+        Set<CSObj> set = new HashSet<>();
+        int clusters = random.nextInt(3);
+        for (int c = 0; c < clusters; ++c) {
+            int base = random.nextInt(OBJECTS);
+            int size = random.nextInt(40);
+            for (int i = 0; i < size; ++i) {
+                set.add(objs.get(Math.min(OBJECTS - 1, base + random.nextInt(150))));
+            }
+        }
+        return set;
+    }
+
+    private static PointsToSet newBitSet(Indexer<CSObj> indexer, Set<CSObj> objs) {
+        PointsToSet pts = new BitPointsToSet(indexer);
+        objs.forEach(pts::addObject);
+        return pts;
+    }
+
+    private static PointsToSet newHybridSet(Set<CSObj> objs) {
+        PointsToSet pts = PointsToSetFactory.make();
+        objs.forEach(pts::addObject);
+        return pts;
+    }
+
+    private static void assertSameSet(
+            String message, Set<CSObj> expected, PointsToSet actual) {
+        assertEquals(message, expected.size(), actual.size());
+        assertEquals(message, expected.isEmpty(), actual.isEmpty());
+        assertEquals(message, expected, new HashSet<>(actual.getObjects()));
+        assertEquals(message, expected, actual.objects().collect(Collectors.toSet()));
+        for (CSObj obj : actual) {
+            assertEquals(message, true, expected.contains(obj));
+        }
+        for (CSObj obj : expected) {
+            assertEquals(message, true, actual.contains(obj));
+        }
+    }
+
+    private record TestObj(int id) implements Obj {
+
+        @Override
+        public Type getType() {
+            return null;
+        }
+
+        @Override
+        public Object getAllocation() {
+            return id;
+        }
+
+        @Override
+        public Optional<JMethod> getContainerMethod() {
+            return Optional.empty();
+        }
+
+        @Override
+        public Type getContainerType() {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,275 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.util.collection;
+
+import org.junit.Test;
+import pascal.taie.util.Indexer;
+import pascal.taie.util.SimpleIndexer;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Checks the operations of dense and sparse {@link IndexerBitSet}s
+ * against the ones of {@link HashSet}s on random clustered elements,
+ * so that the windows of sparse bit sets start far from index 0 and grow
+ * at both ends.
+ */
+public class IndexerBitSetTest {
+
+    private static final int ROUNDS = 200;
+
+    /**
+     * Elements are integers in [0, UNIVERSE), and each of them
+     * is indexed by itself.
+     */
+    private static final int UNIVERSE = 1024;
+
+    @Test
+    public void testAddRemoveContains() {
+        Random random = new Random(41);
+        Indexer<Integer> indexer = newIndexer();
+        for (int round = 0; round < ROUNDS; ++round) {
+            for (boolean isSparse : List.of(false, true)) {
+                String message = "round " + round + ", sparse " + isSparse;
+                IndexerBitSet<Integer> set = new IndexerBitSet<>(indexer, isSparse);
+                Set<Integer> expected = new HashSet<>();
+                int base = random.nextInt(UNIVERSE);
+                for (int i = 0; i < 100; ++i) {
+                    // move the cluster now and then, so the window grows at either end
+                    if (random.nextInt(20) == 0) {
+                        base = random.nextInt(UNIVERSE);
+                    }
+                    int e = element(random, base);
+                    if (random.nextInt(3) == 0) {
+                        assertEquals(message, expected.remove(e), set.remove(e));
+                    } else {
+                        assertEquals(message, expected.add(e), set.add(e));
+                    }
+                    assertEquals(message, expected.size(), set.size());
+                }
+                for (int e = 0; e < UNIVERSE; ++e) {
+                    assertEquals(message + ", element " + e,
+                            expected.contains(e), set.contains(e));
+                }
+                assertFalse(message, set.contains("not indexed"));
+                assertFalse(message, set.remove("not indexed"));
+                assertSameSet(message, expected, set);
+            }
+        }
+    }
+
+    @Test
+    public void testAddAll() {
+        Random random = new Random(42);
+        Indexer<Integer> indexer = newIndexer();
+        for (int round = 0; round < ROUNDS; ++round) {
+            for (boolean isSparse : List.of(false, true)) {
+                String message = "round " + round + ", sparse " + isSparse;
+                Set<Integer> expected = randomSet(random);
+                IndexerBitSet<Integer> set = newBitSet(indexer, isSparse, expected);
+                Set<Integer> other = randomSet(random);
+                if (random.nextBoolean()) {
+                    // word by word
+                    assertEquals(message, expected.addAll(other),
+                            set.addAll(newBitSet(indexer, isSparse, other)));
+                } else {
+                    // element by element
+                    assertEquals(message, expected.addAll(other),
+                            set.addAll(new HashSet<>(other)));
+                }
+                assertSameSet(message, expected, set);
+            }
+        }
+    }
+
+    @Test
+    public void testAddAllDiff() {
+        Random random = new Random(43);
+        Indexer<Integer> indexer = newIndexer();
+        Indexer<Integer> otherIndexer = newIndexer();
+        for (int round = 0; round < ROUNDS; ++round) {
+            for (boolean isSparse : List.of(false, true)) {
+                String message = "round " + round + ", sparse " + isSparse;
+                Set<Integer> expected = randomSet(random);
+                IndexerBitSet<Integer> set = newBitSet(indexer, isSparse, expected);
+                Set<Integer> other = randomSet(random);
+                Set<Integer> expectedDiff = new HashSet<>(other);
+                expectedDiff.removeAll(expected);
+                expected.addAll(other);
+                // the sets of another indexer are added element by element
+                IndexerBitSet<Integer> diff = set.addAllDiff(newBitSet(
+                        random.nextBoolean() ? indexer : otherIndexer,
+                        isSparse, other));
+                assertSameSet(message, expectedDiff, diff);
+                assertSameSet(message, expected, set);
+                assertTrue(message, set.addAllDiff(set).isEmpty());
+            }
+        }
+    }
+
+    @Test
+    public void testEquals() {
+        Random random = new Random(44);
+        Indexer<Integer> indexer = newIndexer();
+        for (int round = 0; round < ROUNDS; ++round) {
+            for (boolean isSparse : List.of(false, true)) {
+                String message = "round " + round + ", sparse " + isSparse;
+                Set<Integer> elements = randomSet(random);
+                List<Integer> ascending = new ArrayList<>(elements);
+                Collections.sort(ascending);
+                List<Integer> descending = new ArrayList<>(ascending);
+                Collections.reverse(descending);
+                // the windows of the sets differ: the first one grows at
+                // the end, the second one at the start, and the third one
+                // also covers the elements which have been removed
+                IndexerBitSet<Integer> set1 = newBitSet(indexer, isSparse, ascending);
+                IndexerBitSet<Integer> set2 = newBitSet(indexer, isSparse, descending);
+                IndexerBitSet<Integer> set3 = new IndexerBitSet<>(indexer, isSparse);
+                set3.add(0);
+                set3.add(UNIVERSE - 1);
+                set3.addAll(elements);
+                if (!elements.contains(0)) {
+                    set3.remove(0);
+                }
+                if (!elements.contains(UNIVERSE - 1)) {
+                    set3.remove(UNIVERSE - 1);
+                }
+                for (IndexerBitSet<Integer> set : List.of(set1, set2, set3)) {
+                    assertEquals(message, set1, set);
+                    assertEquals(message, set1.hashCode(), set.hashCode());
+                    assertSameSet(message, elements, set);
+                }
+                // sets that differ in one element
+                int e = random.nextInt(UNIVERSE);
+                if (!set2.remove(e)) {
+                    set2.add(e);
+                }
+                assertNotEquals(message, set1, set2);
+                assertNotEquals(message, set2, set3);
+                // sets of the same size, where one element is replaced
+                if (!set1.isEmpty()) {
+                    int replacement;
+                    do {
+                        replacement = random.nextInt(UNIVERSE);
+                    } while (set1.contains(replacement));
+                    IndexerBitSet<Integer> set4 = newBitSet(indexer, isSparse, ascending);
+                    set4.remove(ascending.get(random.nextInt(ascending.size())));
+                    set4.add(replacement);
+                    assertEquals(message, set1.size(), set4.size());
+                    assertNotEquals(message, set1, set4);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testIteratorRemoveAndClear() {
+        Random random = new Random(45);
+        Indexer<Integer> indexer = newIndexer();
+        for (int round = 0; round < ROUNDS; ++round) {
+            for (boolean isSparse : List.of(false, true)) {
+                String message = "round " + round + ", sparse " + isSparse;
+                Set<Integer> expected = randomSet(random);
+                IndexerBitSet<Integer> set = newBitSet(indexer, isSparse, expected);
+                for (Iterator<Integer> it = set.iterator(); it.hasNext(); ) {
+                    Integer e = it.next();
+                    if (random.nextBoolean()) {
+                        it.remove();
+                        expected.remove(e);
+                    }
+                }
+                assertSameSet(message, expected, set);
+                // after clearing, the set is refilled with other elements,
+                // which may lie outside the current window
+                set.clear();
+                assertTrue(message, set.isEmpty());
+                expected = randomSet(random);
+                set.addAll(expected);
+                assertSameSet(message, expected, set);
+            }
+        }
+    }
+
+    private static Indexer<Integer> newIndexer() {
+        Indexer<Integer> indexer = new SimpleIndexer<>();
+        for (int i = 0; i < UNIVERSE; ++i) {
+            indexer.getIndex(i);
+        }
+        return indexer;
+    }
+
+    private static int element(Random random, int base) {
+        return Math.min(UNIVERSE - 1, base + random.nextInt(200));
+    }
+
+    /**
+     * @return a random set of up to two clusters of elements.
+     */
+    private static Set<Integer> randomSet(Random random) {
+        Set<Integer> set = new HashSet<>();
+        int clusters = random.nextInt(3);
+        for (int c = 0; c < clusters; ++c) {
+            int base = random.nextInt(UNIVERSE);
+            int size = random.nextInt(50);
+            for (int i = 0; i < size; ++i) {
+                set.add(element(random, base));
+            }
+        }
+        return set;
+    }
+
+    private static IndexerBitSet<Integer> newBitSet(
+            Indexer<Integer> indexer, boolean isSparse, Iterable<Integer> elements) {
+        IndexerBitSet<Integer> set = new IndexerBitSet<>(indexer, isSparse);
+        elements.forEach(set::add);
+        return set;
+    }
+
+    private static void assertSameSet(
+            String message, Set<Integer> expected, IndexerBitSet<Integer> actual) {
+        assertEquals(message, expected.size(), actual.size());
+        assertEquals(message, expected.isEmpty(), actual.isEmpty());
+        List<Integer> elements = new ArrayList<>();
+        actual.forEach(elements::add);
+        assertEquals(message, expected.size(), elements.size());
+        assertEquals(message, expected, new HashSet<>(elements));
+        // the elements are iterated in the order of their indexes
+        List<Integer> sorted = new ArrayList<>(elements);
+        Collections.sort(sorted);
+        assertEquals(message, sorted, elements);
+        assertTrue(message, actual.equals(expected));
+        assertTrue(message, expected.equals(actual));
+        assertEquals(message, expected.hashCode(), actual.hashCode());
+    }
+}
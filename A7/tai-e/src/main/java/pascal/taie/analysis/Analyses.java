@@ -0,0 +1,66 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis;
+
+import pascal.taie.config.ConfigException;
+
+/**
+ * Static utility methods for reading the options of analyses.
+ */
+public final class Analyses {
+
+    private Analyses() {
+    }
+
+    /**
+     * @return the number of threads given by the {@code threads} option
+     * of the analysis. The analysis runs sequentially if the option is
+     * absent, and 0 means one thread per available processor.
+     * @throws ConfigException if the option is not a non-negative integer.
+     */
+    public static int getThreads(Analysis analysis) {
+        int threads = getNonNegativeInt(analysis, "threads", 1);
+        return threads == 0
+                ? Runtime.getRuntime().availableProcessors()
+                : threads;
+    }
+
+    /**
+     * @return the value of an integer option of the analysis,
+     * or defaultValue if the option is absent.
+     * @throws ConfigException if the option is not a non-negative integer.
+     */
+    public static int getNonNegativeInt(
+            Analysis analysis, String key, int defaultValue) {
+        Object value = analysis.getOptions().get(key);
+        if (value == null) {
+            return defaultValue;
+        }
+        if (!(value instanceof Integer i) || i < 0) {
+            throw new ConfigException("Invalid " + key + " option of "
+                    + analysis.getId() + ": " + value
+                    + ", expected a non-negative integer");
+        }
+        return i;
+    }
+}
@@ -23,16 +23,23 @@
 package pascal.taie.analysis.dataflow.inter;
 
 import pascal.taie.World;
+import pascal.taie.analysis.Analyses;
 import pascal.taie.analysis.ProgramAnalysis;
 import pascal.taie.analysis.dataflow.fact.DataflowResult;
+import pascal.taie.analysis.graph.callgraph.CallGraph;
+import pascal.taie.analysis.graph.callgraph.CallGraphBuilder;
 import pascal.taie.analysis.graph.icfg.CallEdge;
 import pascal.taie.analysis.graph.icfg.CallToReturnEdge;
 import pascal.taie.analysis.graph.icfg.ICFG;
 import pascal.taie.analysis.graph.icfg.ICFGBuilder;
 import pascal.taie.analysis.graph.icfg.ICFGEdge;
+import pascal.taie.analysis.graph.icfg.LazyICFG;
 import pascal.taie.analysis.graph.icfg.NormalEdge;
 import pascal.taie.analysis.graph.icfg.ReturnEdge;
 import pascal.taie.config.AnalysisConfig;
+import pascal.taie.config.ConfigException;
+import pascal.taie.ir.stmt.Stmt;
+import pascal.taie.language.classes.JMethod;
 
 /**
  * Provides common functionalities for {@link InterDataflowAnalysis} implementations.
@@ -45,10 +52,36 @@ public abstract class AbstractInterDataflowAnalysis<Method, Node, Fact>
         extends ProgramAnalysis
         implements InterDataflowAnalysis<Node, Fact> {
 
+    /**
+     * Default maximum number of contexts per method for the summary solver.
+     */
+    private static final int DEFAULT_MAX_CONTEXTS = 16;
+
+    /**
+     * Default maximum number of methods whose edges are cached by
+     * {@link LazyICFG}.
+     */
+    private static final int DEFAULT_MAX_CACHED_METHODS = 1024;
+
     protected ICFG<Method, Node> icfg;
 
+    /**
+     * The work-list solver, which is null if the analysis is solved
+     * by {@link SCCInterSolver} or {@link SummarySolver}.
+     */
     protected InterSolver<Method, Node, Fact> solver;
 
+    /**
+     * Result of {@link #analyze()}, which is null if the analysis has not
+     * been run on the whole program.
+     */
+    private DataflowResult<Node, Fact> result;
+
+    /**
+     * Solver for the queries, which is created on the first query.
+     */
+    private DemandSolver<Method, Node, Fact> demandSolver;
+
     public AbstractInterDataflowAnalysis(AnalysisConfig config) {
         super(config);
     }
@@ -119,11 +152,118 @@ public abstract class AbstractInterDataflowAnalysis<Method, Node, Fact>
 
     @Override
     public Object analyze() {
-        icfg = World.get().getResult(ICFGBuilder.ID);
+        icfg = getICFG();
         initialize();
-        solver = new InterSolver<>(this, icfg);
-        DataflowResult<Node, Fact> result = solver.solve();
+        DataflowResult<Node, Fact> result;
+        String solverKind = getOptions().getString("solver");
+        if (solverKind == null || solverKind.equals("worklist")) {
+            solver = new InterSolver<>(this, icfg);
+            result = solver.solve();
+        } else if (solverKind.equals("scc")) {
+            checkNotAliasAware("Solver scc");
+            result = new SCCInterSolver<>(this, icfg, isBottomUp(), Analyses.getThreads(this))
+                    .solve();
+        } else if (solverKind.equals("summary")) {
+            checkNotAliasAware("Solver summary");
+            result = new SummarySolver<>(this, icfg, getMaxContexts()).solve();
+        } else {
+            throw new ConfigException("Unknown inter solver: " + solverKind);
+        }
         finish();
+        this.result = result;
         return result;
     }
+
+    /**
+     * Queries the in fact of given node. If the analysis has been run on
+     * the whole program, the fact is taken from its result, otherwise it is
+     * computed on demand by exploring only the nodes it depends on.
+     *
+     * @throws ConfigException if the analysis is alias-aware, as the facts
+     *                         of a load may then depend on aliased stores
+     *                         that do not reach the node in the ICFG.
+     */
+    public Fact queryInFact(Node node) {
+        return result != null ?
+                result.getInFact(node) :
+                getDemandSolver().getInFact(node);
+    }
+
+    /**
+     * Queries the out fact of given node.
+     *
+     * @see #queryInFact(Object)
+     */
+    public Fact queryOutFact(Node node) {
+        return result != null ?
+                result.getOutFact(node) :
+                getDemandSolver().getOutFact(node);
+    }
+
+    private synchronized DemandSolver<Method, Node, Fact> getDemandSolver() {
+        if (demandSolver == null) {
+            checkNotAliasAware("Demand queries");
+            if (icfg == null) {
+                icfg = getICFG();
+                initialize();
+            }
+            demandSolver = new DemandSolver<>(this, icfg);
+        }
+        return demandSolver;
+    }
+
+    /**
+     * Alias-aware analyses propagate the facts of stores to aliased loads
+     * which are not connected to them in the ICFG, and this is only
+     * supported by the work-list solver of the whole program.
+     *
+     * @param feature the feature which does not support alias-aware
+     * @throws ConfigException if the analysis is alias-aware.
+     */
+    private void checkNotAliasAware(String feature) {
+        if (getOptions().getBooleanOrDefault("alias-aware", false)) {
+            throw new ConfigException(feature + " of " + getId()
+                    + " cannot be used with alias-aware: true, run the analysis"
+                    + " on the whole program with solver: worklist instead");
+        }
+    }
+
+    /**
+     * @return the ICFG to be analyzed. If option {@code lazy-icfg} is set,
+     * the ICFG is built on demand from the call graph, instead of being
+     * built by {@link ICFGBuilder} before the analysis.
+     */
+    @SuppressWarnings("unchecked")
+    private ICFG<Method, Node> getICFG() {
+        if (getOptions().getBooleanOrDefault("lazy-icfg", false)) {
+            CallGraph<Stmt, JMethod> callGraph =
+                    World.get().getResult(CallGraphBuilder.ID);
+            return (ICFG<Method, Node>) new LazyICFG(callGraph,
+                    Analyses.getNonNegativeInt(this, "max-cached-methods",
+                            DEFAULT_MAX_CACHED_METHODS));
+        } else {
+            return World.get().getResult(ICFGBuilder.ID);
+        }
+    }
+
+    /**
+     * @return whether the SCC solver processes callees before callers.
+     * By default, forward analyses are solved top-down and backward
+     * analyses are solved bottom-up.
+     */
+    private boolean isBottomUp() {
+        String order = getOptions().getString("scc-order");
+        if (order == null) {
+            return !isForward();
+        }
+        return switch (order) {
+            case "top-down" -> false;
+            case "bottom-up" -> true;
+            default -> throw new ConfigException("Unknown scc-order: " + order);
+        };
+    }
+
+    private int getMaxContexts() {
+        return Analyses.getNonNegativeInt(this, "max-contexts", DEFAULT_MAX_CONTEXTS);
+    }
 }
@@ -0,0 +1,227 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.dataflow.inter;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import pascal.taie.analysis.dataflow.fact.DataflowResult;
+import pascal.taie.analysis.graph.icfg.ICFG;
+import pascal.taie.analysis.graph.icfg.ICFGEdge;
+import pascal.taie.util.collection.SetQueue;
+import pascal.taie.util.collection.Sets;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.List;
+import java.util.Queue;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Demand-driven solver for inter-procedural data-flow analysis.
+ * <p>
+ * Instead of solving the whole ICFG up front, the solver computes the facts
+ * of a node when they are queried. For a forward (backward) analysis,
+ * the facts of a node depend only on the nodes that can reach (be reached
+ * from) it in the ICFG, so the solver collects these nodes by traversing
+ * the ICFG backward (forward) from the queried node, through CFG edges as
+ * well as call and return edges, and runs the work-list algorithm on them
+ * only. As the traversed nodes are closed under this dependence, their
+ * facts equal the ones of the whole-program fixed point. They are thus
+ * memoized, and the traversals of later queries stop at the nodes solved
+ * by earlier queries.
+ * <p>
+ * This does not hold for alias-aware analyses, whose loads depend on
+ * aliased stores that need not reach them in the ICFG, so such analyses
+ * are not solved on demand.
+ * <p>
+ * Combined with {@link pascal.taie.analysis.graph.icfg.LazyICFG}, the CFGs
+ * of methods which are unrelated to the queries are not built. The ones
+ * that are built are the CFGs of the entry methods, of the methods
+ * traversed by the queries, and of their callers and callees, as the
+ * ICFG edges of a method are built for all its call sites, entry and exit
+ * at once. With LazyICFG, a queried node must be a call site, or a node
+ * of a method whose CFG has been built, e.g., the entry or exit of a
+ * method.
+ */
+class DemandSolver<Method, Node, Fact> {
+
+    private static final Logger logger = LogManager.getLogger(DemandSolver.class);
+
+    private final InterDataflowAnalysis<Node, Fact> analysis;
+
+    private final ICFG<Method, Node> icfg;
+
+    private final DataflowResult<Node, Fact> result = new DataflowResult<>();
+
+    /**
+     * Nodes whose facts have reached the fixed point.
+     */
+    private final Set<Node> solved = Sets.newSet();
+
+    /**
+     * Boundary nodes, i.e., entry (exit) nodes of the entry methods for
+     * forward (backward) analyses, whose facts are never recomputed.
+     */
+    private Set<Node> boundaries;
+
+    DemandSolver(InterDataflowAnalysis<Node, Fact> analysis,
+                 ICFG<Method, Node> icfg) {
+        this.analysis = analysis;
+        this.icfg = icfg;
+    }
+
+    /**
+     * @return the in fact of given node, which is computed on demand.
+     */
+    synchronized Fact getInFact(Node node) {
+        solve(node);
+        return result.getInFact(node);
+    }
+
+    /**
+     * @return the out fact of given node, which is computed on demand.
+     */
+    synchronized Fact getOutFact(Node node) {
+        solve(node);
+        return result.getOutFact(node);
+    }
+
+    /**
+     * @return the number of nodes that have been solved so far.
+     */
+    synchronized int getNumberOfSolvedNodes() {
+        return solved.size();
+    }
+
+    private void solve(Node node) {
+        if (solved.contains(node)) {
+            return;
+        }
+        if (boundaries == null) {
+            boundaries = icfg.entryMethods()
+                    .map(m -> analysis.isForward() ? icfg.getEntryOf(m) : icfg.getExitOf(m))
+                    .collect(Collectors.toSet());
+        }
+        List<Node> slice = collectSlice(node);
+        Set<Node> inSlice = Sets.newSet(slice.size());
+        inSlice.addAll(slice);
+        Queue<Node> workList = new SetQueue<>();
+        for (Node n : slice) {
+            result.setInFact(n, analysis.newInitialFact());
+            result.setOutFact(n, analysis.newInitialFact());
+            if (boundaries.contains(n)) {
+                Fact fact = analysis.newBoundaryFact(n);
+                if (analysis.isForward()) {
+                    result.setOutFact(n, fact);
+                } else {
+                    result.setInFact(n, fact);
+                }
+            } else {
+                workList.add(n);
+            }
+        }
+        int iterations = 0;
+        while (!workList.isEmpty()) {
+            Node n = workList.poll();
+            ++iterations;
+            if (analysis.isForward()) {
+                if (processForward(n)) {
+                    icfg.getOutEdgesOf(n).forEach(e ->
+                            addIfPending(e.getTarget(), inSlice, workList));
+                }
+            } else {
+                if (processBackward(n)) {
+                    icfg.getInEdgesOf(n).forEach(e ->
+                            addIfPending(e.getSource(), inSlice, workList));
+                }
+            }
+        }
+        solved.addAll(slice);
+        logger.debug("Query {}: solved {} nodes in {} iterations, {} nodes in total",
+                node, slice.size(), iterations, solved.size());
+    }
+
+    /**
+     * Collects the unsolved nodes that the facts of given node depend on,
+     * including the node itself. The nodes are returned in the reverse
+     * order of the traversal, so that dependencies mostly come first.
+     */
+    private List<Node> collectSlice(Node node) {
+        List<Node> slice = new ArrayList<>();
+        Set<Node> visited = Sets.newSet();
+        Deque<Node> stack = new ArrayDeque<>();
+        visited.add(node);
+        stack.push(node);
+        while (!stack.isEmpty()) {
+            Node n = stack.pop();
+            slice.add(n);
+            if (boundaries.contains(n)) {
+                continue;
+            }
+            if (analysis.isForward()) {
+                for (ICFGEdge<Node> inEdge : icfg.getInEdgesOf(n)) {
+                    Node pred = inEdge.getSource();
+                    if (!solved.contains(pred) && visited.add(pred)) {
+                        stack.push(pred);
+                    }
+                }
+            } else {
+                for (ICFGEdge<Node> outEdge : icfg.getOutEdgesOf(n)) {
+                    Node succ = outEdge.getTarget();
+                    if (!solved.contains(succ) && visited.add(succ)) {
+                        stack.push(succ);
+                    }
+                }
+            }
+        }
+        Collections.reverse(slice);
+        return slice;
+    }
+
+    private void addIfPending(Node node, Set<Node> inSlice, Queue<Node> workList) {
+        if (inSlice.contains(node) && !boundaries.contains(node)) {
+            workList.add(node);
+        }
+    }
+
+    private boolean processForward(Node node) {
+        Fact in = result.getInFact(node);
+        for (ICFGEdge<Node> inEdge : icfg.getInEdgesOf(node)) {
+            analysis.meetInto(analysis.transferEdge(inEdge,
+                    result.getOutFact(inEdge.getSource())), in);
+        }
+        return analysis.transferNode(node, in, result.getOutFact(node));
+    }
+
+    private boolean processBackward(Node node) {
+        Fact out = result.getOutFact(node);
+        for (ICFGEdge<Node> outEdge : icfg.getOutEdgesOf(node)) {
+            analysis.meetInto(analysis.transferEdge(outEdge,
+                    result.getInFact(outEdge.getTarget())), out);
+        }
+        return analysis.transferNode(node, result.getInFact(node), out);
+    }
+}
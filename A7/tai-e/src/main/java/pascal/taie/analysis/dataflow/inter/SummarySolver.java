@@ -0,0 +1,320 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.dataflow.inter;
+
+import pascal.taie.analysis.dataflow.fact.DataflowResult;
+import pascal.taie.analysis.graph.icfg.CallEdge;
+import pascal.taie.analysis.graph.icfg.ICFG;
+import pascal.taie.analysis.graph.icfg.ICFGEdge;
+import pascal.taie.analysis.graph.icfg.ReturnEdge;
+import pascal.taie.util.collection.Maps;
+import pascal.taie.util.collection.MultiMap;
+import pascal.taie.util.collection.SetQueue;
+import pascal.taie.util.collection.Sets;
+
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+
+/**
+ * Summary-based solver for inter-procedural data-flow analysis, which
+ * follows the functional (tabulation) approach.
+ * <p>
+ * Each method is analyzed in contexts identified by the facts flowing into
+ * its entry. The facts of a method in a context, in particular its exit
+ * fact, serve as the summary of the method for that entry fact, which is
+ * computed once and reused by all call sites that pass an equal fact to
+ * the method. When the exit fact of a context changes, only the return
+ * sites of the call sites using the context are re-analyzed.
+ * <p>
+ * Compared to {@link InterSolver}, which propagates the facts of all
+ * callers through a single copy of each method, this solver does not
+ * merge the facts of different callers, thus its results, which are
+ * the meet of the facts of all contexts, can be more precise. To bound
+ * the cost, a method that gets more than a given number of contexts is
+ * analyzed in a single further context whose entry fact is the meet of
+ * the entry facts of the call sites that arrive after the limit.
+ * <p>
+ * This solver only supports forward analyses. The facts must implement
+ * {@link Object#equals(Object)} and {@link Object#hashCode()}, and the
+ * initial fact must be the identity of the meet operation.
+ */
+class SummarySolver<Method, Node, Fact> {
+
+    private final InterDataflowAnalysis<Node, Fact> analysis;
+
+    private final ICFG<Method, Node> icfg;
+
+    /**
+     * Maximum number of contexts (i.e., distinct entry facts) per method.
+     */
+    private final int maxContexts;
+
+    private final Map<Method, Map<Fact, Context>> contexts = Maps.newMap();
+
+    /**
+     * Contexts for the methods that exceed {@link #maxContexts}.
+     */
+    private final Map<Method, Context> mergedContexts = Maps.newMap();
+
+    /**
+     * Contexts of the entry methods, whose entry nodes hold the boundary
+     * facts. Like other solvers, which never recompute the facts of
+     * boundary nodes, the calls to an entry method use its boundary
+     * context regardless of the facts they pass.
+     */
+    private final Map<Method, Context> boundaryContexts = Maps.newMap();
+
+    /**
+     * Contexts that have nodes to be processed.
+     */
+    private final Queue<Context> workList = new SetQueue<>();
+
+    SummarySolver(InterDataflowAnalysis<Node, Fact> analysis,
+                  ICFG<Method, Node> icfg, int maxContexts) {
+        if (!analysis.isForward()) {
+            throw new UnsupportedOperationException(
+                    "SummarySolver only supports forward analyses");
+        }
+        this.analysis = analysis;
+        this.icfg = icfg;
+        this.maxContexts = maxContexts;
+    }
+
+    DataflowResult<Node, Fact> solve() {
+        icfg.entryMethods().forEach(method -> boundaryContexts.put(method,
+                new Context(method, analysis.newBoundaryFact(
+                        icfg.getEntryOf(method)), true)));
+        while (!workList.isEmpty()) {
+            workList.poll().solve();
+        }
+        return collectResult();
+    }
+
+    /**
+     * @return the context of given method for given entry fact.
+     */
+    private Context getContext(Method method, Fact entryFact) {
+        Context boundary = boundaryContexts.get(method);
+        if (boundary != null) {
+            return boundary;
+        }
+        Context merged = mergedContexts.get(method);
+        if (merged != null) {
+            merged.meetEntryFact(entryFact);
+            return merged;
+        }
+        Map<Fact, Context> methodContexts = contexts.computeIfAbsent(
+                method, __ -> Maps.newMap());
+        Context context = methodContexts.get(entryFact);
+        if (context == null) {
+            context = new Context(method, entryFact, false);
+            if (methodContexts.size() < maxContexts) {
+                methodContexts.put(entryFact, context);
+            } else {
+                mergedContexts.put(method, context);
+            }
+        }
+        return context;
+    }
+
+    /**
+     * Meets the facts of all contexts into a context-insensitive result.
+     */
+    private DataflowResult<Node, Fact> collectResult() {
+        DataflowResult<Node, Fact> result = new DataflowResult<>();
+        for (Node node : icfg) {
+            result.setInFact(node, analysis.newInitialFact());
+            result.setOutFact(node, analysis.newInitialFact());
+        }
+        contexts.values().forEach(methodContexts ->
+                methodContexts.values().forEach(c -> c.meetInto(result)));
+        mergedContexts.values().forEach(c -> c.meetInto(result));
+        boundaryContexts.values().forEach(c -> c.meetInto(result));
+        return result;
+    }
+
+    private Fact copy(Fact fact) {
+        Fact copy = analysis.newInitialFact();
+        analysis.meetInto(fact, copy);
+        return copy;
+    }
+
+    /**
+     * A method analyzed for a specific entry fact.
+     */
+    private class Context {
+
+        private final Node entry;
+
+        private final Node exit;
+
+        private final Map<Node, Fact> inFacts = Maps.newMap();
+
+        private final Map<Node, Fact> outFacts = Maps.newMap();
+
+        /**
+         * Nodes of this context to be processed.
+         */
+        private final Queue<Node> nodes = new SetQueue<>();
+
+        /**
+         * Nodes that have been processed at least once.
+         */
+        private final Set<Node> visited = Sets.newSet();
+
+        /**
+         * Call site -> callee -> context of the callee used at the call site.
+         */
+        private final Map<Node, Map<Method, Context>> calleeContexts = Maps.newMap();
+
+        /**
+         * Caller context -> call sites in the caller that use this context.
+         */
+        private final MultiMap<Context, Node> callers = Maps.newMultiMap();
+
+        /**
+         * @param entryFact the fact flowing into the entry node along
+         *                  call edges, or the boundary fact, which is the
+         *                  out fact of the entry node, if boundary is true.
+         */
+        private Context(Method method, Fact entryFact, boolean boundary) {
+            this.entry = icfg.getEntryOf(method);
+            this.exit = icfg.getExitOf(method);
+            if (boundary) {
+                outFacts.put(entry, copy(entryFact));
+                visited.add(entry);
+                addSuccsOf(entry);
+            } else {
+                // the entry node is transferred like other nodes
+                inFacts.put(entry, copy(entryFact));
+                add(entry);
+            }
+        }
+
+        /**
+         * Meets given fact into the fact flowing into the entry of
+         * this context, which is not a boundary context.
+         */
+        private void meetEntryFact(Fact fact) {
+            Fact entryFact = inFacts.get(entry);
+            Fact oldEntryFact = copy(entryFact);
+            analysis.meetInto(fact, entryFact);
+            if (!entryFact.equals(oldEntryFact)) {
+                add(entry);
+            }
+        }
+
+        private Fact getInFact(Node node) {
+            return inFacts.computeIfAbsent(node, __ -> analysis.newInitialFact());
+        }
+
+        private Fact getOutFact(Node node) {
+            return outFacts.computeIfAbsent(node, __ -> analysis.newInitialFact());
+        }
+
+        private void add(Node node) {
+            nodes.add(node);
+            workList.add(this);
+        }
+
+        private void addSuccsOf(Node node) {
+            for (ICFGEdge<Node> outEdge : icfg.getOutEdgesOf(node)) {
+                if (!(outEdge instanceof CallEdge) &&
+                        !(outEdge instanceof ReturnEdge)) {
+                    add(outEdge.getTarget());
+                }
+            }
+        }
+
+        /**
+         * Processes the nodes of this context until no node is left.
+         */
+        private void solve() {
+            while (!nodes.isEmpty()) {
+                Node node = nodes.poll();
+                Fact in = getInFact(node);
+                for (ICFGEdge<Node> inEdge : icfg.getInEdgesOf(node)) {
+                    if (inEdge instanceof ReturnEdge<Node> returnEdge) {
+                        // apply the summary of the callee context
+                        Context callee = getCalleeContext(returnEdge);
+                        if (callee != null) {
+                            analysis.meetInto(analysis.transferEdge(returnEdge,
+                                    callee.getOutFact(callee.exit)), in);
+                        }
+                    } else if (!(inEdge instanceof CallEdge)) {
+                        analysis.meetInto(analysis.transferEdge(inEdge,
+                                getOutFact(inEdge.getSource())), in);
+                    }
+                }
+                Fact out = getOutFact(node);
+                boolean changed = analysis.transferNode(node, in, out);
+                boolean firstVisit = visited.add(node);
+                if (changed || firstVisit) {
+                    if (icfg.isCallSite(node)) {
+                        processCallSite(node, out);
+                    }
+                    if (node.equals(exit)) {
+                        callers.forEach((caller, callSite) ->
+                                icfg.getReturnSitesOf(callSite).forEach(caller::add));
+                    }
+                    addSuccsOf(node);
+                }
+            }
+        }
+
+        /**
+         * Looks up the callee contexts for the current out fact
+         * of given call site.
+         */
+        private void processCallSite(Node callSite, Fact out) {
+            Map<Method, Context> callees = calleeContexts.computeIfAbsent(
+                    callSite, __ -> Maps.newMap());
+            for (ICFGEdge<Node> outEdge : icfg.getOutEdgesOf(callSite)) {
+                if (outEdge instanceof CallEdge<Node> callEdge) {
+                    Method callee = icfg.getContainingMethodOf(callEdge.getTarget());
+                    Context context = getContext(callee,
+                            analysis.transferEdge(callEdge, out));
+                    callees.put(callee, context);
+                    context.callers.put(this, callSite);
+                }
+            }
+        }
+
+        private Context getCalleeContext(ReturnEdge<Node> returnEdge) {
+            Map<Method, Context> callees = calleeContexts.get(returnEdge.getCallSite());
+            return callees == null ? null : callees.get(
+                    icfg.getContainingMethodOf(returnEdge.getSource()));
+        }
+
+        /**
+         * Meets the facts of this context into given result.
+         */
+        private void meetInto(DataflowResult<Node, Fact> result) {
+            inFacts.forEach((node, fact) ->
+                    analysis.meetInto(fact, result.getInFact(node)));
+            outFacts.forEach((node, fact) ->
+                    analysis.meetInto(fact, result.getOutFact(node)));
+        }
+    }
+}
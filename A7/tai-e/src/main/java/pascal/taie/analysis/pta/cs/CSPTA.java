@@ -28,6 +28,7 @@ import pascal.taie.analysis.pta.core.cs.selector.CISelector;
 import pascal.taie.analysis.pta.core.cs.selector.ContextSelector;
 import pascal.taie.analysis.pta.core.heap.AllocationSiteBasedModel;
 import pascal.taie.analysis.pta.plugin.ResultProcessor;
+import pascal.taie.analysis.pta.pts.PointsToSetFactory;
 import pascal.taie.config.AnalysisConfig;
 import pascal.taie.config.AnalysisOptions;
 import pascal.taie.config.ConfigException;
@@ -50,13 +51,19 @@ public class CSPTA extends ProgramAnalysis {
     @Override
     public PointerAnalysisResult analyze() {
         AnalysisOptions options = getOptions();
-        Solver solver = new Solver(options,
-                new AllocationSiteBasedModel(options),
-                getContextSelector(options.getString("cs")));
-        solver.solve();
-        PointerAnalysisResult result = solver.getResult();
-        ResultProcessor.process(options, result);
-        return result;
+        PointsToSetFactory.setKind(options.getString("pts"));
+        try {
+            Solver solver = new Solver(options,
+                    new AllocationSiteBasedModel(options),
+                    getContextSelector(options.getString("cs")));
+            solver.solve();
+            PointerAnalysisResult result = solver.getResult();
+            ResultProcessor.process(options, result);
+            return result;
+        } finally {
+            // the kind is global, so it must not leak into later analyses
+            PointsToSetFactory.setKind(null);
+        }
     }
 
     private static ContextSelector getContextSelector(String cs) {
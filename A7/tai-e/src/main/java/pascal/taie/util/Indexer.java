@@ -0,0 +1,48 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.util;
+
+/**
+ * Maps objects to dense indexes, and vice versa.
+ *
+ * @param <E> type of objects
+ */
+public interface Indexer<E> {
+
+    /**
+     * @return the index of given object. The object is indexed
+     * if it has not been indexed yet.
+     */
+    int getIndex(E o);
+
+    /**
+     * @return the index of given object, or -1 if it has not been indexed.
+     * Unlike {@link #getIndex(Object)}, this never indexes the object.
+     */
+    int indexOf(Object o);
+
+    /**
+     * @return the object of given index.
+     */
+    E getObject(int index);
+}
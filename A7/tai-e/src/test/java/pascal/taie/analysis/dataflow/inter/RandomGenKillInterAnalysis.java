@@ -0,0 +1,196 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.dataflow.inter;
+
+import pascal.taie.analysis.dataflow.fact.DataflowResult;
+import pascal.taie.analysis.graph.icfg.CallEdge;
+import pascal.taie.analysis.graph.icfg.CallToReturnEdge;
+import pascal.taie.analysis.graph.icfg.ICFG;
+import pascal.taie.analysis.graph.icfg.ICFGEdge;
+import pascal.taie.util.collection.Maps;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.stream.Collectors;
+
+/**
+ * An inter-procedural gen/kill analysis over integer ICFG nodes, whose
+ * facts are sets of integers in [0, {@link #ELEMENTS}) met by union.
+ * The gen and kill sets of the nodes, and the kill sets of call and
+ * call-to-return edges, are chosen randomly, for testing the solvers.
+ */
+class RandomGenKillInterAnalysis
+        implements InterDataflowAnalysis<Integer, Set<Integer>> {
+
+    static final int ELEMENTS = 8;
+
+    private final boolean forward;
+
+    private final Map<Integer, List<Integer>> gens = Maps.newMap();
+
+    private final Map<Integer, List<Integer>> kills = Maps.newMap();
+
+    /**
+     * Kill sets of the call and call-to-return edges of each call site.
+     */
+    private final Map<Integer, List<Integer>> callKills = Maps.newMap();
+
+    private final Map<Integer, List<Integer>> callToReturnKills = Maps.newMap();
+
+    RandomGenKillInterAnalysis(ICFG<?, Integer> icfg, boolean forward,
+                               Random random) {
+        this.forward = forward;
+        for (Integer node : icfg) {
+            gens.put(node, randomElements(random));
+            kills.put(node, randomElements(random));
+            if (icfg.isCallSite(node)) {
+                callKills.put(node, randomElements(random));
+                callToReturnKills.put(node, randomElements(random));
+            }
+        }
+    }
+
+    /**
+     * Sets the gen and kill sets of given node.
+     */
+    void setGenKill(Integer node, List<Integer> gen, List<Integer> kill) {
+        gens.put(node, gen);
+        kills.put(node, kill);
+    }
+
+    /**
+     * Sets the kill sets of the call and call-to-return edges
+     * of given call site.
+     */
+    void setCallKills(Integer callSite, List<Integer> callKill,
+                      List<Integer> callToReturnKill) {
+        callKills.put(callSite, callKill);
+        callToReturnKills.put(callSite, callToReturnKill);
+    }
+
+    private static List<Integer> randomElements(Random random) {
+        List<Integer> elements = new ArrayList<>();
+        for (int i = random.nextInt(3); i > 0; --i) {
+            elements.add(random.nextInt(ELEMENTS));
+        }
+        return elements;
+    }
+
+    @Override
+    public boolean isForward() {
+        return forward;
+    }
+
+    @Override
+    public Set<Integer> newBoundaryFact(Integer boundary) {
+        return new TreeSet<>(Set.of(0, 1));
+    }
+
+    @Override
+    public Set<Integer> newInitialFact() {
+        return new TreeSet<>();
+    }
+
+    @Override
+    public void meetInto(Set<Integer> fact, Set<Integer> target) {
+        target.addAll(fact);
+    }
+
+    @Override
+    public boolean transferNode(Integer node, Set<Integer> in, Set<Integer> out) {
+        Set<Integer> source = forward ? in : out;
+        Set<Integer> target = forward ? out : in;
+        Set<Integer> result = new TreeSet<>(source);
+        result.removeAll(kills.get(node));
+        result.addAll(gens.get(node));
+        if (!result.equals(target)) {
+            target.clear();
+            target.addAll(result);
+            return true;
+        }
+        return false;
+    }
+
+    @Override
+    public Set<Integer> transferEdge(ICFGEdge<Integer> edge, Set<Integer> out) {
+        Set<Integer> result = new TreeSet<>(out);
+        if (edge instanceof CallEdge) {
+            result.removeAll(callKills.get(edge.getSource()));
+        } else if (edge instanceof CallToReturnEdge) {
+            result.removeAll(callToReturnKills.get(edge.getSource()));
+        }
+        return result;
+    }
+
+    /**
+     * Computes the fixed point of this analysis on given ICFG by
+     * visiting all nodes round-robin until no fact changes,
+     * as the reference result of the solvers.
+     */
+    <Method> DataflowResult<Integer, Set<Integer>> solve(
+            ICFG<Method, Integer> icfg) {
+        DataflowResult<Integer, Set<Integer>> result = new DataflowResult<>();
+        for (Integer node : icfg) {
+            result.setInFact(node, newInitialFact());
+            result.setOutFact(node, newInitialFact());
+        }
+        Set<Integer> boundaries = icfg.entryMethods()
+                .map(m -> forward ? icfg.getEntryOf(m) : icfg.getExitOf(m))
+                .collect(Collectors.toSet());
+        for (Integer boundary : boundaries) {
+            if (forward) {
+                result.setOutFact(boundary, newBoundaryFact(boundary));
+            } else {
+                result.setInFact(boundary, newBoundaryFact(boundary));
+            }
+        }
+        boolean changed;
+        do {
+            changed = false;
+            for (Integer node : icfg) {
+                if (boundaries.contains(node)) {
+                    continue;
+                }
+                Set<Integer> in = result.getInFact(node);
+                Set<Integer> out = result.getOutFact(node);
+                if (forward) {
+                    for (ICFGEdge<Integer> inEdge : icfg.getInEdgesOf(node)) {
+                        meetInto(transferEdge(inEdge,
+                                result.getOutFact(inEdge.getSource())), in);
+                    }
+                } else {
+                    for (ICFGEdge<Integer> outEdge : icfg.getOutEdgesOf(node)) {
+                        meetInto(transferEdge(outEdge,
+                                result.getInFact(outEdge.getTarget())), out);
+                    }
+                }
+                changed |= transferNode(node, in, out);
+            }
+        } while (changed);
+        return result;
+    }
+}
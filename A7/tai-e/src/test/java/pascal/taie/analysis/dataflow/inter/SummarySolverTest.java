@@ -0,0 +1,150 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.dataflow.inter;
+
+import org.junit.Test;
+import pascal.taie.analysis.dataflow.fact.DataflowResult;
+import pascal.taie.analysis.graph.cfg.TestCFG;
+import pascal.taie.analysis.graph.icfg.TestICFG;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Checks the results of {@link SummarySolver} against the fixed point
+ * computed by {@link RandomGenKillInterAnalysis#solve}.
+ */
+public class SummarySolverTest {
+
+    private static final int ROUNDS = 200;
+
+    /**
+     * Without contexts, each method is analyzed once for the meet of the
+     * facts of all its callers, so the results equal the fixed point.
+     */
+    @Test
+    public void testContextInsensitive() {
+        Random random = new Random(13);
+        for (int round = 0; round < ROUNDS; ++round) {
+            TestICFG icfg = TestICFG.random(
+                    1 + random.nextInt(8), random.nextInt(8), random);
+            RandomGenKillInterAnalysis analysis =
+                    new RandomGenKillInterAnalysis(icfg, true, random);
+            DataflowResult<Integer, Set<Integer>> expected = analysis.solve(icfg);
+            DataflowResult<Integer, Set<Integer>> result =
+                    new SummarySolver<>(analysis, icfg, 0).solve();
+            for (Integer node : icfg) {
+                String message = "round " + round + ", node " + node;
+                assertEquals(message, expected.getInFact(node), result.getInFact(node));
+                assertEquals(message, expected.getOutFact(node), result.getOutFact(node));
+            }
+        }
+    }
+
+    /**
+     * With contexts, the facts of different callers are not merged,
+     * so the results are subsets of the fixed point.
+     */
+    @Test
+    public void testContextSensitive() {
+        Random random = new Random(14);
+        for (int round = 0; round < ROUNDS; ++round) {
+            TestICFG icfg = TestICFG.random(
+                    1 + random.nextInt(8), random.nextInt(8), random);
+            RandomGenKillInterAnalysis analysis =
+                    new RandomGenKillInterAnalysis(icfg, true, random);
+            DataflowResult<Integer, Set<Integer>> expected = analysis.solve(icfg);
+            DataflowResult<Integer, Set<Integer>> result =
+                    new SummarySolver<>(analysis, icfg, 1 + random.nextInt(4)).solve();
+            for (Integer node : icfg) {
+                String message = "round " + round + ", node " + node;
+                assertTrue(message, expected.getInFact(node)
+                        .containsAll(result.getInFact(node)));
+                assertTrue(message, expected.getOutFact(node)
+                        .containsAll(result.getOutFact(node)));
+            }
+        }
+    }
+
+    /**
+     * Checks a program where m0 calls the identity method m1 twice with
+     * different facts, and the call-to-return edges kill all facts:
+     * <pre>
+     * m0: 0 (entry) -> 1 (gen 2) -> 2 (call m1) -> 3 (gen 3, kill 2)
+     *       -> 4 (call m1) -> 5 (exit)
+     * m1: 6 (entry) -> 7 (exit)
+     * </pre>
+     * The fixed point merges the facts of both calls in m1, so that 2
+     * returns to node 5, while the summaries of m1 do not.
+     */
+    @Test
+    public void testPrecision() {
+        TestICFG icfg = new TestICFG(List.of("m0"));
+        icfg.addMethod("m0", newChain(0, 5));
+        icfg.addMethod("m1", newChain(6, 7));
+        icfg.addCall(2, "m1");
+        icfg.addCall(4, "m1");
+        RandomGenKillInterAnalysis analysis =
+                new RandomGenKillInterAnalysis(icfg, true, new Random(0));
+        for (Integer node : icfg) {
+            analysis.setGenKill(node, List.of(), List.of());
+        }
+        analysis.setGenKill(1, List.of(2), List.of());
+        analysis.setGenKill(3, List.of(3), List.of(2));
+        List<Integer> all = List.of(0, 1, 2, 3, 4, 5, 6, 7);
+        analysis.setCallKills(2, List.of(), all);
+        analysis.setCallKills(4, List.of(), all);
+
+        DataflowResult<Integer, Set<Integer>> expected = analysis.solve(icfg);
+        assertEquals(Set.of(0, 1, 2, 3), expected.getInFact(5));
+        assertEquals(expected.getInFact(5),
+                new SummarySolver<>(analysis, icfg, 0).solve().getInFact(5));
+        DataflowResult<Integer, Set<Integer>> result =
+                new SummarySolver<>(analysis, icfg, 16).solve();
+        assertEquals(Set.of(0, 1, 2), result.getInFact(3));
+        assertEquals(Set.of(0, 1, 3), result.getInFact(5));
+        // the facts of m1 are the meet of its two contexts
+        assertEquals(Set.of(0, 1, 2, 3), result.getOutFact(7));
+    }
+
+    /**
+     * @return a CFG of the nodes in [first, last] with
+     * the path first -> first + 1 -> ... -> last.
+     */
+    private static TestCFG<Integer> newChain(int first, int last) {
+        List<Integer> nodes = new ArrayList<>();
+        for (int node = first; node <= last; ++node) {
+            nodes.add(node);
+        }
+        TestCFG<Integer> cfg = new TestCFG<>(null, nodes);
+        for (int node = first; node < last; ++node) {
+            cfg.addEdge(node, node + 1);
+        }
+        return cfg;
+    }
+}
@@ -0,0 +1,250 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.graph.icfg;
+
+import pascal.taie.analysis.graph.cfg.Edge;
+import pascal.taie.analysis.graph.cfg.TestCFG;
+import pascal.taie.util.collection.Maps;
+import pascal.taie.util.collection.MultiMap;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.stream.Stream;
+
+/**
+ * An ICFG of integer nodes which is built from the {@link TestCFG}s of
+ * its methods and the callees of its call sites, for testing.
+ * Like the ICFGs built by {@link ICFGBuilder}, the CFG edges from call
+ * sites become {@link CallToReturnEdge}s, and their targets are the
+ * return sites of the call sites.
+ */
+public class TestICFG implements ICFG<String, Integer> {
+
+    private final List<String> entryMethods;
+
+    private final Map<String, TestCFG<Integer>> cfgs = new LinkedHashMap<>();
+
+    private final Map<Integer, String> methodOf = new LinkedHashMap<>();
+
+    private final MultiMap<Integer, String> callees = Maps.newMultiMap();
+
+    private final MultiMap<String, Integer> callers = Maps.newMultiMap();
+
+    public TestICFG(List<String> entryMethods) {
+        this.entryMethods = List.copyOf(entryMethods);
+    }
+
+    /**
+     * @return a random ICFG of given number of methods m0, m1, ..., where
+     * m0 is the entry method. Each method other than m0 is called by some
+     * method before it, so that all methods are reachable, and some calls
+     * are added at random, which may be recursive. The entry method is
+     * never called.
+     */
+    public static TestICFG random(int methods, int extraCalls, Random random) {
+        // number of body nodes, i.e., the nodes other than entry and exit,
+        // of each method, and the callees of the body nodes of each method
+        int[] sizes = new int[methods];
+        List<MultiMap<Integer, Integer>> calls = new ArrayList<>();
+        for (int m = 0; m < methods; ++m) {
+            sizes[m] = 1 + random.nextInt(5);
+            calls.add(Maps.newMultiMap());
+        }
+        for (int m = 1; m < methods; ++m) {
+            int caller = random.nextInt(m);
+            calls.get(caller).put(random.nextInt(sizes[caller]), m);
+        }
+        for (int i = 0; methods > 1 && i < extraCalls; ++i) {
+            int caller = random.nextInt(methods);
+            calls.get(caller).put(random.nextInt(sizes[caller]),
+                    1 + random.nextInt(methods - 1));
+        }
+        TestICFG icfg = new TestICFG(List.of("m0"));
+        int node = 0;
+        for (int m = 0; m < methods; ++m) {
+            List<Integer> nodes = new ArrayList<>();
+            for (int i = sizes[m] + 2; i > 0; --i) {
+                nodes.add(node++);
+            }
+            TestCFG<Integer> cfg = new TestCFG<>(null, nodes);
+            for (int i = 0; i + 1 < nodes.size(); ++i) {
+                cfg.addEdge(nodes.get(i), nodes.get(i + 1));
+            }
+            // random jumps from the body nodes which are not call sites
+            MultiMap<Integer, Integer> methodCalls = calls.get(m);
+            for (int i = random.nextInt(3); i > 0; --i) {
+                int source = random.nextInt(sizes[m]);
+                if (!methodCalls.containsKey(source)) {
+                    cfg.addEdge(nodes.get(1 + source),
+                            nodes.get(1 + random.nextInt(sizes[m])));
+                }
+            }
+            icfg.addMethod("m" + m, cfg);
+            methodCalls.forEach((source, callee) ->
+                    icfg.addCall(nodes.get(1 + source), "m" + callee));
+        }
+        return icfg;
+    }
+
+    /**
+     * Adds a method with given CFG. The nodes of the CFG must not
+     * belong to other methods.
+     */
+    public void addMethod(String method, TestCFG<Integer> cfg) {
+        cfgs.put(method, cfg);
+        cfg.forEach(node -> methodOf.put(node, method));
+    }
+
+    /**
+     * Adds a call from given call site to given callee.
+     */
+    public void addCall(Integer callSite, String callee) {
+        callees.put(callSite, callee);
+        callers.put(callee, callSite);
+    }
+
+    private TestCFG<Integer> getCFGOf(Integer node) {
+        return cfgs.get(methodOf.get(node));
+    }
+
+    private ICFGEdge<Integer> toICFGEdge(Edge<Integer> edge) {
+        return isCallSite(edge.getSource()) ?
+                new CallToReturnEdge<>(edge) : new NormalEdge<>(edge);
+    }
+
+    @Override
+    public Stream<String> entryMethods() {
+        return entryMethods.stream();
+    }
+
+    @Override
+    public Set<ICFGEdge<Integer>> getInEdgesOf(Integer node) {
+        Set<ICFGEdge<Integer>> edges = new LinkedHashSet<>();
+        TestCFG<Integer> cfg = getCFGOf(node);
+        for (Edge<Integer> edge : cfg.getInEdgesOf(node)) {
+            edges.add(toICFGEdge(edge));
+            Integer callSite = edge.getSource();
+            for (String callee : callees.get(callSite)) {
+                edges.add(new ReturnEdge<>(getExitOf(callee), node, callSite,
+                        List.of(), List.of()));
+            }
+        }
+        if (cfg.isEntry(node)) {
+            for (Integer callSite : callers.get(methodOf.get(node))) {
+                edges.add(new CallEdge<>(callSite, node, null));
+            }
+        }
+        return Collections.unmodifiableSet(edges);
+    }
+
+    @Override
+    public Set<ICFGEdge<Integer>> getOutEdgesOf(Integer node) {
+        Set<ICFGEdge<Integer>> edges = new LinkedHashSet<>();
+        TestCFG<Integer> cfg = getCFGOf(node);
+        for (Edge<Integer> edge : cfg.getOutEdgesOf(node)) {
+            edges.add(toICFGEdge(edge));
+        }
+        for (String callee : callees.get(node)) {
+            edges.add(new CallEdge<>(node, getEntryOf(callee), null));
+        }
+        if (cfg.isExit(node)) {
+            for (Integer callSite : callers.get(methodOf.get(node))) {
+                for (Integer returnSite : getReturnSitesOf(callSite)) {
+                    edges.add(new ReturnEdge<>(node, returnSite, callSite,
+                            List.of(), List.of()));
+                }
+            }
+        }
+        return Collections.unmodifiableSet(edges);
+    }
+
+    @Override
+    public Set<String> getCalleesOf(Integer callSite) {
+        return Collections.unmodifiableSet(callees.get(callSite));
+    }
+
+    @Override
+    public Set<Integer> getReturnSitesOf(Integer callSite) {
+        return getCFGOf(callSite).getSuccsOf(callSite);
+    }
+
+    @Override
+    public Integer getEntryOf(String method) {
+        return cfgs.get(method).getEntry();
+    }
+
+    @Override
+    public Integer getExitOf(String method) {
+        return cfgs.get(method).getExit();
+    }
+
+    @Override
+    public Set<Integer> getCallersOf(String method) {
+        return Collections.unmodifiableSet(callers.get(method));
+    }
+
+    @Override
+    public String getContainingMethodOf(Integer node) {
+        return methodOf.get(node);
+    }
+
+    @Override
+    public boolean isCallSite(Integer node) {
+        return callees.containsKey(node);
+    }
+
+    @Override
+    public boolean hasNode(Integer node) {
+        return methodOf.containsKey(node);
+    }
+
+    @Override
+    public boolean hasEdge(Integer source, Integer target) {
+        return getSuccsOf(source).contains(target);
+    }
+
+    @Override
+    public Set<Integer> getPredsOf(Integer node) {
+        Set<Integer> preds = new LinkedHashSet<>();
+        getInEdgesOf(node).forEach(edge -> preds.add(edge.getSource()));
+        return preds;
+    }
+
+    @Override
+    public Set<Integer> getSuccsOf(Integer node) {
+        Set<Integer> succs = new LinkedHashSet<>();
+        getOutEdgesOf(node).forEach(edge -> succs.add(edge.getTarget()));
+        return succs;
+    }
+
+    @Override
+    public Set<Integer> getNodes() {
+        return Collections.unmodifiableSet(methodOf.keySet());
+    }
+}
@@ -0,0 +1,173 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.pta.cs;
+
+import org.junit.Test;
+import pascal.taie.analysis.pta.core.cs.context.ListContext;
+import pascal.taie.analysis.pta.core.cs.element.CSManager;
+import pascal.taie.analysis.pta.core.cs.element.CSObj;
+import pascal.taie.analysis.pta.core.cs.element.MapBasedCSManager;
+import pascal.taie.analysis.pta.core.cs.element.Pointer;
+import pascal.taie.analysis.pta.core.heap.Obj;
+import pascal.taie.analysis.pta.pts.PointsToSet;
+import pascal.taie.analysis.pta.pts.PointsToSetFactory;
+import pascal.taie.ir.exp.Var;
+import pascal.taie.language.classes.JMethod;
+import pascal.taie.language.type.PrimitiveType;
+import pascal.taie.language.type.Type;
+
+import java.util.Optional;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Checks the entries of {@link WorkList} with and without merging the
+ * entries of the same pointer (difference propagation).
+ */
+public class WorkListTest {
+
+    private final CSManager csManager = new MapBasedCSManager();
+
+    private final Pointer p = newPointer("p", 0);
+
+    private final Pointer q = newPointer("q", 1);
+
+    private final CSObj o1 = newObj(1);
+
+    private final CSObj o2 = newObj(2);
+
+    private final CSObj o3 = newObj(3);
+
+    @Test
+    public void testSeparateEntries() {
+        WorkList workList = new WorkList(false, new PointerFlowGraph());
+        PointsToSet s1 = pts(o1);
+        PointsToSet s2 = pts(o2);
+        workList.addEntry(p, s1);
+        workList.addEntry(q, s2);
+        workList.addEntry(p, s2);
+        assertEntry(workList.pollEntry(), p, s1);
+        assertEntry(workList.pollEntry(), q, s2);
+        assertEntry(workList.pollEntry(), p, s2);
+        assertTrue(workList.isEmpty());
+        assertNull(workList.pollEntry());
+    }
+
+    @Test
+    public void testMergedDeltas() {
+        WorkList workList = new WorkList(true, new PointerFlowGraph());
+        workList.addEntry(p, pts(o1));
+        workList.addEntry(q, pts(o2));
+        workList.addEntry(p, pts(o2));
+        workList.addEntry(p, pts(o3));
+        // each pointer is queued once, in the order it was first added,
+        // with all objects added for it since
+        WorkList.Entry entry = workList.pollEntry();
+        assertSame(p, entry.pointer());
+        assertEquals(Set.of(o1, o2, o3), entry.pointsToSet().getObjects());
+        entry = workList.pollEntry();
+        assertSame(q, entry.pointer());
+        assertEquals(Set.of(o2), entry.pointsToSet().getObjects());
+        assertTrue(workList.isEmpty());
+        // a polled pointer is queued again with a new delta
+        workList.addEntry(p, pts(o3));
+        assertFalse(workList.isEmpty());
+        entry = workList.pollEntry();
+        assertSame(p, entry.pointer());
+        assertEquals(Set.of(o3), entry.pointsToSet().getObjects());
+        assertNull(workList.pollEntry());
+    }
+
+    /**
+     * The first set added for a pointer is shared with the entries of
+     * other pointers, so it is queued as is, and it is copied instead of
+     * modified when another set is merged into it.
+     */
+    @Test
+    public void testCopyOnSecondMerge() {
+        WorkList workList = new WorkList(true, new PointerFlowGraph());
+        PointsToSet shared = pts(o1);
+        workList.addEntry(p, shared);
+        workList.addEntry(q, shared);
+        workList.addEntry(q, pts(o2));
+        workList.addEntry(q, pts(o3));
+        assertEntry(workList.pollEntry(), p, shared);
+        WorkList.Entry entry = workList.pollEntry();
+        assertSame(q, entry.pointer());
+        assertNotSame(shared, entry.pointsToSet());
+        assertEquals(Set.of(o1, o2, o3), entry.pointsToSet().getObjects());
+        assertEquals(Set.of(o1), shared.getObjects());
+    }
+
+    private static void assertEntry(
+            WorkList.Entry entry, Pointer pointer, PointsToSet pointsToSet) {
+        assertSame(pointer, entry.pointer());
+        assertSame(pointsToSet, entry.pointsToSet());
+    }
+
+    private Pointer newPointer(String name, int index) {
+        return csManager.getCSVar(ListContext.make(),
+                new Var(null, name, PrimitiveType.INT, index));
+    }
+
+    private CSObj newObj(int id) {
+        return csManager.getCSObj(ListContext.make(), new TestObj(id));
+    }
+
+    private PointsToSet pts(CSObj... objs) {
+        PointsToSet pts = PointsToSetFactory.make();
+        for (CSObj obj : objs) {
+            pts.addObject(obj);
+        }
+        return pts;
+    }
+
+    private record TestObj(int id) implements Obj {
+
+        @Override
+        public Type getType() {
+            return null;
+        }
+
+        @Override
+        public Object getAllocation() {
+            return id;
+        }
+
+        @Override
+        public Optional<JMethod> getContainerMethod() {
+            return Optional.empty();
+        }
+
+        @Override
+        public Type getContainerType() {
+            return null;
+        }
+    }
+}
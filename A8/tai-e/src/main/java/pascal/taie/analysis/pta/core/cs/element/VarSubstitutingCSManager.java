@@ -0,0 +1,145 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.pta.core.cs.element;
+
+import pascal.taie.analysis.pta.core.cs.context.Context;
+import pascal.taie.analysis.pta.core.heap.Obj;
+import pascal.taie.analysis.pta.toolkit.OfflineVarSubstitution;
+import pascal.taie.ir.exp.Var;
+import pascal.taie.ir.stmt.Invoke;
+import pascal.taie.language.classes.JField;
+import pascal.taie.language.classes.JMethod;
+import pascal.taie.util.collection.Sets;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * CS manager which creates one context-sensitive variable for each class
+ * of equivalent variables (computed by {@link OfflineVarSubstitution})
+ * under the same context. The other elements are managed by
+ * the given CS manager.
+ */
+public class VarSubstitutingCSManager implements CSManager {
+
+    private final CSManager csManager;
+
+    private final OfflineVarSubstitution varSubstitution;
+
+    /**
+     * Variables which have been substituted by their representatives.
+     */
+    private final Set<Var> substitutedVars = Sets.newSet();
+
+    public VarSubstitutingCSManager(CSManager csManager,
+                                    OfflineVarSubstitution varSubstitution) {
+        this.csManager = csManager;
+        this.varSubstitution = varSubstitution;
+    }
+
+    @Override
+    public CSVar getCSVar(Context context, Var var) {
+        Var rep = varSubstitution.getRepresentative(var);
+        if (rep != var) {
+            substitutedVars.add(var);
+        }
+        return csManager.getCSVar(context, rep);
+    }
+
+    @Override
+    public CSObj getCSObj(Context heapContext, Obj obj) {
+        return csManager.getCSObj(heapContext, obj);
+    }
+
+    @Override
+    public CSCallSite getCSCallSite(Context context, Invoke callSite) {
+        return csManager.getCSCallSite(context, callSite);
+    }
+
+    @Override
+    public CSMethod getCSMethod(Context context, JMethod method) {
+        return csManager.getCSMethod(context, method);
+    }
+
+    @Override
+    public StaticField getStaticField(JField field) {
+        return csManager.getStaticField(field);
+    }
+
+    @Override
+    public InstanceField getInstanceField(CSObj base, JField field) {
+        return csManager.getInstanceField(base, field);
+    }
+
+    @Override
+    public ArrayIndex getArrayIndex(CSObj array) {
+        return csManager.getArrayIndex(array);
+    }
+
+    /**
+     * @return all variables (without contexts), including the substituted
+     * ones, which have no context-sensitive variables of their own.
+     */
+    @Override
+    public Collection<Var> getVars() {
+        List<Var> vars = new ArrayList<>(csManager.getVars());
+        vars.addAll(substitutedVars);
+        return vars;
+    }
+
+    /**
+     * @return all relevant context-sensitive variables for given variable.
+     * For a substituted variable, returns the ones of its representative.
+     */
+    @Override
+    public Collection<CSVar> getCSVarsOf(Var var) {
+        return csManager.getCSVarsOf(varSubstitution.getRepresentative(var));
+    }
+
+    @Override
+    public Collection<CSVar> getCSVars() {
+        return csManager.getCSVars();
+    }
+
+    @Override
+    public Collection<CSObj> getObjects() {
+        return csManager.getObjects();
+    }
+
+    @Override
+    public Collection<StaticField> getStaticFields() {
+        return csManager.getStaticFields();
+    }
+
+    @Override
+    public Collection<InstanceField> getInstanceFields() {
+        return csManager.getInstanceFields();
+    }
+
+    @Override
+    public Collection<ArrayIndex> getArrayIndexes() {
+        return csManager.getArrayIndexes();
+    }
+}
@@ -0,0 +1,165 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.pta.toolkit;
+
+import pascal.taie.ir.IR;
+import pascal.taie.ir.exp.Var;
+import pascal.taie.ir.stmt.Copy;
+import pascal.taie.ir.stmt.Stmt;
+import pascal.taie.language.classes.JMethod;
+import pascal.taie.util.collection.Maps;
+import pascal.taie.util.collection.MultiMap;
+import pascal.taie.util.collection.Sets;
+import pascal.taie.util.graph.MergedNode;
+import pascal.taie.util.graph.MergedSCCGraph;
+import pascal.taie.util.graph.SimpleGraph;
+import pascal.taie.util.graph.TopoSorter;
+
+import java.util.BitSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Offline variable substitution, which finds the variables that are
+ * guaranteed to have the same points-to set before pointer analysis runs,
+ * so that pointer analysis can use one pointer for each class of them.
+ * <p>
+ * Variables only flow to each other via {@link Copy} statements inside
+ * a method, thus the classes are computed method by method, in the manner
+ * of hash-based value numbering with union (HVN/HU): each variable that
+ * receives values from elsewhere (i.e., "this", parameters, and variables
+ * defined by statements other than {@link Copy}) is a root, and two
+ * variables are equivalent if the same set of roots reaches them along
+ * the copy edges. The classes of a method are computed at the first
+ * query about its variables, and then cached.
+ * <p>
+ * A variable used as the base of field or array accesses, or as the receiver
+ * of calls, is never substituted, as pointer analysis processes these
+ * statements via the variable itself. Such a variable may still represent
+ * the other variables of its class.
+ */
+public class OfflineVarSubstitution {
+
+    /**
+     * Map from a method to the substituted variables of the method
+     * and their representatives.
+     */
+    private final Map<JMethod, Map<Var, Var>> representatives = Maps.newMap();
+
+    /**
+     * @return the representative of the class that given variable belongs to.
+     * If the variable is not equivalent to any other variable,
+     * returns the variable itself.
+     */
+    public Var getRepresentative(Var var) {
+        return representatives.computeIfAbsent(var.getMethod(),
+                        m -> computeRepresentatives(m.getIR()))
+                .getOrDefault(var, var);
+    }
+
+    private static Map<Var, Var> computeRepresentatives(IR ir) {
+        // build the graph of copy edges (rvalue -> lvalue)
+        SimpleGraph<Var> copyGraph = new SimpleGraph<>();
+        Set<Var> nonCopyDefs = Sets.newSet();
+        for (Stmt stmt : ir) {
+            if (stmt instanceof Copy copy) {
+                Var lhs = copy.getLValue(), rhs = copy.getRValue();
+                if (lhs != rhs) {
+                    copyGraph.addNode(rhs);
+                    copyGraph.addNode(lhs);
+                    copyGraph.addEdge(rhs, lhs);
+                }
+            } else {
+                stmt.getDef().ifPresent(def -> {
+                    if (def instanceof Var v) {
+                        nonCopyDefs.add(v);
+                    }
+                });
+            }
+        }
+        if (copyGraph.getNodes().isEmpty()) {
+            return Map.of();
+        }
+        // compute the labels (sets of reaching roots) in topological order,
+        // the variables in an SCC share the label
+        Map<Var, Integer> roots = Maps.newMap();
+        Map<MergedNode<Var>, BitSet> labels = Maps.newMap();
+        MultiMap<BitSet, Var> classes = Maps.newMultiMap();
+        MergedSCCGraph<Var> sccGraph = new MergedSCCGraph<>(copyGraph);
+        for (MergedNode<Var> scc : new TopoSorter<>(sccGraph).get()) {
+            BitSet label = new BitSet();
+            for (MergedNode<Var> pred : sccGraph.getPredsOf(scc)) {
+                label.or(labels.get(pred));
+            }
+            for (Var v : scc.getNodes()) {
+                if (isRoot(ir, v, copyGraph, nonCopyDefs)) {
+                    label.set(roots.computeIfAbsent(v, __ -> roots.size()));
+                }
+            }
+            labels.put(scc, label);
+            classes.putAll(label, scc.getNodes());
+        }
+        // pointer analysis handles the field accesses, array accesses and
+        // calls on a variable via the variable itself, so the variables
+        // with such uses are not substituted, and one of them (if any)
+        // represents the class
+        Map<Var, Var> result = Maps.newMap();
+        for (BitSet label : classes.keySet()) {
+            Set<Var> vars = classes.get(label);
+            Var rep = vars.stream()
+                    .filter(OfflineVarSubstitution::hasBaseUses)
+                    .findFirst()
+                    .orElseGet(() -> vars.iterator().next());
+            for (Var v : vars) {
+                if (v != rep && !hasBaseUses(v)) {
+                    result.put(v, rep);
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * @return true if given variable is the base of field or array accesses,
+     * or the receiver of calls.
+     */
+    private static boolean hasBaseUses(Var var) {
+        return !var.getLoadFields().isEmpty()
+                || !var.getStoreFields().isEmpty()
+                || !var.getLoadArrays().isEmpty()
+                || !var.getStoreArrays().isEmpty()
+                || !var.getInvokes().isEmpty();
+    }
+
+    /**
+     * @return true if given variable may receive values that do not come
+     * from the copy edges in the method.
+     */
+    private static boolean isRoot(IR ir, Var var, SimpleGraph<Var> copyGraph,
+                                  Set<Var> nonCopyDefs) {
+        return var == ir.getThis()
+                || ir.getParams().contains(var)
+                || nonCopyDefs.contains(var)
+                || copyGraph.getPredsOf(var).isEmpty();
+    }
+}
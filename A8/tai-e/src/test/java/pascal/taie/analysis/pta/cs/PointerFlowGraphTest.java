@@ -0,0 +1,245 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.pta.cs;
+
+import org.junit.Test;
+import pascal.taie.analysis.pta.core.cs.context.ListContext;
+import pascal.taie.analysis.pta.core.cs.element.CSManager;
+import pascal.taie.analysis.pta.core.cs.element.CSObj;
+import pascal.taie.analysis.pta.core.cs.element.MapBasedCSManager;
+import pascal.taie.analysis.pta.core.cs.element.Pointer;
+import pascal.taie.analysis.pta.core.heap.Obj;
+import pascal.taie.analysis.pta.pts.PointsToSet;
+import pascal.taie.analysis.pta.pts.PointsToSetFactory;
+import pascal.taie.ir.exp.ArrayAccess;
+import pascal.taie.ir.exp.Var;
+import pascal.taie.ir.stmt.LoadArray;
+import pascal.taie.language.classes.JMethod;
+import pascal.taie.language.type.PrimitiveType;
+import pascal.taie.language.type.Type;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Checks the collapsing of cycles in {@link PointerFlowGraph} on
+ * hand-built graphs, and the redirection of the work-list entries
+ * of collapsed pointers to their representative.
+ */
+public class PointerFlowGraphTest {
+
+    private final CSManager csManager = new MapBasedCSManager();
+
+    private int vars = 0;
+
+    private int objs = 0;
+
+    /**
+     * Graph a -> b -> c -> a, c -> d, where a has the largest points-to
+     * set and becomes the representative.
+     */
+    @Test
+    public void testCollapseCycle() {
+        PointerFlowGraph pfg = new PointerFlowGraph();
+        Pointer a = newPointer(), b = newPointer(),
+                c = newPointer(), d = newPointer();
+        CSObj o1 = newObj(), o2 = newObj(), o3 = newObj();
+        addObjects(a, o1, o2);
+        addObjects(b, o3);
+        pfg.addEdge(a, b);
+        pfg.addEdge(b, c);
+        pfg.addEdge(c, a);
+        pfg.addEdge(c, d);
+        // d is not on a cycle with c
+        assertNull(pfg.collapseCycle(c, d));
+        PointerFlowGraph.CollapsedCycle cycle = pfg.collapseCycle(a, b);
+        assertSame(a, cycle.representative());
+        // the objects of b and c are left to be propagated to a
+        assertEquals(Set.of(o3), cycle.pointsToSet().getObjects());
+        assertEquals(Set.of(o1, o2), a.getPointsToSet().getObjects());
+        for (Pointer p : List.of(a, b, c)) {
+            assertSame(a, pfg.getRepresentative(p));
+            assertSame(a.getPointsToSet(), p.getPointsToSet());
+            assertEquals(Set.of(d), pfg.getSuccsOf(p));
+        }
+        assertSame(d, pfg.getRepresentative(d));
+        // edges within the cycle are self-loops of the representative
+        assertFalse(pfg.addEdge(b, c));
+        Pointer e = newPointer();
+        assertTrue(pfg.addEdge(b, e));
+        assertEquals(Set.of(d, e), pfg.getSuccsOf(a));
+        // the cycle has been collapsed
+        assertNull(pfg.collapseCycle(a, b));
+    }
+
+    /**
+     * A variable which is the base of field or array accesses, or
+     * the receiver of calls, becomes the representative, so that
+     * the solver processes these accesses for all objects of the cycle.
+     */
+    @Test
+    public void testBaseVarIsRepresentative() {
+        PointerFlowGraph pfg = new PointerFlowGraph();
+        Pointer a = newPointer(), c = newPointer();
+        Var base = new Var(null, "base", PrimitiveType.INT, vars++);
+        new LoadArray(new Var(null, "x", PrimitiveType.INT, vars++),
+                new ArrayAccess(base, new Var(null, "i", PrimitiveType.INT, vars++)));
+        Pointer b = csManager.getCSVar(ListContext.make(), base);
+        CSObj o1 = newObj(), o2 = newObj();
+        addObjects(a, o1, o2);
+        pfg.addEdge(a, b);
+        pfg.addEdge(b, c);
+        pfg.addEdge(c, a);
+        PointerFlowGraph.CollapsedCycle cycle = pfg.collapseCycle(a, b);
+        assertSame(b, cycle.representative());
+        assertEquals(Set.of(o1, o2), cycle.pointsToSet().getObjects());
+        assertTrue(b.getPointsToSet().isEmpty());
+        assertSame(b, pfg.getRepresentative(a));
+        assertSame(b, pfg.getRepresentative(c));
+    }
+
+    /**
+     * Collapsing cycles that share pointers, so the representatives
+     * of earlier cycles are collapsed into later ones.
+     */
+    @Test
+    public void testNestedCollapse() {
+        PointerFlowGraph pfg = new PointerFlowGraph();
+        Pointer a = newPointer(), b = newPointer(),
+                c = newPointer(), d = newPointer();
+        CSObj o1 = newObj(), o2 = newObj(), o3 = newObj();
+        addObjects(a, o1);
+        addObjects(c, o2, o3);
+        pfg.addEdge(a, b);
+        pfg.addEdge(b, a);
+        assertSame(a, pfg.collapseCycle(a, b).representative());
+        pfg.addEdge(b, c);
+        pfg.addEdge(c, d);
+        pfg.addEdge(d, a);
+        PointerFlowGraph.CollapsedCycle cycle = pfg.collapseCycle(c, d);
+        assertSame(c, cycle.representative());
+        assertEquals(Set.of(o1), cycle.pointsToSet().getObjects());
+        for (Pointer p : List.of(a, b, c, d)) {
+            assertSame(c, pfg.getRepresentative(p));
+            assertSame(c.getPointsToSet(), p.getPointsToSet());
+            assertEquals(Set.of(), pfg.getSuccsOf(p));
+        }
+    }
+
+    @Test
+    public void testWorkListRedirectsEntries() {
+        for (boolean mergeEntries : List.of(false, true)) {
+            PointerFlowGraph pfg = new PointerFlowGraph();
+            WorkList workList = new WorkList(mergeEntries, pfg);
+            Pointer a = newPointer(), b = newPointer();
+            CSObj o1 = newObj(), o2 = newObj();
+            addObjects(a, o1);
+            PointsToSet before = pts(o2);
+            // added before b is collapsed, redirected when polled
+            workList.addEntry(b, before);
+            pfg.addEdge(a, b);
+            pfg.addEdge(b, a);
+            assertSame(a, pfg.collapseCycle(a, b).representative());
+            // added after b is collapsed, redirected when added
+            PointsToSet after = pts(o1);
+            workList.addEntry(b, after);
+            WorkList.Entry entry = workList.pollEntry();
+            assertSame(a, entry.pointer());
+            assertSame(before, entry.pointsToSet());
+            entry = workList.pollEntry();
+            assertSame(a, entry.pointer());
+            assertSame(after, entry.pointsToSet());
+            assertTrue(workList.isEmpty());
+        }
+    }
+
+    @Test
+    public void testShouldCheckCycle() {
+        PointerFlowGraph pfg = new PointerFlowGraph();
+        Pointer a = newPointer(), b = newPointer();
+        CSObj o1 = newObj();
+        pfg.addEdge(a, b);
+        // empty sets are not checked
+        assertFalse(pfg.shouldCheckCycle(a, b));
+        addObjects(a, o1);
+        assertFalse(pfg.shouldCheckCycle(a, b));
+        addObjects(b, o1);
+        // identical sets are checked, once per edge
+        assertTrue(pfg.shouldCheckCycle(a, b));
+        assertFalse(pfg.shouldCheckCycle(a, b));
+    }
+
+    private Pointer newPointer() {
+        int index = vars++;
+        return csManager.getCSVar(ListContext.make(),
+                new Var(null, "v" + index, PrimitiveType.INT, index));
+    }
+
+    private CSObj newObj() {
+        return csManager.getCSObj(ListContext.make(), new TestObj(objs++));
+    }
+
+    private static void addObjects(Pointer pointer, CSObj... objs) {
+        for (CSObj obj : objs) {
+            pointer.getPointsToSet().addObject(obj);
+        }
+    }
+
+    private static PointsToSet pts(CSObj... objs) {
+        PointsToSet pts = PointsToSetFactory.make();
+        for (CSObj obj : objs) {
+            pts.addObject(obj);
+        }
+        return pts;
+    }
+
+    private record TestObj(int id) implements Obj {
+
+        @Override
+        public Type getType() {
+            return null;
+        }
+
+        @Override
+        public Object getAllocation() {
+            return id;
+        }
+
+        @Override
+        public Optional<JMethod> getContainerMethod() {
+            return Optional.empty();
+        }
+
+        @Override
+        public Type getContainerType() {
+            return null;
+        }
+    }
+}